@@ -0,0 +1,64 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link DoFn} that processes its inputs in batches, which lets implementations amortize per-call
+ * costs and process each batch in a tight loop.
+ * <p>
+ * When a {@code BatchDoFn} consumes the output of another {@code DoFn} in the same task, the runtime
+ * collects up to {@link #batchSize()} inputs and passes them to {@link #processBatch(List, Emitter)}
+ * in a single call. The inputs in a batch may be safely retained for the duration of the call: they
+ * are detached copies (see {@link org.apache.crunch.types.PType#getDetachedValue(Object)}) unless the
+ * {@code BatchDoFn} is the last of the consumers of the values that may modify them, in which case it
+ * is given the values as they were emitted, and so the upstream {@code DoFn} must not reuse the objects it
+ * emits. Where inputs cannot be batched, such as when reading directly from a
+ * {@code Source}, {@code processBatch} is called with a batch containing a single input.
+ * <p>
+ * A final, possibly smaller, batch is processed before {@link #cleanup(Emitter)} is called.
+ */
+public abstract class BatchDoFn<S, T> extends DoFn<S, T> {
+
+  /** The default maximum number of inputs in a batch. */
+  public static final int DEFAULT_BATCH_SIZE = 1024;
+
+  /**
+   * Processes a batch of inputs.
+   *
+   * @param inputs The inputs to process, in the order they were emitted
+   * @param emitter The emitter to write outputs to
+   */
+  public abstract void processBatch(List<S> inputs, Emitter<T> emitter);
+
+  @Override
+  public void process(S input, Emitter<T> emitter) {
+    processBatch(Collections.singletonList(input), emitter);
+  }
+
+  /**
+   * Returns the maximum number of inputs that will be passed to a single call of
+   * {@link #processBatch(List, Emitter)}. Subclasses may override this method to use a different
+   * batch size.
+   */
+  public int batchSize() {
+    return DEFAULT_BATCH_SIZE;
+  }
+}
@@ -143,6 +143,16 @@ public abstract class DoFn<S, T> implements Serializable {
     return false;
   }
 
+  /**
+   * Returns true if applying this function to the same inputs always produces the same outputs.
+   * The planner merges structurally identical collections into one, which is only safe for
+   * deterministic functions, so subclasses whose outputs are random (such as unseeded samples)
+   * should override this method to return {@code false}.
+   */
+  public boolean isDeterministic() {
+    return true;
+  }
+
   protected TaskInputOutputContext<?, ?, ?, ?> getContext() {
     return context;
   }
@@ -80,6 +80,13 @@ public class GroupingOptions implements Serializable {
     return partitionerClass;
   }
   
+  /**
+   * Returns the additional configuration settings that are applied to the job that performs the grouping.
+   */
+  public Map<String, String> getExtraConf() {
+    return extraConf;
+  }
+
   public Set<SourceTarget<?>> getSourceTargets() {
     return sourceTargets;
   }
@@ -0,0 +1,39 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch;
+
+/**
+ * An {@link Aggregator} of {@code int} values that can be updated and queried without boxing.
+ * <p>
+ * When a {@code IntAggregator} is used to combine the values of a {@link PGroupedTable}, it is updated via
+ * {@link #update(int)} and its single result is read via {@link #intResult()}.
+ */
+public interface IntAggregator extends Aggregator<Integer> {
+
+  /**
+   * Incorporate the given value into the aggregate state maintained by this instance.
+   *
+   * @param value The value to add to the aggregated state
+   */
+  void update(int value);
+
+  /**
+   * Returns the aggregated value for the values seen since the last call to {@link #reset()}.
+   */
+  int intResult();
+}
@@ -57,6 +57,20 @@ public class ParallelDoOptions {
     }
   }
 
+  @Override
+  public boolean equals(Object other) {
+    if (other == null || !(other instanceof ParallelDoOptions)) {
+      return false;
+    }
+    ParallelDoOptions o = (ParallelDoOptions) other;
+    return sourceTargets.equals(o.sourceTargets) && extraConf.equals(o.extraConf);
+  }
+
+  @Override
+  public int hashCode() {
+    return 17 + 37 * sourceTargets.hashCode() + 41 * extraConf.hashCode();
+  }
+
   public static Builder builder() {
     return new Builder();
   }
@@ -36,6 +36,110 @@ import java.util.List;
  */
 public class PipelineResult {
 
+  /**
+   * Runtime metrics for a single {@code DoFn} in the pipeline, aggregated over all of the tasks that
+   * ran it. Only available when the {@code crunch.node.metrics} runtime property is enabled.
+   */
+  public static class NodeResult {
+
+    /** The counter group that per-node metrics are reported in. */
+    public static final String COUNTER_GROUP = "org.apache.crunch.NodeMetrics";
+
+    public static final String RECORDS_IN = "in";
+    public static final String RECORDS_OUT = "out";
+    public static final String INCLUSIVE_NANOS = "nanos";
+    public static final String EXCLUSIVE_NANOS = "selfNanos";
+
+    /** The name that the metrics of nodes without counters of their own are reported under. */
+    public static final String OTHER_NODES = "(other)";
+
+    /**
+     * The maximum length of the node names in counter names, which keeps the counter names within the
+     * length that Hadoop allows.
+     */
+    static final int MAX_NODE_NAME_LENGTH = 50;
+
+    private final String nodeName;
+    private long recordsIn;
+    private long recordsOut;
+    private long inclusiveNanos;
+    private long exclusiveNanos;
+
+    public NodeResult(String nodeName) {
+      this.nodeName = nodeName;
+    }
+
+    /**
+     * Returns the name of the counter for the given metric of the named node.
+     */
+    public static String getCounterName(String metric, String nodeName) {
+      return metric + ":" + nodeName;
+    }
+
+    /**
+     * Returns the name that the metrics of the named node are reported under, which is the node name
+     * itself unless it is too long for a counter name. Long names are shortened and given a hash of the
+     * full name, so that different nodes do not share counters.
+     */
+    public static String getMetricsNodeName(String nodeName) {
+      if (nodeName.length() <= MAX_NODE_NAME_LENGTH) {
+        return nodeName;
+      }
+      String hash = Integer.toHexString(nodeName.hashCode());
+      return nodeName.substring(0, MAX_NODE_NAME_LENGTH - hash.length() - 1) + "~" + hash;
+    }
+
+    public String getNodeName() {
+      return nodeName;
+    }
+
+    /**
+     * @return the number of records that were processed by the node
+     */
+    public long getRecordsIn() {
+      return recordsIn;
+    }
+
+    /**
+     * @return the number of records that were emitted by the node
+     */
+    public long getRecordsOut() {
+      return recordsOut;
+    }
+
+    /**
+     * @return the time spent in the node, including the time spent in the nodes that consume its output
+     */
+    public long getInclusiveNanos() {
+      return inclusiveNanos;
+    }
+
+    /**
+     * @return the time spent in the node, excluding the time spent in the nodes that consume its output
+     */
+    public long getExclusiveNanos() {
+      return exclusiveNanos;
+    }
+
+    void add(String metric, long value) {
+      if (RECORDS_IN.equals(metric)) {
+        recordsIn += value;
+      } else if (RECORDS_OUT.equals(metric)) {
+        recordsOut += value;
+      } else if (INCLUSIVE_NANOS.equals(metric)) {
+        inclusiveNanos += value;
+      } else if (EXCLUSIVE_NANOS.equals(metric)) {
+        exclusiveNanos += value;
+      }
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: %d in, %d out, %.1f ms (%.1f ms self)", nodeName, recordsIn, recordsOut,
+          inclusiveNanos / 1e6, exclusiveNanos / 1e6);
+    }
+  }
+
   public static class StageResult {
 
     private final String stageName;
@@ -157,6 +261,35 @@ public class PipelineResult {
       return counters.findCounter(groupName, counterName).getDisplayName();
     }
 
+    /**
+     * @return the runtime metrics of the {@code DoFn}s in this stage, keyed by node name, or an empty
+     * map if runtime metrics were not collected
+     */
+    public Map<String, NodeResult> getNodeResults() {
+      if (counters == null) {
+        return ImmutableMap.of();
+      }
+      Map<String, NodeResult> results = Maps.newTreeMap();
+      for (CounterGroup counterGroup : counters) {
+        if (NodeResult.COUNTER_GROUP.equals(counterGroup.getName())) {
+          for (Counter counter : counterGroup) {
+            String name = counter.getName();
+            int sep = name.indexOf(':');
+            if (sep > 0) {
+              String nodeName = name.substring(sep + 1);
+              NodeResult result = results.get(nodeName);
+              if (result == null) {
+                result = new NodeResult(nodeName);
+                results.put(nodeName, result);
+              }
+              result.add(name.substring(0, sep), counter.getValue());
+            }
+          }
+        }
+      }
+      return results;
+    }
+
     public long getCounterValue(Enum<?> key) {
       if (counters == null) {
         return 0L;
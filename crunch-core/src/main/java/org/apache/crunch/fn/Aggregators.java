@@ -25,7 +25,10 @@ import java.util.SortedSet;
 
 import org.apache.crunch.Aggregator;
 import org.apache.crunch.CombineFn;
+import org.apache.crunch.DoubleAggregator;
 import org.apache.crunch.Emitter;
+import org.apache.crunch.IntAggregator;
+import org.apache.crunch.LongAggregator;
 import org.apache.crunch.PGroupedTable;
 import org.apache.crunch.Pair;
 import org.apache.crunch.Tuple;
@@ -444,6 +447,20 @@ public final class Aggregators {
     return new AggregatorCombineFn<K, V>(aggregator);
   }
 
+  /**
+   * Returns the aggregator that the given {@link CombineFn} delegates to if it was created by
+   * {@link #toCombineFn(Aggregator)}.
+   *
+   * @param combineFn The {@code CombineFn} to inspect
+   * @return The wrapped aggregator, or null if {@code combineFn} does not wrap an aggregator
+   */
+  public static final <K, V> Aggregator<V> toAggregator(CombineFn<K, V> combineFn) {
+    if (combineFn instanceof AggregatorCombineFn) {
+      return ((AggregatorCombineFn<K, V>) combineFn).aggregator;
+    }
+    return null;
+  }
+
   /**
    * Base class for aggregators that do not require any initialization.
    */
@@ -473,17 +490,40 @@ public final class Aggregators {
 
     @Override
     public void process(Pair<K, Iterable<V>> input, Emitter<Pair<K, V>> emitter) {
-      aggregator.reset();
-      for (V v : input.second()) {
-        aggregator.update(v);
-      }
-      for (V v : aggregator.results()) {
-        emitter.emit(Pair.of(input.first(), v));
+      if (aggregator instanceof LongAggregator) {
+        LongAggregator agg = (LongAggregator) aggregator;
+        agg.reset();
+        for (V v : input.second()) {
+          agg.update(((Number) v).longValue());
+        }
+        emitter.emit(Pair.of(input.first(), (V) Long.valueOf(agg.longResult())));
+      } else if (aggregator instanceof IntAggregator) {
+        IntAggregator agg = (IntAggregator) aggregator;
+        agg.reset();
+        for (V v : input.second()) {
+          agg.update(((Number) v).intValue());
+        }
+        emitter.emit(Pair.of(input.first(), (V) Integer.valueOf(agg.intResult())));
+      } else if (aggregator instanceof DoubleAggregator) {
+        DoubleAggregator agg = (DoubleAggregator) aggregator;
+        agg.reset();
+        for (V v : input.second()) {
+          agg.update(((Number) v).doubleValue());
+        }
+        emitter.emit(Pair.of(input.first(), (V) Double.valueOf(agg.doubleResult())));
+      } else {
+        aggregator.reset();
+        for (V v : input.second()) {
+          aggregator.update(v);
+        }
+        for (V v : aggregator.results()) {
+          emitter.emit(Pair.of(input.first(), v));
+        }
       }
     }
   }
 
-  private static class SumLongs extends SimpleAggregator<Long> {
+  private static class SumLongs extends SimpleAggregator<Long> implements LongAggregator {
     private long sum = 0;
 
     @Override
@@ -496,13 +536,23 @@ public final class Aggregators {
       sum += next;
     }
 
+    @Override
+    public void update(long next) {
+      sum += next;
+    }
+
+    @Override
+    public long longResult() {
+      return sum;
+    }
+
     @Override
     public Iterable<Long> results() {
       return ImmutableList.of(sum);
     }
   }
 
-  private static class SumInts extends SimpleAggregator<Integer> {
+  private static class SumInts extends SimpleAggregator<Integer> implements IntAggregator {
     private int sum = 0;
 
     @Override
@@ -515,6 +565,16 @@ public final class Aggregators {
       sum += next;
     }
 
+    @Override
+    public void update(int next) {
+      sum += next;
+    }
+
+    @Override
+    public int intResult() {
+      return sum;
+    }
+
     @Override
     public Iterable<Integer> results() {
       return ImmutableList.of(sum);
@@ -540,12 +600,12 @@ public final class Aggregators {
     }
   }
 
-  private static class SumDoubles extends SimpleAggregator<Double> {
-    private double sum = 0;
+  private static class SumDoubles extends SimpleAggregator<Double> implements DoubleAggregator {
+    private double sum = 0.0;
 
     @Override
     public void reset() {
-      sum = 0f;
+      sum = 0.0;
     }
 
     @Override
@@ -553,6 +613,16 @@ public final class Aggregators {
       sum += next;
     }
 
+    @Override
+    public void update(double next) {
+      sum += next;
+    }
+
+    @Override
+    public double doubleResult() {
+      return sum;
+    }
+
     @Override
     public Iterable<Double> results() {
       return ImmutableList.of(sum);
@@ -578,45 +648,69 @@ public final class Aggregators {
     }
   }
 
-  private static class MaxLongs extends SimpleAggregator<Long> {
-    private Long max = null;
+  private static class MaxLongs extends SimpleAggregator<Long> implements LongAggregator {
+    private long max;
+    private boolean empty = true;
 
     @Override
     public void reset() {
-      max = null;
+      empty = true;
     }
 
     @Override
     public void update(Long next) {
-      if (max == null || max < next) {
+      update(next.longValue());
+    }
+
+    @Override
+    public void update(long next) {
+      if (empty || max < next) {
         max = next;
+        empty = false;
       }
     }
 
+    @Override
+    public long longResult() {
+      return max;
+    }
+
     @Override
     public Iterable<Long> results() {
-      return ImmutableList.of(max);
+      return empty ? ImmutableList.<Long>of() : ImmutableList.of(max);
     }
   }
 
-  private static class MaxInts extends SimpleAggregator<Integer> {
-    private Integer max = null;
+  private static class MaxInts extends SimpleAggregator<Integer> implements IntAggregator {
+    private int max;
+    private boolean empty = true;
 
     @Override
     public void reset() {
-      max = null;
+      empty = true;
     }
 
     @Override
     public void update(Integer next) {
-      if (max == null || max < next) {
+      update(next.intValue());
+    }
+
+    @Override
+    public void update(int next) {
+      if (empty || max < next) {
         max = next;
+        empty = false;
       }
     }
 
+    @Override
+    public int intResult() {
+      return max;
+    }
+
     @Override
     public Iterable<Integer> results() {
-      return ImmutableList.of(max);
+      return empty ? ImmutableList.<Integer>of() : ImmutableList.of(max);
     }
   }
 
@@ -641,24 +735,36 @@ public final class Aggregators {
     }
   }
 
-  private static class MaxDoubles extends SimpleAggregator<Double> {
-    private Double max = null;
+  private static class MaxDoubles extends SimpleAggregator<Double> implements DoubleAggregator {
+    private double max;
+    private boolean empty = true;
 
     @Override
     public void reset() {
-      max = null;
+      empty = true;
     }
 
     @Override
     public void update(Double next) {
-      if (max == null || max < next) {
+      update(next.doubleValue());
+    }
+
+    @Override
+    public void update(double next) {
+      if (empty || max < next) {
         max = next;
+        empty = false;
       }
     }
 
+    @Override
+    public double doubleResult() {
+      return max;
+    }
+
     @Override
     public Iterable<Double> results() {
-      return ImmutableList.of(max);
+      return empty ? ImmutableList.<Double>of() : ImmutableList.of(max);
     }
   }
 
@@ -683,45 +789,69 @@ public final class Aggregators {
     }
   }
 
-  private static class MinLongs extends SimpleAggregator<Long> {
-    private Long min = null;
+  private static class MinLongs extends SimpleAggregator<Long> implements LongAggregator {
+    private long min;
+    private boolean empty = true;
 
     @Override
     public void reset() {
-      min = null;
+      empty = true;
     }
 
     @Override
     public void update(Long next) {
-      if (min == null || min > next) {
+      update(next.longValue());
+    }
+
+    @Override
+    public void update(long next) {
+      if (empty || min > next) {
         min = next;
+        empty = false;
       }
     }
 
+    @Override
+    public long longResult() {
+      return min;
+    }
+
     @Override
     public Iterable<Long> results() {
-      return ImmutableList.of(min);
+      return empty ? ImmutableList.<Long>of() : ImmutableList.of(min);
     }
   }
 
-  private static class MinInts extends SimpleAggregator<Integer> {
-    private Integer min = null;
+  private static class MinInts extends SimpleAggregator<Integer> implements IntAggregator {
+    private int min;
+    private boolean empty = true;
 
     @Override
     public void reset() {
-      min = null;
+      empty = true;
     }
 
     @Override
     public void update(Integer next) {
-      if (min == null || min > next) {
+      update(next.intValue());
+    }
+
+    @Override
+    public void update(int next) {
+      if (empty || min > next) {
         min = next;
+        empty = false;
       }
     }
 
+    @Override
+    public int intResult() {
+      return min;
+    }
+
     @Override
     public Iterable<Integer> results() {
-      return ImmutableList.of(min);
+      return empty ? ImmutableList.<Integer>of() : ImmutableList.of(min);
     }
   }
 
@@ -746,24 +876,36 @@ public final class Aggregators {
     }
   }
 
-  private static class MinDoubles extends SimpleAggregator<Double> {
-    private Double min = null;
+  private static class MinDoubles extends SimpleAggregator<Double> implements DoubleAggregator {
+    private double min;
+    private boolean empty = true;
 
     @Override
     public void reset() {
-      min = null;
+      empty = true;
     }
 
     @Override
     public void update(Double next) {
-      if (min == null || min > next) {
+      update(next.doubleValue());
+    }
+
+    @Override
+    public void update(double next) {
+      if (empty || min > next) {
         min = next;
+        empty = false;
       }
     }
 
+    @Override
+    public double doubleResult() {
+      return min;
+    }
+
     @Override
     public Iterable<Double> results() {
-      return ImmutableList.of(min);
+      return empty ? ImmutableList.<Double>of() : ImmutableList.of(min);
     }
   }
 
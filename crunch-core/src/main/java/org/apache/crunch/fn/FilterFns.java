@@ -153,6 +153,16 @@ public final class FilterFns {
       }
       return scaleFactor;
     }
+
+    @Override
+    public boolean isDeterministic() {
+      for (FilterFn<S> fn : fns) {
+        if (!fn.isDeterministic()) {
+          return false;
+        }
+      }
+      return true;
+    }
   }
 
   private static class OrFn<S> extends FilterFn<S> {
@@ -209,6 +219,16 @@ public final class FilterFns {
       }
       return Math.min(1.0f, scaleFactor);
     }
+
+    @Override
+    public boolean isDeterministic() {
+      for (FilterFn<S> fn : fns) {
+        if (!fn.isDeterministic()) {
+          return false;
+        }
+      }
+      return true;
+    }
   }
 
   private static class NotFn<S> extends FilterFn<S> {
@@ -248,6 +268,11 @@ public final class FilterFns {
     public float scaleFactor() {
       return 1.0f - base.scaleFactor();
     }
+
+    @Override
+    public boolean isDeterministic() {
+      return base.isDeterministic();
+    }
   }
 
   private static class AcceptAllFn<S> extends FilterFn<S> {
@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.hadoop.mapreduce.lib.jobcontrol;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+
+/**
+ * A {@link JobSchedulingPolicy} that submits the ready jobs that are at the head of the longest
+ * remaining chain of dependent jobs first, so that the critical path of the pipeline does not
+ * wait behind jobs that nothing else depends on.
+ * <p>
+ * The length of a chain is the sum of the {@link CrunchControlledJob#getEstimatedCost() estimated costs}
+ * of the incomplete jobs on it, where every job counts for at least one unit so that chains of jobs
+ * without estimates are ordered by their number of jobs. Ties are broken by job ID.
+ */
+public class CriticalPathSchedulingPolicy implements JobSchedulingPolicy {
+
+  @Override
+  public List<CrunchControlledJob> order(List<CrunchControlledJob> readyJobs, List<CrunchControlledJob> allJobs) {
+    Multimap<CrunchControlledJob, CrunchControlledJob> downstream = ArrayListMultimap.create();
+    for (CrunchControlledJob job : allJobs) {
+      if (!job.isCompleted()) {
+        for (CrunchControlledJob dependency : job.getDependingJobs()) {
+          downstream.put(dependency, job);
+        }
+      }
+    }
+
+    final Map<CrunchControlledJob, Long> pathCosts = Maps.newHashMap();
+    for (CrunchControlledJob job : readyJobs) {
+      getPathCost(job, downstream, pathCosts);
+    }
+
+    List<CrunchControlledJob> ordered = Lists.newArrayList(readyJobs);
+    Collections.sort(ordered, new Comparator<CrunchControlledJob>() {
+      @Override
+      public int compare(CrunchControlledJob left, CrunchControlledJob right) {
+        int cmp = pathCosts.get(right).compareTo(pathCosts.get(left));
+        if (cmp == 0) {
+          cmp = left.getJobID() < right.getJobID() ? -1 : (left.getJobID() == right.getJobID() ? 0 : 1);
+        }
+        return cmp;
+      }
+    });
+    return ordered;
+  }
+
+  private static long getPathCost(CrunchControlledJob job,
+      Multimap<CrunchControlledJob, CrunchControlledJob> downstream, Map<CrunchControlledJob, Long> pathCosts) {
+    Long cached = pathCosts.get(job);
+    if (cached != null) {
+      return cached;
+    }
+    long maxDownstream = 0L;
+    for (CrunchControlledJob child : downstream.get(job)) {
+      maxDownstream = Math.max(maxDownstream, getPathCost(child, downstream, pathCosts));
+    }
+    long cost = maxDownstream + Math.max(1L, job.getEstimatedCost());
+    if (cost < 0) {
+      cost = Long.MAX_VALUE;
+    }
+    pathCosts.put(job, cost);
+    return cost;
+  }
+}
@@ -66,6 +66,7 @@ public class CrunchControlledJob implements MRJob {
   private long jobStartTimeMsec;
   private long jobEndTimeMsec;
   private long postHookEndTimeMsec;
+  private long estimatedCost = -1L;
 
   /**
    * Construct a job.
@@ -142,6 +143,24 @@ public class CrunchControlledJob implements MRJob {
     return this.job.getJobID();
   }
 
+  /**
+   * @return the planner's estimate of the cost of running this job, or {@code -1} if unknown
+   */
+  public long getEstimatedCost() {
+    return estimatedCost;
+  }
+
+  /**
+   * Set the planner's estimate of the cost of running this job, which is used to decide
+   * the order in which ready jobs are submitted.
+   *
+   * @param estimatedCost
+   *          the estimated cost, e.g. the number of bytes this job will process
+   */
+  public void setEstimatedCost(long estimatedCost) {
+    this.estimatedCost = estimatedCost;
+  }
+
   public long getStartTimeMsec() {
     return preHookStartTimeMsec;
   }
@@ -177,6 +196,10 @@ public class CrunchControlledJob implements MRJob {
     });
   }
 
+  synchronized List<CrunchControlledJob> getDependingJobs() {
+    return dependingJobs;
+  }
+
   @Override
   public synchronized State getJobState() {
     return this.state;
@@ -29,6 +29,9 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.crunch.impl.mr.MRJob.State;
 import org.apache.crunch.impl.mr.run.RuntimeParameters;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.JobPriority;
+import org.apache.hadoop.util.ReflectionUtils;
 
 /**
  * This class encapsulates a set of MapReduce jobs and its dependency.
@@ -52,6 +55,8 @@ public class CrunchJobControl {
 
   private final String groupName;
   private final int maxRunningJobs;
+  private final JobSchedulingPolicy schedulingPolicy;
+  private final JobPriority jobPriority;
 
   /**
    * Construct a job control for a group of jobs.
@@ -67,6 +72,24 @@ public class CrunchJobControl {
     this.failedJobs = new Hashtable<Integer, CrunchControlledJob>();
     this.groupName = groupName;
     this.maxRunningJobs = conf.getInt(RuntimeParameters.MAX_RUNNING_JOBS, 5);
+    this.schedulingPolicy = ReflectionUtils.newInstance(
+        conf.getClass(RuntimeParameters.JOB_SCHEDULING_POLICY, CriticalPathSchedulingPolicy.class,
+            JobSchedulingPolicy.class),
+        conf);
+    this.jobPriority = getJobPriority(conf);
+  }
+
+  private static JobPriority getJobPriority(Configuration conf) {
+    String priority = conf.get(RuntimeParameters.JOB_PRIORITY);
+    if (priority == null) {
+      return null;
+    }
+    try {
+      return JobPriority.valueOf(priority.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid value for " + RuntimeParameters.JOB_PRIORITY + ": "
+          + priority, e);
+    }
   }
 
   private static List<CrunchControlledJob> toList(Map<Integer, CrunchControlledJob> jobs) {
@@ -193,10 +216,17 @@ public class CrunchJobControl {
     oldJobs = this.readyJobs;
     this.readyJobs = new Hashtable<Integer, CrunchControlledJob>();
 
-    for (CrunchControlledJob nextJob : oldJobs.values()) {
+    List<CrunchControlledJob> orderedJobs = oldJobs.size() > 1
+        ? schedulingPolicy.order(toList(oldJobs), getAllJobs())
+        : toList(oldJobs);
+    for (CrunchControlledJob nextJob : orderedJobs) {
       // Limit the number of concurrent running jobs. If we have reached such limit,
       // stop submitting new jobs and wait until some running job completes.
       if (runningJobs.size() < maxRunningJobs) {
+        if (jobPriority != null) {
+          // A Job's configuration is always a JobConf, under both Hadoop 1 and Hadoop 2
+          ((JobConf) nextJob.getJob().getConfiguration()).setJobPriority(jobPriority);
+        }
         // Submitting Job to Hadoop
         nextJob.submit();
       }
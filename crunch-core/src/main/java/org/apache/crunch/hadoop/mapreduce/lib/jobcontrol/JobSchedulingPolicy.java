@@ -0,0 +1,42 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.hadoop.mapreduce.lib.jobcontrol;
+
+import java.util.List;
+
+/**
+ * Decides the order in which the {@link CrunchJobControl} submits jobs that are ready to run
+ * when it cannot submit all of them at once because of the limit on the number of concurrently
+ * running jobs.
+ * <p>
+ * Implementations are configured via {@link org.apache.crunch.impl.mr.run.RuntimeParameters#JOB_SCHEDULING_POLICY}
+ * and must have a no-argument constructor.
+ */
+public interface JobSchedulingPolicy {
+
+  /**
+   * Returns the ready jobs in the order in which they should be submitted.
+   *
+   * @param readyJobs
+   *          the jobs whose dependencies have all completed successfully
+   * @param allJobs
+   *          all of the jobs managed by the job control, in every state
+   * @return the ready jobs, highest priority first
+   */
+  List<CrunchControlledJob> order(List<CrunchControlledJob> readyJobs, List<CrunchControlledJob> allJobs);
+}
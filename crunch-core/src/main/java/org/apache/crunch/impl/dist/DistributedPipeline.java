@@ -27,6 +27,7 @@ import org.apache.crunch.PCollection;
 import org.apache.crunch.PTable;
 import org.apache.crunch.Pipeline;
 import org.apache.crunch.PipelineResult;
+import org.apache.crunch.ReadableData;
 import org.apache.crunch.Source;
 import org.apache.crunch.SourceTarget;
 import org.apache.crunch.TableSource;
@@ -39,12 +40,16 @@ import org.apache.crunch.impl.dist.collect.BaseUnionCollection;
 import org.apache.crunch.impl.dist.collect.BaseUnionTable;
 import org.apache.crunch.impl.dist.collect.EmptyPCollection;
 import org.apache.crunch.impl.dist.collect.EmptyPTable;
+import org.apache.crunch.impl.dist.collect.Fingerprinter;
 import org.apache.crunch.impl.dist.collect.PCollectionImpl;
 import org.apache.crunch.impl.dist.collect.PCollectionFactory;
+import org.apache.crunch.impl.mr.plan.PlanningParameters;
 import org.apache.crunch.io.From;
 import org.apache.crunch.io.ReadableSource;
 import org.apache.crunch.io.ReadableSourceTarget;
 import org.apache.crunch.io.To;
+import org.apache.crunch.io.impl.FileTargetImpl;
+import org.apache.crunch.io.impl.SourcePathTargetImpl;
 import org.apache.crunch.materialize.MaterializableIterable;
 import org.apache.crunch.types.PTableType;
 import org.apache.crunch.types.PType;
@@ -140,8 +145,16 @@ public abstract class DistributedPipeline implements Pipeline {
       pcollection = pcollection.parallelDo("UnionCollectionWrapper",
           (MapFn) IdentityFn.<Object> getInstance(), pcollection.getPType());
     }
-    boolean exists = target.handleExisting(writeMode, ((PCollectionImpl) pcollection).getLastModifiedAt(),
-        getConfiguration());
+    boolean exists;
+    FileTargetImpl fileTarget = asFileTarget(target);
+    if (writeMode == Target.WriteMode.CHECKPOINT && fileTarget != null
+        && getConfiguration().getBoolean(PlanningParameters.CHECKPOINT_FINGERPRINTS, false)) {
+      String fingerprint = new Fingerprinter(getConfiguration()).fingerprint((PCollectionImpl<?>) pcollection);
+      exists = fileTarget.handleExistingCheckpoint(fingerprint, getConfiguration());
+    } else {
+      exists = target.handleExisting(writeMode, ((PCollectionImpl) pcollection).getLastModifiedAt(),
+          getConfiguration());
+    }
     if (exists && writeMode == Target.WriteMode.CHECKPOINT) {
       SourceTarget<?> st = target.asSourceTarget(pcollection.getPType());
       if (st == null) {
@@ -157,6 +170,13 @@ public abstract class DistributedPipeline implements Pipeline {
     addOutput((PCollectionImpl<?>) pcollection, target);
   }
 
+  private static FileTargetImpl asFileTarget(Target target) {
+    if (target instanceof SourcePathTargetImpl) {
+      target = ((SourcePathTargetImpl<?>) target).getPathTarget();
+    }
+    return target instanceof FileTargetImpl ? (FileTargetImpl) target : null;
+  }
+
   private boolean targetInCurrentRun(Target target) {
     for (Set<Target> targets : outputTargets.values()) {
       if (targets.contains(target)) {
@@ -183,6 +203,18 @@ public abstract class DistributedPipeline implements Pipeline {
     return new EmptyPTable<K, V>(this, ptype);
   }
 
+  /**
+   * Returns the form of the given data that the tasks of this pipeline read, for a collection of the
+   * given type. By default the data is read as it is.
+   *
+   * @param data The contents of a collection
+   * @param ptype The type of the collection
+   * @return The data that is read by the tasks
+   */
+  public <T> ReadableData<T> getReadableData(ReadableData<T> data, PType<T> ptype) {
+    return data;
+  }
+
   /**
    * Retrieve a ReadableSourceTarget that provides access to the contents of a {@link PCollection}.
    * This is primarily intended as a helper method to {@link #materialize(PCollection)}. The
@@ -268,7 +300,7 @@ public abstract class DistributedPipeline implements Pipeline {
     return ptype.getDefaultFileSource(createTempPath());
   }
 
-  public Path createTempPath() {
+  public synchronized Path createTempPath() {
     tempFileIndex++;
     return new Path(tempDirectory, "p" + tempFileIndex);
   }
@@ -49,12 +49,17 @@ public class BaseDoCollection<S> extends PCollectionImpl<S> {
     return (long) (fn.scaleFactor() * parent.getSize());
   }
 
+  @Override
+  public float getScaleFactor() {
+    return fn.scaleFactor();
+  }
+
   @Override
   protected ReadableData<S> getReadableDataInternal() {
     if (getOnlyParent() instanceof BaseGroupedTable) {
       return materializedData();
     }
-    return new DelegatingReadableData(getOnlyParent().asReadable(false), fn);
+    return new DelegatingReadableData(getOnlyParent().getReadableData(false), fn);
   }
 
   @Override
@@ -77,6 +77,11 @@ public class BaseDoTable<K, V> extends PTableBase<K, V> implements PTable<K, V>
     return (long) (fn.scaleFactor() * parent.getSize());
   }
 
+  @Override
+  public float getScaleFactor() {
+    return fn.scaleFactor();
+  }
+
   @Override
   public PTableType<K, V> getPTableType() {
     return type;
@@ -87,7 +92,7 @@ public class BaseDoTable<K, V> extends PTableBase<K, V> implements PTable<K, V>
     if (getOnlyParent() instanceof BaseGroupedTable) {
       return materializedData();
     }
-    return new DelegatingReadableData(getOnlyParent().asReadable(false), fn);
+    return new DelegatingReadableData(getOnlyParent().getReadableData(false), fn);
   }
 
   @Override
@@ -82,7 +82,7 @@ public class BaseUnionCollection<S> extends PCollectionImpl<S> {
       if (parent instanceof BaseGroupedTable) {
         return materializedData();
       } else {
-        prds.add(parent.asReadable(false));
+        prds.add(parent.getReadableData(false));
       }
     }
     return new UnionReadableData<S>(prds);
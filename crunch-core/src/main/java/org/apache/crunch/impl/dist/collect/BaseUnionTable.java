@@ -107,7 +107,7 @@ public class BaseUnionTable<K, V> extends PTableBase<K, V> {
       if (parent instanceof BaseGroupedTable) {
         return materializedData();
       } else {
-        prds.add(parent.asReadable(false));
+        prds.add(parent.getReadableData(false));
       }
     }
     return new UnionReadableData<Pair<K, V>>(prds);
@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.dist.collect;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.crunch.DoFn;
+import org.apache.crunch.types.PType;
+import org.apache.crunch.types.avro.AvroType;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Detects structurally identical {@link PCollectionImpl}s within a pipeline, i.e. collections that
+ * are computed by applying equivalent operations to equivalent inputs, so that the planner can
+ * compute each of them only once.
+ * <p>
+ * Two input collections, or two input tables, are equivalent if they read from equal {@code Source}s.
+ * Two collections created by a {@code parallelDo} are equivalent if their parents are equivalent, their
+ * {@code DoFn}s are deterministic (see {@link DoFn#isDeterministic()}), of the same class and have the
+ * same serialized state, and their {@code PType}s (including the schemas of Avro types) and
+ * {@code ParallelDoOptions} are equal. Grouped tables and
+ * unions are equivalent if their parents and options are equivalent.
+ */
+public class CommonSubexpressions {
+
+  private static final Log LOG = LogFactory.getLog(CommonSubexpressions.class);
+
+  private final Map<PCollectionImpl<?>, Object> keys = new IdentityHashMap<PCollectionImpl<?>, Object>();
+  private final Map<Object, PCollectionImpl<?>> canonical = Maps.newHashMap();
+
+  /**
+   * Returns the first collection seen by this instance that is equivalent to the given collection,
+   * which may be the given collection itself.
+   */
+  public PCollectionImpl<?> getCanonical(PCollectionImpl<?> pcollect) {
+    Object key = getKey(pcollect);
+    PCollectionImpl<?> existing = canonical.get(key);
+    if (existing == null) {
+      canonical.put(key, pcollect);
+      return pcollect;
+    } else if (existing != pcollect && LOG.isDebugEnabled()) {
+      LOG.debug("Merging " + pcollect.getName() + " into equivalent collection " + existing.getName());
+    }
+    return existing;
+  }
+
+  private Object getKey(PCollectionImpl<?> pcollect) {
+    Object key = keys.get(pcollect);
+    if (key == null) {
+      key = computeKey(pcollect);
+      keys.put(pcollect, key);
+    }
+    return key;
+  }
+
+  private Object computeKey(PCollectionImpl<?> pcollect) {
+    if (pcollect.getMaterializedAt() != null) {
+      return ImmutableList.of("materialized", pcollect.getMaterializedAt());
+    } else if (pcollect instanceof BaseInputCollection) {
+      return ImmutableList.of("input", ((BaseInputCollection<?>) pcollect).source);
+    } else if (pcollect instanceof BaseInputTable) {
+      // Tables are kept apart from their input collections, which are the vertices that the planner reads.
+      return ImmutableList.of("inputTable", ((BaseInputTable<?, ?>) pcollect).source);
+    } else if (pcollect instanceof BaseDoCollection) {
+      BaseDoCollection<?> doCollect = (BaseDoCollection<?>) pcollect;
+      return fnKey(pcollect, doCollect.fn, doCollect.ptype);
+    } else if (pcollect instanceof BaseDoTable) {
+      BaseDoTable<?, ?> doTable = (BaseDoTable<?, ?>) pcollect;
+      return fnKey(pcollect, doTable.fn, doTable.type);
+    } else if (pcollect instanceof BaseGroupedTable) {
+      BaseGroupedTable<?, ?> grouped = (BaseGroupedTable<?, ?>) pcollect;
+      ByteBuffer options = serialize(grouped.groupingOptions);
+      if (options == null) {
+        return pcollect;
+      }
+      return ImmutableList.of(pcollect.getClass(), options, typeKey(grouped.ptype.getTableType()),
+          getKey(grouped.parent));
+    } else if (pcollect instanceof BaseUnionCollection || pcollect instanceof BaseUnionTable) {
+      List<Object> key = Lists.newArrayList();
+      key.add(pcollect.getClass());
+      key.add(typeKey(pcollect.getPType()));
+      for (PCollectionImpl<?> parent : pcollect.getParents()) {
+        key.add(getKey(parent));
+      }
+      return key;
+    }
+    // Unknown kinds of collections are only equivalent to themselves.
+    return pcollect;
+  }
+
+  private Object fnKey(PCollectionImpl<?> pcollect, DoFn<?, ?> fn, PType<?> ptype) {
+    if (!fn.isDeterministic()) {
+      // Each application of a non-deterministic function is unique, even if its state is the same.
+      return pcollect;
+    }
+    ByteBuffer state = serialize(fn);
+    if (state == null) {
+      return pcollect;
+    }
+    return ImmutableList.of(pcollect.getClass(), fn.getClass(), state, typeKey(ptype),
+        pcollect.getParallelDoOptions(), getKey(pcollect.getOnlyParent()));
+  }
+
+  /**
+   * Returns the key of the given type. {@code AvroType}s are equal regardless of their schemas, so the
+   * schema is part of their key.
+   */
+  private static Object typeKey(PType<?> ptype) {
+    if (ptype instanceof AvroType) {
+      return ImmutableList.of(ptype, ((AvroType<?>) ptype).getSchema());
+    }
+    return ptype;
+  }
+
+  private static ByteBuffer serialize(Serializable value) {
+    if (value == null) {
+      return ByteBuffer.allocate(0);
+    }
+    try {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      ObjectOutputStream oos = new ObjectOutputStream(baos);
+      oos.writeObject(value);
+      oos.close();
+      return ByteBuffer.wrap(baos.toByteArray());
+    } catch (IOException e) {
+      // Fall back to treating the collection as unique.
+      return null;
+    }
+  }
+}
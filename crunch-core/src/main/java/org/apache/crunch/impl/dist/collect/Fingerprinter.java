@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.dist.collect;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.crunch.CrunchRuntimeException;
+import org.apache.crunch.Source;
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * Computes a fingerprint of everything that determines the contents of a {@link PCollectionImpl}: the
+ * locations, sizes, and modification times of its input {@code Source}s, and the classes and serialized state
+ * of the {@code DoFn}s, {@code PType}s, and {@code GroupingOptions} used to compute it from those inputs.
+ * <p>
+ * The fingerprint is computed from the logical plan, ignoring any locations that a collection has been
+ * materialized to, so that a collection has the same fingerprint whether or not its parents are read
+ * from a checkpoint.
+ */
+public class Fingerprinter {
+
+  private final Configuration conf;
+  private final Map<PCollectionImpl<?>, byte[]> digests = new IdentityHashMap<PCollectionImpl<?>, byte[]>();
+
+  public Fingerprinter(Configuration conf) {
+    this.conf = conf;
+  }
+
+  /**
+   * Returns the fingerprint of the given collection as a hex-encoded string.
+   */
+  public String fingerprint(PCollectionImpl<?> pcollect) {
+    return new String(Hex.encodeHex(digest(pcollect)));
+  }
+
+  private byte[] digest(PCollectionImpl<?> pcollect) {
+    byte[] digest = digests.get(pcollect);
+    if (digest == null) {
+      MessageDigest md = newDigest();
+      update(md, pcollect.getClass().getName());
+      if (pcollect instanceof BaseInputCollection) {
+        Source<?> source = ((BaseInputCollection<?>) pcollect).source;
+        update(md, source.toString());
+        update(md, String.valueOf(source.getSize(conf)));
+        update(md, String.valueOf(source.getLastModifiedAt(conf)));
+      } else if (pcollect instanceof BaseInputTable) {
+        md.update(digest(((BaseInputTable<?, ?>) pcollect).asCollection));
+      } else if (pcollect instanceof BaseDoCollection) {
+        update(md, ((BaseDoCollection<?>) pcollect).fn);
+      } else if (pcollect instanceof BaseDoTable) {
+        update(md, ((BaseDoTable<?, ?>) pcollect).fn);
+      } else if (pcollect instanceof BaseGroupedTable) {
+        update(md, ((BaseGroupedTable<?, ?>) pcollect).groupingOptions);
+      }
+      update(md, pcollect.getPType());
+      for (PCollectionImpl<?> parent : pcollect.getParents()) {
+        md.update(digest(parent));
+      }
+      digest = md.digest();
+      digests.put(pcollect, digest);
+    }
+    return digest;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new CrunchRuntimeException(e);
+    }
+  }
+
+  private static void update(MessageDigest md, String value) {
+    try {
+      md.update(value.getBytes("UTF-8"));
+    } catch (IOException e) {
+      throw new CrunchRuntimeException(e);
+    }
+  }
+
+  private static void update(MessageDigest md, Serializable value) {
+    if (value == null) {
+      update(md, "null");
+      return;
+    }
+    update(md, value.getClass().getName());
+    try {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      ObjectOutputStream oos = new ObjectOutputStream(baos);
+      oos.writeObject(value);
+      oos.close();
+      md.update(baos.toByteArray());
+    } catch (IOException e) {
+      // Values that cannot be serialized are only equal to themselves, so that
+      // anything that depends on them is always recomputed.
+      update(md, value.toString());
+    }
+  }
+}
@@ -304,6 +304,14 @@ public abstract class PCollectionImpl<S> implements PCollection<S> {
 
   @Override
   public ReadableData<S> asReadable(boolean materialize) {
+    return pipeline.getReadableData(getReadableData(materialize), getPType());
+  }
+
+  /**
+   * Returns the contents of this collection as they are combined with the contents of its children,
+   * before the pipeline prepares them to be read by its tasks.
+   */
+  protected ReadableData<S> getReadableData(boolean materialize) {
     if (materializedAt != null && (materializedAt instanceof ReadableSource)) {
       return ((ReadableSource) materializedAt).asReadable();
     } else if (materialized || materialize) {
@@ -330,6 +338,14 @@ public abstract class PCollectionImpl<S> implements PCollection<S> {
 
   protected abstract long getSizeInternal();
 
+  /**
+   * Returns the estimated ratio between the size of this collection and the size of its parent,
+   * as given by the {@code DoFn} that created it.
+   */
+  public float getScaleFactor() {
+    return 1.0f;
+  }
+
   /**
   * The time of the most recent modification to one of the input sources to the collection.  If the time can
   * not be determined then {@code -1} should be returned.
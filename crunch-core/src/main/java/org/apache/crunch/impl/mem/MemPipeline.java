@@ -31,6 +31,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.crunch.CachingOptions;
 import org.apache.crunch.CrunchRuntimeException;
+import org.apache.crunch.MapFn;
 import org.apache.crunch.PCollection;
 import org.apache.crunch.PTable;
 import org.apache.crunch.Pair;
@@ -68,6 +69,39 @@ import com.google.common.util.concurrent.AbstractFuture;
 public class MemPipeline implements Pipeline {
 
   private static final Log LOG = LogFactory.getLog(MemPipeline.class);
+
+  /**
+   * Configuration key for the number of threads that the in-memory collections use to run {@code DoFn}s
+   * and to group tables. Large inputs are split into contiguous chunks that are each processed by a copy
+   * of the {@code DoFn}, which is made via Java serialization; {@code DoFn}s that cannot be serialized
+   * run on the calling thread. The order of the outputs is preserved. Defaults to 1.
+   */
+  public static final String PARALLELISM = "crunch.mem.parallelism";
+
+  /**
+   * Configuration key for evaluating the in-memory collections lazily. When enabled, {@code parallelDo}
+   * only records the {@code DoFn}, and consecutive calls are fused together so that a chain of them runs
+   * in a single pass over its input. The contents of a collection are computed once, when they are first
+   * needed (e.g., by {@code materialize()}, a grouping, or a write). The contents of the intermediate
+   * collections of a chain are stored as the chain is evaluated, and a collection with several consumers
+   * is computed once and shared by all of them, so each {@code DoFn} only runs once. Defaults to false.
+   */
+  public static final String LAZY = "crunch.mem.lazy";
+
+  /**
+   * Configuration key for the approximate number of bytes of serialized records that a grouping keeps in
+   * memory before it writes them out to a sorted run on local disk. The groups are then read back via a
+   * merge of the runs, so that tables larger than the heap can be grouped. Spilling only applies to
+   * Writable and Avro types whose keys are sorted, and the budget applies to each grouping thread when
+   * {@link #PARALLELISM} is set. Defaults to 0, which keeps every grouping in memory.
+   */
+  public static final String SHUFFLE_SPILL_BYTES = "crunch.mem.shuffle.spill.bytes";
+
+  /**
+   * Configuration key for the local directory that the runs of {@link #SHUFFLE_SPILL_BYTES} are
+   * written to. Defaults to the {@code java.io.tmpdir} system property.
+   */
+  public static final String SHUFFLE_SPILL_DIR = "crunch.mem.shuffle.spill.dir";
   private static Counters COUNTERS = new CountersWrapper();
   private static final MemPipeline INSTANCE = new MemPipeline();
 
@@ -268,10 +302,12 @@ public class MemPipeline implements Pipeline {
     final SequenceFile.Writer writer = new SequenceFile.Writer(fs, fs.getConf(), path, keyClass,
         valueClass);
 
+    final MapFn keyFn = pType.getKeyType().getOutputMapFn();
+    final MapFn valueFn = pType.getValueType().getOutputMapFn();
     for (final Object o : table.materialize()) {
       final Pair<?,?> p = (Pair) o;
-      final Object key = pType.getKeyType().getOutputMapFn().map(p.first());
-      final Object value = pType.getValueType().getOutputMapFn().map(p.second());
+      final Object key = keyFn.map(p.first());
+      final Object value = valueFn.map(p.second());
       writer.append(key, value);
     }
 
@@ -287,8 +323,9 @@ public class MemPipeline implements Pipeline {
     final SequenceFile.Writer writer = new SequenceFile.Writer(fs, fs.getConf(), path,
         NullWritable.class, valueClass);
 
+    final MapFn outputFn = pType.getOutputMapFn();
     for (final Object o : collection.materialize()) {
-      final Object value = pType.getOutputMapFn().map(o);
+      final Object value = outputFn.map(o);
       writer.append(NullWritable.get(), value);
     }
 
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mem.collect;
+
+import java.util.List;
+
+import org.apache.crunch.DoFn;
+import org.apache.crunch.Emitter;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+
+import com.google.common.collect.Lists;
+
+/**
+ * A {@code DoFn} that passes each output of one {@code DoFn} directly to another, so that a chain of
+ * {@code parallelDo} calls is evaluated in a single pass. The outputs of the first {@code DoFn} are
+ * also kept, so that the contents of the intermediate collection can be stored without running its
+ * {@code DoFn} again.
+ */
+class FusedDoFn<R, S, T> extends DoFn<R, T> {
+
+  private final DoFn<R, S> first;
+  private final DoFn<S, T> second;
+
+  private transient Emitter<T> output;
+  private transient Emitter<S> intermediate;
+  private transient List<S> intermediates;
+
+  FusedDoFn(DoFn<R, S> first, DoFn<S, T> second) {
+    this.first = first;
+    this.second = second;
+  }
+
+  @Override
+  public void configure(Configuration conf) {
+    first.configure(conf);
+    second.configure(conf);
+  }
+
+  @Override
+  public void setContext(TaskInputOutputContext<?, ?, ?, ?> context) {
+    super.setContext(context);
+    first.setContext(context);
+    second.setContext(context);
+  }
+
+  @Override
+  public void initialize() {
+    first.initialize();
+    second.initialize();
+    intermediates = Lists.newArrayList();
+  }
+
+  DoFn<S, T> getSecond() {
+    return second;
+  }
+
+  /**
+   * Returns the outputs of the first {@code DoFn} that were passed on to the second one.
+   */
+  List<S> getIntermediates() {
+    return intermediates;
+  }
+
+  private Emitter<S> intermediate(final Emitter<T> emitter) {
+    if (output != emitter) {
+      this.output = emitter;
+      this.intermediate = new Emitter<S>() {
+        @Override
+        public void emit(S emitted) {
+          intermediates.add(emitted);
+          second.process(emitted, emitter);
+        }
+
+        @Override
+        public void flush() {
+          // No-op
+        }
+      };
+    }
+    return intermediate;
+  }
+
+  @Override
+  public void process(R input, Emitter<T> emitter) {
+    first.process(input, intermediate(emitter));
+  }
+
+  @Override
+  public void cleanup(Emitter<T> emitter) {
+    first.cleanup(intermediate(emitter));
+    second.cleanup(emitter);
+  }
+}
@@ -19,15 +19,19 @@ package org.apache.crunch.impl.mem.collect;
 
 import java.lang.reflect.Method;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javassist.util.proxy.MethodFilter;
 import javassist.util.proxy.MethodHandler;
 import javassist.util.proxy.ProxyFactory;
 
 import org.apache.crunch.Aggregator;
+import org.apache.crunch.BatchDoFn;
 import org.apache.crunch.CachingOptions;
 import org.apache.crunch.DoFn;
+import org.apache.crunch.Emitter;
 import org.apache.crunch.FilterFn;
 import org.apache.crunch.MapFn;
 import org.apache.crunch.PCollection;
@@ -48,6 +52,7 @@ import org.apache.crunch.types.PTableType;
 import org.apache.crunch.types.PType;
 import org.apache.crunch.types.PTypeFamily;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Counters;
 import org.apache.hadoop.mapreduce.OutputCommitter;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.StatusReporter;
@@ -56,11 +61,14 @@ import org.apache.hadoop.mapreduce.TaskInputOutputContext;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
 public class MemCollection<S> implements PCollection<S> {
 
-  private final Collection<S> collect;
+  private Collection<S> collect;
+  private Deferred<S> deferred;
+  private int deferredConsumers;
   private final PType<S> ptype;
   private String name;
 
@@ -78,6 +86,12 @@ public class MemCollection<S> implements PCollection<S> {
     this.name = name;
   }
 
+  MemCollection(Deferred<S> deferred, PType<S> ptype, String name) {
+    this.deferred = deferred;
+    this.ptype = ptype;
+    this.name = name;
+  }
+
   @Override
   public Pipeline getPipeline() {
     return MemPipeline.getInstance();
@@ -96,7 +110,7 @@ public class MemCollection<S> implements PCollection<S> {
         output.add(s);
       }
     }
-    output.addAll(collect);
+    output.addAll(getCollection());
     return new MemCollection<S>(output, collections[0].getPType());
   }
 
@@ -113,16 +127,10 @@ public class MemCollection<S> implements PCollection<S> {
   @Override
   public <T> PCollection<T> parallelDo(String name, DoFn<S, T> doFn, PType<T> type,
       ParallelDoOptions options) {
-    InMemoryEmitter<T> emitter = new InMemoryEmitter<T>();
-    Configuration conf = getPipeline().getConfiguration();
-    doFn.configure(conf);
-    doFn.setContext(getInMemoryContext(conf));
-    doFn.initialize();
-    for (S s : collect) {
-      doFn.process(s, emitter);
+    if (isDeferred(doFn)) {
+      return new MemCollection<T>(defer(doFn), type, name);
     }
-    doFn.cleanup(emitter);
-    return new MemCollection<T>(emitter.getOutput(), type, name);
+    return new MemCollection<T>(run(doFn), type, name);
   }
 
   @Override
@@ -138,16 +146,175 @@ public class MemCollection<S> implements PCollection<S> {
   @Override
   public <K, V> PTable<K, V> parallelDo(String name, DoFn<S, Pair<K, V>> doFn, PTableType<K, V> type,
       ParallelDoOptions options) {
-    InMemoryEmitter<Pair<K, V>> emitter = new InMemoryEmitter<Pair<K, V>>();
+    if (isDeferred(doFn)) {
+      return new MemTable<K, V>(defer(doFn), type, name);
+    }
+    return new MemTable<K, V>(run(doFn), type, name);
+  }
+
+  private boolean isDeferred(DoFn<S, ?> doFn) {
+    return getPipeline().getConfiguration().getBoolean(MemPipeline.LAZY, false) && !(doFn instanceof BatchDoFn);
+  }
+
+  private synchronized <T> Deferred<T> defer(DoFn<S, T> doFn) {
+    deferredConsumers++;
+    return new Deferred<T>(this, doFn);
+  }
+
+  /**
+   * Returns the {@code Deferred} that this collection's DoFn can be fused into, which is only the case
+   * when its contents have not been computed and it has no other deferred consumers. A collection with
+   * several consumers is computed once and shared, so that its DoFns are not run once per consumer.
+   */
+  private synchronized Deferred<S> getFusableDeferred() {
+    return collect == null && deferredConsumers <= 1 ? deferred : null;
+  }
+
+  /**
+   * Stores the contents of this collection that were computed as part of a fused chain.
+   */
+  private synchronized void setCollection(List<S> contents) {
+    if (collect == null) {
+      collect = ImmutableList.copyOf(contents);
+      deferred = null;
+    }
+  }
+
+  /**
+   * The contents of a collection that have not been computed yet, which are defined by a {@code DoFn}
+   * that is applied to a parent collection.
+   * <p>
+   * When the contents are computed, the {@code DoFn} is fused with those of the ancestors that have not
+   * been computed and that have no other consumers, so that the chain is evaluated in a single pass
+   * from the nearest ancestor whose contents are (or are then) stored. The contents of the fused
+   * ancestors are stored as they are computed, so that their {@code DoFn}s are not run again if their
+   * contents are requested later on.
+   */
+  static class Deferred<T> {
+    private final MemCollection<Object> parent;
+    private final DoFn<Object, T> fn;
+
+    Deferred(MemCollection<?> parent, DoFn<?, T> fn) {
+      this.parent = (MemCollection<Object>) parent;
+      this.fn = (DoFn<Object, T>) fn;
+    }
+
+    List<T> evaluate() {
+      // The fused ancestors, starting with the parent
+      List<MemCollection<Object>> fused = Lists.newArrayList();
+      MemCollection<Object> source = parent;
+      DoFn<Object, T> chain = fn;
+      Deferred<Object> upstream = source.getFusableDeferred();
+      while (upstream != null) {
+        chain = new FusedDoFn<Object, Object, T>(upstream.fn, chain);
+        fused.add(source);
+        source = upstream.parent;
+        upstream = source.getFusableDeferred();
+      }
+      List<DoFn<Object, T>> instances = Lists.newArrayList();
+      List<T> output = source.run(chain, instances);
+      if (!fused.isEmpty()) {
+        List<List<Object>> contents = Lists.newArrayList();
+        for (int i = 0; i < fused.size(); i++) {
+          contents.add(Lists.newArrayList());
+        }
+        // The outermost FusedDoFn of each instance holds the outputs of the most distant ancestor
+        for (DoFn<Object, T> instance : instances) {
+          DoFn<Object, ?> stage = instance;
+          for (int i = fused.size() - 1; i >= 0; i--) {
+            FusedDoFn<Object, Object, ?> fusedFn = (FusedDoFn<Object, Object, ?>) stage;
+            contents.get(i).addAll(fusedFn.getIntermediates());
+            stage = fusedFn.getSecond();
+          }
+        }
+        for (int i = 0; i < fused.size(); i++) {
+          fused.get(i).setCollection(contents.get(i));
+        }
+      }
+      return output;
+    }
+  }
+
+  private <T> List<T> run(DoFn<S, T> doFn) {
+    return run(doFn, Lists.<DoFn<S, T>>newArrayList());
+  }
+
+  /**
+   * Runs the given {@code DoFn} over the contents of this collection, splitting them up between copies
+   * of the {@code DoFn} that run in parallel when {@link MemPipeline#PARALLELISM} allows it. The
+   * order of the outputs is the same either way. The instances of the {@code DoFn} that were run are
+   * added to the given list, in the order of the inputs that they processed.
+   */
+  private <T> List<T> run(DoFn<S, T> doFn, List<DoFn<S, T>> instances) {
     Configuration conf = getPipeline().getConfiguration();
+    List<S> input = (List<S>) getCollection();
+    int numTasks = MemParallelism.getNumTasks(conf, input.size());
+    if (numTasks > 1) {
+      List<DoFn<S, T>> copies = MemParallelism.copies(doFn, numTasks);
+      if (copies != null) {
+        List<DoFnTask<S, T>> tasks = Lists.newArrayList();
+        List<List<S>> chunks = MemParallelism.split(input, numTasks);
+        for (int i = 0; i < chunks.size(); i++) {
+          tasks.add(new DoFnTask<S, T>(copies.get(i), chunks.get(i), conf));
+          instances.add(copies.get(i));
+        }
+        List<T> output = Lists.newArrayListWithCapacity(input.size());
+        for (List<T> taskOutput : MemParallelism.invokeAll(conf, tasks)) {
+          output.addAll(taskOutput);
+        }
+        return output;
+      }
+    }
+    instances.add(doFn);
+    return runDoFn(doFn, input, conf, MemPipeline.getCounters());
+  }
+
+  private static <S, T> List<T> runDoFn(DoFn<S, T> doFn, Iterable<S> input, Configuration conf,
+      Counters counters) {
+    InMemoryEmitter<T> emitter = new InMemoryEmitter<T>();
     doFn.configure(conf);
-    doFn.setContext(getInMemoryContext(conf));
+    doFn.setContext(getInMemoryContext(conf, counters));
     doFn.initialize();
-    for (S s : collect) {
-      doFn.process(s, emitter);
-    }
+    process(doFn, input, emitter);
     doFn.cleanup(emitter);
-    return new MemTable<K, V>(emitter.getOutput(), type, name);
+    return emitter.getOutput();
+  }
+
+  private static <S, T> void process(DoFn<S, T> doFn, Iterable<S> input, Emitter<T> emitter) {
+    if (doFn instanceof BatchDoFn) {
+      BatchDoFn<S, T> batchDoFn = (BatchDoFn<S, T>) doFn;
+      for (List<S> batch : Iterables.partition(input, batchDoFn.batchSize())) {
+        batchDoFn.processBatch(batch, emitter);
+      }
+    } else {
+      for (S s : input) {
+        doFn.process(s, emitter);
+      }
+    }
+  }
+
+  /**
+   * Runs a copy of a {@code DoFn} over one chunk of a collection, with its own counters that are
+   * added to the counters of the pipeline when it is done.
+   */
+  private static class DoFnTask<S, T> implements Callable<List<T>> {
+    private final DoFn<S, T> doFn;
+    private final List<S> input;
+    private final Configuration conf;
+
+    DoFnTask(DoFn<S, T> doFn, List<S> input, Configuration conf) {
+      this.doFn = doFn;
+      this.input = input;
+      this.conf = conf;
+    }
+
+    @Override
+    public List<T> call() {
+      Counters counters = new Counters();
+      List<T> output = runDoFn(doFn, input, conf, counters);
+      MemParallelism.mergeCounters(counters);
+      return output;
+    }
   }
 
   @Override
@@ -164,7 +331,7 @@ public class MemCollection<S> implements PCollection<S> {
 
   @Override
   public Iterable<S> materialize() {
-    return collect;
+    return getCollection();
   }
 
   @Override
@@ -190,10 +357,14 @@ public class MemCollection<S> implements PCollection<S> {
 
   @Override
   public ReadableData<S> asReadable(boolean materialize) {
-    return new MemReadableData<S>(collect);
+    return new MemReadableData<S>(getCollection());
   }
 
-  public Collection<S> getCollection() {
+  public synchronized Collection<S> getCollection() {
+    if (collect == null) {
+      collect = ImmutableList.copyOf(deferred.evaluate());
+      deferred = null;
+    }
     return collect;
   }
 
@@ -211,7 +382,10 @@ public class MemCollection<S> implements PCollection<S> {
   }
 
   @Override
-  public long getSize() {
+  public synchronized long getSize() {
+    if (collect == null) {
+      return 1; // Not computed yet
+    }
     return collect.isEmpty() ? 0 : 1; // getSize is only used for pipeline optimization in MR
   }
 
@@ -222,7 +396,7 @@ public class MemCollection<S> implements PCollection<S> {
 
   @Override
   public String toString() {
-    return collect.toString();
+    return getCollection().toString();
   }
 
   @Override
@@ -281,7 +455,8 @@ public class MemCollection<S> implements PCollection<S> {
    * required to make the {@linkplain MemPipeline} work. It lacks even the basic
    * things that can proved some support for unit testing pipeline.
    */
-  private static TaskInputOutputContext<?, ?, ?, ?> getInMemoryContext(final Configuration conf) {
+  private static TaskInputOutputContext<?, ?, ?, ?> getInMemoryContext(final Configuration conf,
+      final Counters counters) {
     ProxyFactory factory = new ProxyFactory();
     Class<TaskInputOutputContext> superType = TaskInputOutputContext.class;
     Class[] types = new Class[0];
@@ -319,9 +494,9 @@ public class MemCollection<S> implements PCollection<S> {
           return 1;
         } else if ("getCounter".equals(name)){ // getCounter
           if (args.length == 1) {
-            return MemPipeline.getCounters().findCounter((Enum<?>) args[0]);
+            return counters.findCounter((Enum<?>) args[0]);
           } else {
-            return MemPipeline.getCounters().findCounter((String) args[0], (String) args[1]);
+            return counters.findCounter((String) args[0], (String) args[1]);
           }
         } else {
           throw new IllegalStateException("Unhandled method " + name);
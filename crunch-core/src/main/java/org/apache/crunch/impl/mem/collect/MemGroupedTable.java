@@ -21,6 +21,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
 
 import org.apache.crunch.Aggregator;
 import org.apache.crunch.CombineFn;
@@ -50,15 +51,51 @@ class MemGroupedTable<K, V> extends MemCollection<Pair<K, Iterable<V>>> implemen
 
   private static <S, T> Iterable<Pair<S, Iterable<T>>> buildMap(MemTable<S, T> parent, GroupingOptions options) {
     PType<S> keyType = parent.getKeyType();
-    Shuffler<S, T> shuffler = Shuffler.create(keyType, options, parent.getPipeline());
+    PType<T> valueType = parent.getValueType();
+    Pipeline pipeline = parent.getPipeline();
+    List<Pair<S, T>> input = (List<Pair<S, T>>) parent.getCollection();
+    int numTasks = MemParallelism.getNumTasks(pipeline.getConfiguration(), input.size());
+    if (numTasks > 1) {
+      // Each task groups a contiguous chunk of the input, and the groups are merged in order so that
+      // the values of each key are in the same order as they are when grouped on a single thread.
+      List<ShuffleTask<S, T>> tasks = Lists.newArrayList();
+      for (List<Pair<S, T>> chunk : MemParallelism.split(input, numTasks)) {
+        tasks.add(new ShuffleTask<S, T>(Shuffler.<S, T>create(keyType, valueType, options, pipeline), chunk));
+      }
+      List<Shuffler<S, T>> shufflers = MemParallelism.invokeAll(pipeline.getConfiguration(), tasks);
+      Shuffler<S, T> shuffler = shufflers.get(0);
+      for (int i = 1; i < shufflers.size(); i++) {
+        shuffler.merge(shufflers.get(i));
+      }
+      return shuffler;
+    }
 
-    for (Pair<S, T> pair : parent.materialize()) {
+    Shuffler<S, T> shuffler = Shuffler.create(keyType, valueType, options, pipeline);
+    for (Pair<S, T> pair : input) {
       shuffler.add(pair);
     }
 
     return shuffler;
   }
 
+  private static class ShuffleTask<S, T> implements Callable<Shuffler<S, T>> {
+    private final Shuffler<S, T> shuffler;
+    private final List<Pair<S, T>> input;
+
+    ShuffleTask(Shuffler<S, T> shuffler, List<Pair<S, T>> input) {
+      this.shuffler = shuffler;
+      this.input = input;
+    }
+
+    @Override
+    public Shuffler<S, T> call() {
+      for (Pair<S, T> pair : input) {
+        shuffler.add(pair);
+      }
+      return shuffler;
+    }
+  }
+
   public MemGroupedTable(MemTable<K, V> parent, GroupingOptions options) {
     super(buildMap(parent, options));
     this.parent = parent;
@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mem.collect;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.crunch.CrunchRuntimeException;
+import org.apache.crunch.impl.mem.MemPipeline;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.CounterGroup;
+import org.apache.hadoop.mapreduce.Counters;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Runs the work of the in-memory collections on a shared pool of threads when
+ * {@link MemPipeline#PARALLELISM} is greater than 1. There is one pool for each value of
+ * {@code PARALLELISM} that has been used.
+ */
+final class MemParallelism {
+
+  private static final Log LOG = LogFactory.getLog(MemParallelism.class);
+
+  /**
+   * The minimum number of inputs that each task processes, below which the input is not split up.
+   */
+  static final int MIN_TASK_SIZE = 1000;
+
+  private static final long IDLE_THREAD_TIMEOUT_SECS = 60L;
+
+  private static final Map<Integer, ThreadPoolExecutor> EXECUTORS = Maps.newHashMap();
+
+  private MemParallelism() {
+  }
+
+  /**
+   * Returns the number of tasks to split an input of the given size into, which is 1 when the
+   * input should be processed on the calling thread.
+   */
+  static int getNumTasks(Configuration conf, int size) {
+    int parallelism = conf.getInt(MemPipeline.PARALLELISM, 1);
+    if (parallelism <= 1) {
+      return 1;
+    }
+    return Math.max(1, Math.min(parallelism, size / MIN_TASK_SIZE));
+  }
+
+  /**
+   * Splits the given list into the given number of contiguous chunks.
+   */
+  static <T> List<List<T>> split(List<T> input, int numTasks) {
+    int chunkSize = (input.size() + numTasks - 1) / numTasks;
+    return Lists.partition(input, Math.max(1, chunkSize));
+  }
+
+  private static synchronized ExecutorService getExecutor(final int threads) {
+    // Pools are never shut down, since other pipelines may still be submitting to them, but the
+    // threads of pools that are no longer used time out
+    ThreadPoolExecutor executor = EXECUTORS.get(threads);
+    if (executor == null) {
+      final AtomicInteger count = new AtomicInteger();
+      executor = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_TIMEOUT_SECS, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "crunch-mem-" + threads + "-" + count.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        }
+      });
+      executor.allowCoreThreadTimeOut(true);
+      EXECUTORS.put(threads, executor);
+    }
+    return executor;
+  }
+
+  /**
+   * Runs the given tasks on the shared pool for the configured parallelism and returns their results in the order of the tasks.
+   */
+  static <T> List<T> invokeAll(Configuration conf, List<? extends Callable<T>> tasks) {
+    ExecutorService service = getExecutor(conf.getInt(MemPipeline.PARALLELISM, 1));
+    List<Future<T>> futures = Lists.newArrayListWithCapacity(tasks.size());
+    for (Callable<T> task : tasks) {
+      futures.add(service.submit(task));
+    }
+    List<T> results = Lists.newArrayListWithCapacity(tasks.size());
+    try {
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CrunchRuntimeException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new CrunchRuntimeException(cause);
+    } finally {
+      for (Future<T> future : futures) {
+        future.cancel(true);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Returns the given number of copies of the given object, or null if it cannot be copied
+   * via Java serialization.
+   */
+  static <T extends Serializable> List<T> copies(T obj, int numCopies) {
+    byte[] bytes;
+    try {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      ObjectOutputStream oos = new ObjectOutputStream(baos);
+      oos.writeObject(obj);
+      oos.close();
+      bytes = baos.toByteArray();
+    } catch (IOException e) {
+      LOG.info("Could not serialize " + obj + ", processing it on a single thread: " + e.getMessage());
+      return null;
+    }
+    List<T> copies = Lists.newArrayListWithCapacity(numCopies);
+    try {
+      for (int i = 0; i < numCopies; i++) {
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        copies.add((T) ois.readObject());
+        ois.close();
+      }
+    } catch (Exception e) {
+      LOG.info("Could not deserialize " + obj + ", processing it on a single thread: " + e.getMessage());
+      return null;
+    }
+    return copies;
+  }
+
+  /**
+   * Adds the values of the counters that were updated by a single task to the counters of the pipeline.
+   */
+  static void mergeCounters(Counters taskCounters) {
+    Counters counters = MemPipeline.getCounters();
+    synchronized (counters) {
+      for (CounterGroup group : taskCounters) {
+        for (Counter counter : group) {
+          counters.findCounter(group.getName(), counter.getName()).increment(counter.getValue());
+        }
+      }
+    }
+  }
+}
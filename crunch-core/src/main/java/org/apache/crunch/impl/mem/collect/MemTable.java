@@ -55,6 +55,11 @@ public class MemTable<K, V> extends MemCollection<Pair<K, V>> implements PTable<
     this.ptype = ptype;
   }
 
+  MemTable(Deferred<Pair<K, V>> deferred, PTableType<K, V> ptype, String name) {
+    super(deferred, ptype, name);
+    this.ptype = ptype;
+  }
+
   @Override
   public PTable<K, V> union(PTable<K, V> other) {
     return union(new PTable[] { other });
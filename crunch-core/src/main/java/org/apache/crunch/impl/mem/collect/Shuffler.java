@@ -24,28 +24,51 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TreeMap;
 
 import org.apache.crunch.GroupingOptions;
+import org.apache.crunch.MapFn;
 import org.apache.crunch.Pair;
 import org.apache.crunch.Pipeline;
 import org.apache.crunch.impl.SingleUseIterable;
+import org.apache.crunch.lib.sort.AvroRawComparator;
 import org.apache.crunch.types.PType;
+import org.apache.crunch.types.avro.AvroType;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.RawComparator;
 import org.apache.hadoop.util.ReflectionUtils;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
 
 /**
  * In-memory versions of common MapReduce patterns for aggregating key-value data.
  */
 abstract class Shuffler<K, V> implements Iterable<Pair<K, Iterable<V>>> {
 
+  /**
+   * The {@code Comparable} key classes whose {@code equals} and {@code hashCode} are consistent with their
+   * natural order, so that grouping their records by hash finds the same groups as grouping them by
+   * {@code compareTo}. That is not the case for classes like {@code BigDecimal}, and it is not known for
+   * other classes.
+   */
+  private static final Set<Class<?>> HASHABLE_KEY_CLASSES = ImmutableSet.<Class<?>>of(String.class,
+      Boolean.class, Byte.class, Character.class, Short.class, Integer.class, Long.class, Float.class,
+      Double.class);
+
   public abstract void add(Pair<K, V> record);
+
+  /**
+   * Adds all of the records of another {@code Shuffler} of the same kind, which were added to it after
+   * the records of this instance, to this instance.
+   */
+  abstract void merge(Shuffler<K, V> other);
   
   private static <K, V> Map<K, V> getMapForKeyType(PType<?> ptype) {
     if (ptype != null && Comparable.class.isAssignableFrom(ptype.getTypeClass())) {
@@ -57,22 +80,79 @@ abstract class Shuffler<K, V> implements Iterable<Pair<K, Iterable<V>>> {
   
   public static <S, T> Shuffler<S, T> create(PType<S> keyType, GroupingOptions options,
       Pipeline pipeline) {
-    Map<S, Collection<T>> map = getMapForKeyType(keyType);
+    return create(keyType, null, options, pipeline);
+  }
+
+  /**
+   * Returns a new {@code Shuffler} for records of the given types, which spills them to disk when
+   * {@link org.apache.crunch.impl.mem.MemPipeline#SHUFFLE_SPILL_BYTES} is set and the keys are sorted.
+   */
+  public static <S, T> Shuffler<S, T> create(PType<S> keyType, PType<T> valueType, GroupingOptions options,
+      Pipeline pipeline) {
+    // Records are grouped by their natural order, as they are in MapReduce, unless their equals is known
+    // to agree with it. Those are grouped in a hash map, and the keys of the groups are only sorted once,
+    // at the end, when the order of the keys is needed.
+    Map<S, Collection<T>> map = Maps.newHashMap();
+    Comparator<S> keyComparator = null;
+    if (keyType != null && Comparable.class.isAssignableFrom(keyType.getTypeClass())) {
+      keyComparator = (Comparator<S>) (Comparator) Ordering.natural();
+      if (!HASHABLE_KEY_CLASSES.contains(keyType.getTypeClass())) {
+        map = new TreeMap<S, Collection<T>>();
+      }
+    }
     
     if (options != null) {
       if (Pair.class.equals(keyType.getTypeClass()) && options.getGroupingComparatorClass() != null) {
         PType<?> pairKey = keyType.getSubTypes().get(0);
         return new SecondarySortShuffler(getMapForKeyType(pairKey));
       } else if (options.getSortComparatorClass() != null) {
-        RawComparator<S> rc = ReflectionUtils.newInstance(options.getSortComparatorClass(),
-            pipeline.getConfiguration());
-        map = new TreeMap<S, Collection<T>>(rc);
+        Configuration conf = new Configuration(pipeline.getConfiguration());
+        for (Map.Entry<String, String> e : options.getExtraConf().entrySet()) {
+          conf.set(e.getKey(), e.getValue());
+        }
+        RawComparator<S> rc = ReflectionUtils.newInstance(options.getSortComparatorClass(), conf);
+        Comparator<S> comparator = rc;
+        if (rc instanceof AvroRawComparator && keyType instanceof AvroType) {
+          keyType.initialize(conf);
+          comparator = new AvroKeyComparator<S>((AvroType<S>) keyType, (AvroRawComparator) rc);
+        }
+        map = new TreeMap<S, Collection<T>>(comparator);
+        keyComparator = comparator;
       }
     }
-    
-    return new MapShuffler<S, T>(map);
+
+    if (keyComparator != null && valueType != null) {
+      Shuffler<S, T> spilling = SpillingShuffler.create(keyType, valueType, keyComparator,
+          pipeline.getConfiguration());
+      if (spilling != null) {
+        return spilling;
+      }
+    }
+    if (map instanceof TreeMap || (options != null && !options.requireSortedKeys())) {
+      return new MapShuffler<S, T>(map, null);
+    }
+    return new MapShuffler<S, T>(map, keyComparator);
   }
   
+  /**
+   * Compares the keys of an {@code AvroType} with an {@code AvroRawComparator} in their Avro form, so that
+   * e.g. a {@code Pair} is compared as the record that it is written to the shuffle as.
+   */
+  private static class AvroKeyComparator<K> implements Comparator<K> {
+    private final MapFn<K, Object> outputFn;
+    private final AvroRawComparator comparator;
+
+    AvroKeyComparator(AvroType<K> keyType, AvroRawComparator comparator) {
+      this.outputFn = keyType.getOutputMapFn();
+      this.comparator = comparator;
+    }
+
+    @Override
+    public int compare(K k1, K k2) {
+      return comparator.compare(outputFn.map(k1), outputFn.map(k2));
+    }
+  }
+
   private static class HFunction<K, V> implements Function<Map.Entry<K, Collection<V>>, Pair<K, Iterable<V>>> {
     @Override
     public Pair<K, Iterable<V>> apply(Map.Entry<K, Collection<V>> input) {
@@ -82,24 +162,54 @@ abstract class Shuffler<K, V> implements Iterable<Pair<K, Iterable<V>>> {
   
   private static class MapShuffler<K, V> extends Shuffler<K, V> {
     private final Map<K, Collection<V>> map;
+    private final Comparator<? super K> keyComparator;
     
-    public MapShuffler(Map<K, Collection<V>> map) {
+    /**
+     * @param map The map to group the records in
+     * @param keyComparator The order to return the groups of the map in, or null to return them in
+     *     the iteration order of the map
+     */
+    public MapShuffler(Map<K, Collection<V>> map, Comparator<? super K> keyComparator) {
       this.map = map;
+      this.keyComparator = keyComparator;
     }
     
     @Override
     public Iterator<Pair<K, Iterable<V>>> iterator() {
-      return Iterators.transform(map.entrySet().iterator(),
-          new HFunction<K, V>());
+      if (keyComparator == null) {
+        return Iterators.transform(map.entrySet().iterator(),
+            new HFunction<K, V>());
+      }
+      List<Map.Entry<K, Collection<V>>> entries = Lists.newArrayList(map.entrySet());
+      Collections.sort(entries, new Comparator<Map.Entry<K, Collection<V>>>() {
+        @Override
+        public int compare(Map.Entry<K, Collection<V>> e1, Map.Entry<K, Collection<V>> e2) {
+          return keyComparator.compare(e1.getKey(), e2.getKey());
+        }
+      });
+      return Iterators.transform(entries.iterator(), new HFunction<K, V>());
     }
 
     @Override
     public void add(Pair<K, V> record) {
-      if (!map.containsKey(record.first())) {
-        Collection<V> values = Lists.newArrayList();
+      Collection<V> values = map.get(record.first());
+      if (values == null) {
+        values = Lists.newArrayList();
         map.put(record.first(), values);
       }
-      map.get(record.first()).add(record.second());
+      values.add(record.second());
+    }
+
+    @Override
+    void merge(Shuffler<K, V> other) {
+      for (Map.Entry<K, Collection<V>> e : ((MapShuffler<K, V>) other).map.entrySet()) {
+        Collection<V> values = map.get(e.getKey());
+        if (values == null) {
+          map.put(e.getKey(), e.getValue());
+        } else {
+          values.addAll(e.getValue());
+        }
+      }
     }
   }
 
@@ -145,5 +255,17 @@ abstract class Shuffler<K, V> implements Iterable<Pair<K, Iterable<V>>> {
       }
       map.get(primary).add(Pair.of(record.first().second(), record.second()));
     }
+
+    @Override
+    void merge(Shuffler<Pair<K, SK>, V> other) {
+      for (Map.Entry<K, List<Pair<SK, V>>> e : ((SecondarySortShuffler<K, SK, V>) other).map.entrySet()) {
+        List<Pair<SK, V>> values = map.get(e.getKey());
+        if (values == null) {
+          map.put(e.getKey(), e.getValue());
+        } else {
+          values.addAll(e.getValue());
+        }
+      }
+    }
   }
 }
@@ -0,0 +1,801 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mem.collect;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.crunch.CrunchRuntimeException;
+import org.apache.crunch.MapFn;
+import org.apache.crunch.Pair;
+import org.apache.crunch.impl.SingleUseIterable;
+import org.apache.crunch.impl.mem.MemPipeline;
+import org.apache.crunch.types.PType;
+import org.apache.crunch.types.avro.AvroType;
+import org.apache.crunch.types.avro.Avros;
+import org.apache.crunch.types.writable.WritableType;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * A {@link Shuffler} that keeps its records serialized with the key and value {@code PType}s, and that
+ * writes them out to sorted runs on local disk whenever their size exceeds
+ * {@link MemPipeline#SHUFFLE_SPILL_BYTES}. The groups are produced by a k-way merge of the runs, and
+ * only the keys and the locations of the values of each group are kept in memory; the values are read
+ * back from the runs when the values of a group are iterated over.
+ * <p>
+ * The runs are read in chunks, so no file is kept open between reads. The values of the groups of a run
+ * are read through a chunk that is shared by all of its groups, and each read covers as many whole
+ * groups as fit in a chunk, so that reading the values of consecutive small groups does not read their
+ * part of the file more than once. The file of a run is deleted as soon as the merge and the values of
+ * all of the groups that it holds have been read, or otherwise once the run is no longer referenced,
+ * i.e., once the grouped records are. The groups can only be iterated over once.
+ */
+class SpillingShuffler<K, V> extends Shuffler<K, V> {
+
+  private static final Log LOG = LogFactory.getLog(SpillingShuffler.class);
+
+  /**
+   * An estimate of the number of bytes that each buffered record uses in addition to its serialized form.
+   */
+  private static final int RECORD_OVERHEAD = 64;
+
+  /**
+   * The maximum number of bytes of a run that are read at a time, unless a single record is larger.
+   */
+  private static final int READ_CHUNK_BYTES = 64 * 1024;
+
+  private final Comparator<? super K> keyComparator;
+  private final Serde<K> keySerde;
+  private final Serde<V> valueSerde;
+  private final long spillBytes;
+  private final File spillDir;
+
+  private final List<Run> runs = Lists.newArrayList();
+  private List<Record<K>> buffer = Lists.newArrayList();
+  private long bufferBytes;
+  private boolean iterated;
+
+  /**
+   * Returns a new {@code SpillingShuffler}, or null if spilling is not enabled or if the records of
+   * the given types cannot be serialized.
+   */
+  static <K, V> SpillingShuffler<K, V> create(PType<K> keyType, PType<V> valueType,
+      Comparator<? super K> keyComparator, Configuration conf) {
+    long spillBytes = conf.getLong(MemPipeline.SHUFFLE_SPILL_BYTES, 0L);
+    if (spillBytes <= 0) {
+      return null;
+    }
+    Serde<K> keySerde = Serde.create(keyType, conf);
+    Serde<V> valueSerde = Serde.create(valueType, conf);
+    if (keySerde == null || valueSerde == null) {
+      LOG.info("Cannot spill records of types " + keyType + " and " + valueType + ", grouping them in memory");
+      return null;
+    }
+    RunFiles.deleteUnreferenced();
+    File spillDir = new File(conf.get(MemPipeline.SHUFFLE_SPILL_DIR, System.getProperty("java.io.tmpdir")));
+    return new SpillingShuffler<K, V>(keyComparator, keySerde, valueSerde, spillBytes, spillDir);
+  }
+
+  private SpillingShuffler(Comparator<? super K> keyComparator, Serde<K> keySerde, Serde<V> valueSerde,
+      long spillBytes, File spillDir) {
+    this.keyComparator = keyComparator;
+    this.keySerde = keySerde;
+    this.valueSerde = valueSerde;
+    this.spillBytes = spillBytes;
+    this.spillDir = spillDir;
+  }
+
+  @Override
+  public void add(Pair<K, V> record) {
+    Record<K> r = new Record<K>(record.first(), keySerde.toBytes(record.first()),
+        valueSerde.toBytes(record.second()));
+    buffer.add(r);
+    bufferBytes += r.keyBytes.length + r.valueBytes.length + RECORD_OVERHEAD;
+    if (bufferBytes > spillBytes) {
+      spill();
+    }
+  }
+
+  @Override
+  void merge(Shuffler<K, V> other) {
+    SpillingShuffler<K, V> o = (SpillingShuffler<K, V>) other;
+    if (!buffer.isEmpty()) {
+      runs.add(new MemoryRun(sortedBuffer()));
+    }
+    runs.addAll(o.runs);
+    buffer = Lists.newArrayList(o.buffer);
+    bufferBytes = o.bufferBytes;
+  }
+
+  private List<Record<K>> sortedBuffer() {
+    // The sort is stable, so the values of each key stay in the order that they were added in.
+    Collections.sort(buffer, new Comparator<Record<K>>() {
+      @Override
+      public int compare(Record<K> r1, Record<K> r2) {
+        return keyComparator.compare(r1.key, r2.key);
+      }
+    });
+    return buffer;
+  }
+
+  private void spill() {
+    List<Record<K>> sorted = sortedBuffer();
+    RunFiles.deleteUnreferenced();
+    File file;
+    FileRun run;
+    try {
+      file = File.createTempFile("crunch-shuffle-", ".run", spillDir);
+      run = new FileRun(file);
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+      try {
+        for (Record<K> r : sorted) {
+          out.writeInt(r.keyBytes.length);
+          out.write(r.keyBytes);
+          out.writeInt(r.valueBytes.length);
+          out.write(r.valueBytes);
+        }
+        out.writeInt(-1);
+      } finally {
+        out.close();
+      }
+    } catch (IOException e) {
+      throw new CrunchRuntimeException("Could not spill shuffle records to " + spillDir, e);
+    }
+    LOG.debug("Spilled " + sorted.size() + " records (" + bufferBytes + " bytes) to " + file);
+    runs.add(run);
+    buffer = Lists.newArrayList();
+    bufferBytes = 0;
+  }
+
+  @Override
+  public Iterator<Pair<K, Iterable<V>>> iterator() {
+    if (iterated) {
+      throw new IllegalStateException("The groups of a spilling shuffle can only be iterated over once");
+    }
+    iterated = true;
+    // The runs are only referenced by the merge and the groups from now on
+    List<Run> all = Lists.newArrayList(runs);
+    runs.clear();
+    if (!buffer.isEmpty()) {
+      all.add(new MemoryRun(sortedBuffer()));
+    }
+    buffer = Lists.newArrayList();
+    bufferBytes = 0;
+    return new GroupIterator(all);
+  }
+
+  private static class Record<K> {
+    final K key;
+    final byte[] keyBytes;
+    final byte[] valueBytes;
+
+    Record(K key, byte[] keyBytes, byte[] valueBytes) {
+      this.key = key;
+      this.keyBytes = keyBytes;
+      this.valueBytes = valueBytes;
+    }
+  }
+
+  /**
+   * A sorted sequence of records, which is either on disk or in memory.
+   */
+  private abstract class Run {
+    /**
+     * Returns a reader that is positioned on the record at the given position of this run, or that
+     * is exhausted if there is no such record.
+     */
+    abstract Reader open(long position);
+
+    /**
+     * Returns a reader for the values of a group, which starts at the given position of this run.
+     */
+    Reader openValues(long position) {
+      return open(position);
+    }
+
+    /**
+     * Records the end of the values of a group in this run, which the merge finds in the order of the
+     * run.
+     */
+    void addSegmentEnd(long end) {
+    }
+
+    /** Records a new reader of this run, which has to {@link #release} it when it is done. */
+    void retain() {
+    }
+
+    void release() {
+    }
+  }
+
+  private abstract class Reader {
+    int index;
+    Run run;
+
+    /** Returns false if this reader has moved past the last record of its run. */
+    abstract boolean hasRecord();
+
+    /** Returns the position of the current record, which can be passed to {@link Run#open}. */
+    abstract long position();
+
+    abstract K key();
+
+    abstract V value();
+
+    abstract void advance();
+  }
+
+  private class FileRun extends Run {
+    private final File file;
+    private final Reference<?> ref;
+    private final List<Long> segmentEnds = Lists.newArrayList();
+    private int references;
+    private Chunk valuesChunk;
+
+    FileRun(File file) {
+      this.file = file;
+      this.ref = RunFiles.register(this, file);
+    }
+
+    @Override
+    Reader open(long position) {
+      return new FileReader(this, position, false);
+    }
+
+    @Override
+    Reader openValues(long position) {
+      return new FileReader(this, position, true);
+    }
+
+    @Override
+    synchronized void addSegmentEnd(long end) {
+      segmentEnds.add(end);
+    }
+
+    /**
+     * Returns the number of bytes to read at the given position for the values of the groups, which
+     * covers as many whole groups as fit in a chunk, or a chunk of a group that is larger than that.
+     */
+    synchronized int getValuesReadSize(long offset, int length) {
+      int i = Collections.binarySearch(segmentEnds, offset);
+      i = i < 0 ? -i - 1 : i + 1;
+      long limit = offset + READ_CHUNK_BYTES;
+      long end = offset;
+      while (i < segmentEnds.size() && segmentEnds.get(i) <= limit) {
+        end = segmentEnds.get(i);
+        i++;
+      }
+      if (end == offset) {
+        end = limit;
+      }
+      return (int) Math.max(length, end - offset);
+    }
+
+    synchronized Chunk getValuesChunk() {
+      return valuesChunk;
+    }
+
+    synchronized void setValuesChunk(Chunk chunk) {
+      this.valuesChunk = chunk;
+    }
+
+    @Override
+    synchronized void retain() {
+      references++;
+    }
+
+    @Override
+    synchronized void release() {
+      if (--references == 0) {
+        valuesChunk = null;
+        RunFiles.delete(ref);
+      }
+    }
+  }
+
+  /**
+   * A part of a run that was read into memory, which is not modified once it has been read.
+   */
+  private static class Chunk {
+    final byte[] bytes;
+    final long start;
+    final int length;
+
+    Chunk(byte[] bytes, long start, int length) {
+      this.bytes = bytes;
+      this.start = start;
+      this.length = length;
+    }
+
+    boolean contains(long offset, int len) {
+      return offset >= start && offset + len <= start + length;
+    }
+  }
+
+  /**
+   * Reads the records of a run in chunks, opening the file only for as long as it takes to read a chunk.
+   * Readers of the values of groups share the last chunk that any of them read from their run.
+   */
+  private class FileReader extends Reader {
+    private final FileRun fileRun;
+    private final File file;
+    private final boolean values;
+    private byte[] chunk = new byte[0];
+    private long chunkStart;
+    private int chunkLength;
+    private long position;
+    private long nextPosition;
+    private int keyOffset;
+    private int keyLength = -1;
+    private int valueOffset;
+    private int valueLength;
+    private K key;
+    private boolean keyRead;
+
+    FileReader(FileRun fileRun, long position, boolean values) {
+      this.fileRun = fileRun;
+      this.file = fileRun.file;
+      this.values = values;
+      this.nextPosition = position;
+      advance();
+    }
+
+    @Override
+    boolean hasRecord() {
+      return keyLength >= 0;
+    }
+
+    @Override
+    long position() {
+      return position;
+    }
+
+    @Override
+    K key() {
+      if (!keyRead) {
+        key = keySerde.fromBytes(chunk, keyOffset, keyLength);
+        keyRead = true;
+      }
+      return key;
+    }
+
+    @Override
+    V value() {
+      return valueSerde.fromBytes(chunk, valueOffset, valueLength);
+    }
+
+    @Override
+    void advance() {
+      position = nextPosition;
+      keyRead = false;
+      key = null;
+      try {
+        keyLength = readInt(position);
+        if (keyLength < 0) {
+          return;
+        }
+        valueLength = readInt(position + 4 + keyLength);
+        // The key and the value are kept in the same chunk, so that neither is overwritten by a read
+        keyOffset = ensure(position + 4, keyLength + 4 + valueLength);
+        valueOffset = keyOffset + keyLength + 4;
+        nextPosition = position + 8 + keyLength + valueLength;
+      } catch (IOException e) {
+        keyLength = -1;
+        throw new CrunchRuntimeException("Could not read shuffle run " + file, e);
+      }
+    }
+
+    private int readInt(long offset) throws IOException {
+      int i = ensure(offset, 4);
+      return ((chunk[i] & 0xff) << 24) | ((chunk[i + 1] & 0xff) << 16) | ((chunk[i + 2] & 0xff) << 8)
+          | (chunk[i + 3] & 0xff);
+    }
+
+    /**
+     * Makes sure that the given range of the file is in the current chunk, and returns the index of its
+     * first byte in the chunk.
+     */
+    private int ensure(long offset, int length) throws IOException {
+      if (offset < chunkStart || offset + length > chunkStart + chunkLength) {
+        if (values) {
+          Chunk shared = fileRun.getValuesChunk();
+          if (shared != null && shared.contains(offset, length)) {
+            chunk = shared.bytes;
+            chunkStart = shared.start;
+            chunkLength = shared.length;
+            return (int) (offset - chunkStart);
+          }
+        }
+        int size = values ? fileRun.getValuesReadSize(offset, length) : Math.max(length, READ_CHUNK_BYTES);
+        // Shared chunks may still be in use by other readers, so they are never overwritten
+        if (values || chunk.length < size) {
+          chunk = new byte[size];
+        }
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+          in.seek(offset);
+          int read = 0;
+          int n;
+          while (read < size && (n = in.read(chunk, read, size - read)) > 0) {
+            read += n;
+          }
+          if (read < length) {
+            throw new EOFException("Could not read " + length + " bytes at " + offset + " of " + file);
+          }
+          chunkStart = offset;
+          chunkLength = read;
+        } finally {
+          in.close();
+        }
+        if (values) {
+          fileRun.setValuesChunk(new Chunk(chunk, chunkStart, chunkLength));
+        }
+      }
+      return (int) (offset - chunkStart);
+    }
+  }
+
+  private class MemoryRun extends Run {
+    private final List<Record<K>> records;
+
+    MemoryRun(List<Record<K>> records) {
+      this.records = records;
+    }
+
+    @Override
+    Reader open(final long position) {
+      return new Reader() {
+        private int next = (int) position;
+
+        @Override
+        boolean hasRecord() {
+          return next < records.size();
+        }
+
+        @Override
+        long position() {
+          return next;
+        }
+
+        @Override
+        K key() {
+          return records.get(next).key;
+        }
+
+        @Override
+        V value() {
+          byte[] bytes = records.get(next).valueBytes;
+          return valueSerde.fromBytes(bytes, 0, bytes.length);
+        }
+
+        @Override
+        void advance() {
+          next++;
+        }
+      };
+    }
+  }
+
+  /**
+   * The part of a single run that holds values of a group.
+   */
+  private class Segment {
+    final Run run;
+    final long position;
+    final int count;
+
+    Segment(Run run, long position, int count) {
+      this.run = run;
+      this.position = position;
+      this.count = count;
+    }
+  }
+
+  private class GroupValues implements Iterable<V> {
+    private final List<Segment> segments;
+
+    GroupValues(List<Segment> segments) {
+      this.segments = segments;
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+      return new AbstractIterator<V>() {
+        private final Iterator<Segment> iter = segments.iterator();
+        private Segment segment;
+        private Reader reader;
+        private int remaining;
+
+        @Override
+        protected V computeNext() {
+          while (remaining == 0) {
+            if (reader != null) {
+              reader = null;
+              segment.run.release();
+            }
+            if (!iter.hasNext()) {
+              return endOfData();
+            }
+            segment = iter.next();
+            reader = segment.run.openValues(segment.position);
+            remaining = segment.count;
+          }
+          V value = reader.value();
+          remaining--;
+          if (remaining > 0) {
+            reader.advance();
+          }
+          return value;
+        }
+      };
+    }
+  }
+
+  /**
+   * Merges the runs, finding the key and the segments of the values of each group. Readers with
+   * equal keys are ordered by the index of their run, so that the values of each key are returned
+   * in the order that they were added in.
+   */
+  private class GroupIterator implements Iterator<Pair<K, Iterable<V>>> {
+    private final PriorityQueue<Reader> queue;
+
+    GroupIterator(List<Run> runs) {
+      this.queue = new PriorityQueue<Reader>(Math.max(1, runs.size()), new Comparator<Reader>() {
+        @Override
+        public int compare(Reader r1, Reader r2) {
+          int cmp = keyComparator.compare(r1.key(), r2.key());
+          return cmp != 0 ? cmp : r1.index - r2.index;
+        }
+      });
+      for (int i = 0; i < runs.size(); i++) {
+        Run run = runs.get(i);
+        run.retain();
+        Reader reader = run.open(0);
+        reader.index = i;
+        reader.run = run;
+        if (reader.hasRecord()) {
+          queue.add(reader);
+        } else {
+          run.release();
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !queue.isEmpty();
+    }
+
+    @Override
+    public Pair<K, Iterable<V>> next() {
+      if (queue.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      K key = queue.peek().key();
+      List<Segment> segments = Lists.newArrayList();
+      while (!queue.isEmpty() && keyComparator.compare(queue.peek().key(), key) == 0) {
+        Reader reader = queue.poll();
+        long position = reader.position();
+        int count = 0;
+        do {
+          count++;
+          reader.advance();
+        } while (reader.hasRecord() && keyComparator.compare(reader.key(), key) == 0);
+        reader.run.addSegmentEnd(reader.position());
+        reader.run.retain();
+        segments.add(new Segment(reader.run, position, count));
+        if (reader.hasRecord()) {
+          queue.add(reader);
+        } else {
+          reader.run.release();
+        }
+      }
+      return Pair.<K, Iterable<V>>of(key, new SingleUseIterable<V>(new GroupValues(segments)));
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * Keeps track of the files of the runs, so that the file of a run whose groups were not all read is
+   * deleted once the run is no longer referenced, and any remaining files are deleted when the JVM exits.
+   */
+  private static final class RunFiles {
+    private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<Object>();
+    private static final Map<Reference<?>, File> FILES = Maps.newHashMap();
+
+    static {
+      Runtime.getRuntime().addShutdownHook(new Thread() {
+        @Override
+        public void run() {
+          synchronized (RunFiles.class) {
+            for (File file : FILES.values()) {
+              deleteFile(file);
+            }
+            FILES.clear();
+          }
+        }
+      });
+    }
+
+    static synchronized Reference<?> register(Object run, File file) {
+      Reference<?> ref = new PhantomReference<Object>(run, QUEUE);
+      FILES.put(ref, file);
+      return ref;
+    }
+
+    static synchronized void delete(Reference<?> ref) {
+      File file = FILES.remove(ref);
+      if (file != null) {
+        deleteFile(file);
+      }
+    }
+
+    static void deleteUnreferenced() {
+      Reference<?> ref;
+      while ((ref = QUEUE.poll()) != null) {
+        delete(ref);
+      }
+    }
+
+    private static void deleteFile(File file) {
+      if (!file.delete() && file.exists()) {
+        LOG.warn("Could not delete shuffle run " + file);
+      }
+    }
+  }
+
+  /**
+   * Converts the values of a {@code PType} to and from bytes.
+   */
+  abstract static class Serde<T> {
+
+    static <T> Serde<T> create(PType<T> ptype, Configuration conf) {
+      if (ptype instanceof WritableType) {
+        return new WritableSerde<T>((WritableType<T, ?>) ptype, conf);
+      } else if (ptype instanceof AvroType) {
+        return new AvroSerde<T>((AvroType<T>) ptype, conf);
+      }
+      return null;
+    }
+
+    private final MapFn<Object, T> inputFn;
+    private final MapFn<T, Object> outputFn;
+
+    Serde(PType<T> ptype, Configuration conf) {
+      ptype.initialize(conf);
+      this.inputFn = ptype.getInputMapFn();
+      this.outputFn = ptype.getOutputMapFn();
+      outputFn.setConfiguration(conf);
+      outputFn.initialize();
+    }
+
+    byte[] toBytes(T value) {
+      try {
+        return serialize(outputFn.map(value));
+      } catch (IOException e) {
+        throw new CrunchRuntimeException(e);
+      }
+    }
+
+    synchronized T fromBytes(byte[] bytes, int offset, int length) {
+      try {
+        return inputFn.map(deserialize(bytes, offset, length));
+      } catch (IOException e) {
+        throw new CrunchRuntimeException(e);
+      }
+    }
+
+    abstract byte[] serialize(Object value) throws IOException;
+
+    abstract Object deserialize(byte[] bytes, int offset, int length) throws IOException;
+  }
+
+  private static class WritableSerde<T> extends Serde<T> {
+    private final Class<? extends Writable> writableClass;
+    private final Configuration conf;
+    private final DataOutputBuffer out = new DataOutputBuffer();
+    private final DataInputBuffer in = new DataInputBuffer();
+
+    WritableSerde(WritableType<T, ?> ptype, Configuration conf) {
+      super(ptype, conf);
+      this.writableClass = ptype.getSerializationClass();
+      this.conf = conf;
+    }
+
+    @Override
+    byte[] serialize(Object value) throws IOException {
+      out.reset();
+      ((Writable) value).write(out);
+      return Arrays.copyOf(out.getData(), out.getLength());
+    }
+
+    @Override
+    Object deserialize(byte[] bytes, int offset, int length) throws IOException {
+      Writable w = ReflectionUtils.newInstance(writableClass, conf);
+      in.reset(bytes, offset, length);
+      w.readFields(in);
+      return w;
+    }
+  }
+
+  private static class AvroSerde<T> extends Serde<T> {
+    private final DatumWriter<Object> writer;
+    private final DatumReader<Object> reader;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private BinaryEncoder encoder;
+    private BinaryDecoder decoder;
+
+    AvroSerde(AvroType<T> ptype, Configuration conf) {
+      super(ptype, conf);
+      this.writer = (DatumWriter) Avros.newWriter(ptype);
+      this.reader = (DatumReader) Avros.newReader(ptype);
+    }
+
+    @Override
+    byte[] serialize(Object value) throws IOException {
+      out.reset();
+      encoder = EncoderFactory.get().binaryEncoder(out, encoder);
+      writer.write(value, encoder);
+      encoder.flush();
+      return out.toByteArray();
+    }
+
+    @Override
+    Object deserialize(byte[] bytes, int offset, int length) throws IOException {
+      decoder = DecoderFactory.get().binaryDecoder(bytes, offset, length, decoder);
+      return reader.read(null, decoder);
+    }
+  }
+}
@@ -17,10 +17,12 @@
  */
 package org.apache.crunch.impl.mr.collect;
 
+import org.apache.crunch.Aggregator;
 import org.apache.crunch.CombineFn;
 import org.apache.crunch.DoFn;
 import org.apache.crunch.Pair;
 import org.apache.crunch.ParallelDoOptions;
+import org.apache.crunch.fn.Aggregators;
 import org.apache.crunch.impl.dist.collect.BaseDoTable;
 import org.apache.crunch.impl.dist.collect.MRCollection;
 import org.apache.crunch.impl.dist.collect.PCollectionImpl;
@@ -48,6 +50,19 @@ public class DoTable<K, V> extends BaseDoTable<K, V> implements MRCollection {
     return DoNode.createFnNode(getName(), combineFn, type, doOptions);
   }
   
+  /**
+   * Returns a node that aggregates the values of each key in memory before they are written to the
+   * shuffle, or null if the combine function of this table is not based on an {@code Aggregator}.
+   */
+  public DoNode createInMapperCombineNode() {
+    Aggregator<V> aggregator = Aggregators.toAggregator((CombineFn<K, V>) combineFn);
+    if (aggregator == null) {
+      return null;
+    }
+    return DoNode.createFnNode(getName() + " (in-mapper)", new InMapperCombineFn<K, V>(aggregator, type),
+        type, doOptions);
+  }
+
   public boolean hasCombineFn() {
     return combineFn != null;
   }
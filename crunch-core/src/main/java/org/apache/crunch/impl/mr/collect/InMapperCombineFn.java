@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mr.collect;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Map;
+
+import org.apache.crunch.Aggregator;
+import org.apache.crunch.CrunchRuntimeException;
+import org.apache.crunch.DoFn;
+import org.apache.crunch.Emitter;
+import org.apache.crunch.Pair;
+import org.apache.crunch.impl.mr.run.RuntimeParameters;
+import org.apache.crunch.types.PTableType;
+import org.apache.crunch.types.PTypeUtils;
+import org.apache.hadoop.conf.Configuration;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Aggregates the values of each key in a hash table on the map side of a job, so that only partial
+ * aggregates are written to the shuffle. The partial aggregates are emitted during cleanup and when
+ * the number of keys in the table reaches a limit, which is the smaller of
+ * {@link RuntimeParameters#IN_MAPPER_COMBINE_MAX_ENTRIES} and the number of entries that are estimated
+ * to fit into {@link RuntimeParameters#IN_MAPPER_COMBINE_HEAP_FRACTION} of the heap that is left after
+ * the map output buffer, at {@link RuntimeParameters#IN_MAPPER_COMBINE_BYTES_PER_ENTRY} bytes each.
+ * <p>
+ * The limit is derived from the size of the table rather than from the used heap, which includes
+ * garbage and the map output buffer and so says little about the size of the table.
+ */
+class InMapperCombineFn<K, V> extends DoFn<Pair<K, V>, Pair<K, V>> {
+
+  private final Aggregator<V> aggregator;
+  private final PTableType<K, V> ptype;
+
+  private transient byte[] serializedAggregator;
+  private transient Map<K, Aggregator<V>> aggregators;
+  private transient int maxEntries;
+  private transient boolean immutableKeys;
+  private transient boolean immutableValues;
+
+  InMapperCombineFn(Aggregator<V> aggregator, PTableType<K, V> ptype) {
+    this.aggregator = aggregator;
+    this.ptype = ptype;
+  }
+
+  @Override
+  public void initialize() {
+    ptype.initialize(getConfiguration());
+    this.aggregators = Maps.newHashMap();
+    this.maxEntries = getMaxEntries(getConfiguration(), Runtime.getRuntime().maxMemory());
+    this.immutableKeys = PTypeUtils.isImmutable(ptype.getKeyType());
+    this.immutableValues = PTypeUtils.isImmutable(ptype.getValueType());
+    try {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      ObjectOutputStream oos = new ObjectOutputStream(baos);
+      oos.writeObject(aggregator);
+      oos.close();
+      this.serializedAggregator = baos.toByteArray();
+    } catch (IOException e) {
+      throw new CrunchRuntimeException("Could not serialize aggregator: " + aggregator, e);
+    }
+  }
+
+  @Override
+  public void process(Pair<K, V> input, Emitter<Pair<K, V>> emitter) {
+    K key = input.first();
+    Aggregator<V> agg = aggregators.get(key);
+    if (agg == null) {
+      agg = newAggregator();
+      aggregators.put(detachKey(key), agg);
+    }
+    agg.update(detachValue(input.second()));
+
+    if (aggregators.size() >= maxEntries) {
+      flush(emitter);
+    }
+  }
+
+  static int getMaxEntries(Configuration conf, long maxHeapBytes) {
+    int maxEntries = conf.getInt(RuntimeParameters.IN_MAPPER_COMBINE_MAX_ENTRIES, 100000);
+    float heapFraction = conf.getFloat(RuntimeParameters.IN_MAPPER_COMBINE_HEAP_FRACTION, 0.5f);
+    int bytesPerEntry = conf.getInt(RuntimeParameters.IN_MAPPER_COMBINE_BYTES_PER_ENTRY, 256);
+    // The map output buffer is allocated up front and lives as long as the task
+    long availableBytes = maxHeapBytes - conf.getInt("io.sort.mb", 100) * 1024L * 1024L;
+    long heapEntries = Math.max(1L, (long) (availableBytes * heapFraction) / Math.max(1, bytesPerEntry));
+    return (int) Math.min(maxEntries, heapEntries);
+  }
+
+  @Override
+  public void cleanup(Emitter<Pair<K, V>> emitter) {
+    flush(emitter);
+  }
+
+  private void flush(Emitter<Pair<K, V>> emitter) {
+    for (Map.Entry<K, Aggregator<V>> e : aggregators.entrySet()) {
+      for (V v : e.getValue().results()) {
+        emitter.emit(Pair.of(e.getKey(), v));
+      }
+    }
+    aggregators.clear();
+  }
+
+  private Aggregator<V> newAggregator() {
+    try {
+      ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serializedAggregator));
+      Aggregator<V> agg = (Aggregator<V>) ois.readObject();
+      ois.close();
+      agg.initialize(getConfiguration());
+      agg.reset();
+      return agg;
+    } catch (IOException e) {
+      throw new CrunchRuntimeException(e);
+    } catch (ClassNotFoundException e) {
+      throw new CrunchRuntimeException(e);
+    }
+  }
+
+  private K detachKey(K key) {
+    return immutableKeys ? key : ptype.getKeyType().getDetachedValue(key);
+  }
+
+  private V detachValue(V value) {
+    return immutableValues ? value : ptype.getValueType().getDetachedValue(value);
+  }
+}
@@ -48,6 +48,14 @@ public class PGroupedTableImpl<K, V> extends BaseGroupedTable<K, V> implements M
     }
   }
 
+  /**
+   * Returns true if the number of reducers for this grouping was set explicitly, rather than
+   * estimated from the size of the data.
+   */
+  public boolean hasFixedNumReducers() {
+    return groupingOptions != null && groupingOptions.getNumReducers() > 0;
+  }
+
   @Override
   public void accept(Visitor visitor) {
     visitor.visitGroupedTable(this);
@@ -23,42 +23,104 @@ import org.apache.crunch.DoFn;
 import org.apache.crunch.Emitter;
 import org.apache.crunch.impl.mr.run.RTNode;
 import org.apache.crunch.types.PType;
+import org.apache.crunch.types.PTypeUtils;
+import org.apache.crunch.types.writable.WritableType;
 import org.apache.hadoop.conf.Configuration;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 
 /**
  * An {@link Emitter} implementation that links the output of one {@link DoFn} to the input of
  * another {@code DoFn}.
- * 
+ * <p>
+ * When there are multiple downstream consumers of an emitted value, deep copies are only made for
+ * the consumers that may modify or retain the value: children that only read their input (see
+ * {@link RTNode#isReadOnlyConsumer()}) are given the value first, and the last of the remaining
+ * children is given the original value instead of a copy. No copies are made at all when the output
+ * {@code PType} is declared to be immutable, e.g. via {@link WritableType#immutableType}.
+ * <p>
+ * Children that process their inputs in batches (see {@link org.apache.crunch.BatchDoFn}) are given
+ * values in batches, which are passed on when they are full and when this emitter is flushed. The
+ * same copying rule applies to them: a batch child only gets the original values if it is the last
+ * child that may modify them.
  */
 public class IntermediateEmitter implements Emitter<Object> {
 
+  private final List<RTNode> readOnlyChildren;
   private final List<RTNode> children;
+  private final List<RTNode> batchChildren;
+  private final List<List<Object>> batches;
   private final PType<Object> outputPType;
-  private final boolean needDetachedValues;
+  private final boolean disableDeepCopy;
+  private final boolean immutableType;
 
   public IntermediateEmitter(PType<Object> outputPType, List<RTNode> children, Configuration conf,
                              boolean disableDeepCopy) {
     this.outputPType = outputPType;
-    this.children = ImmutableList.copyOf(children);
+    this.disableDeepCopy = disableDeepCopy;
+    this.immutableType = PTypeUtils.isImmutable(outputPType);
+    ImmutableList.Builder<RTNode> readOnly = ImmutableList.builder();
+    ImmutableList.Builder<RTNode> batch = ImmutableList.builder();
+    ImmutableList.Builder<RTNode> others = ImmutableList.builder();
+    for (RTNode child : children) {
+      if (child.isReadOnlyConsumer()) {
+        readOnly.add(child);
+      } else if (child.isBatchConsumer()) {
+        batch.add(child);
+      } else {
+        others.add(child);
+      }
+    }
+    this.readOnlyChildren = readOnly.build();
+    this.batchChildren = batch.build();
+    this.children = others.build();
+    this.batches = Lists.newArrayListWithCapacity(batchChildren.size());
+    for (RTNode child : batchChildren) {
+      batches.add(Lists.newArrayListWithCapacity(child.getBatchSize()));
+    }
     outputPType.initialize(conf);
-    needDetachedValues = !disableDeepCopy && this.children.size() > 1;
   }
 
   @Override
   public void emit(Object emitted) {
-    for (RTNode child : children) {
-      Object value = emitted;
-      if (needDetachedValues) {
-        value = this.outputPType.getDetachedValue(emitted);
+    for (RTNode child : readOnlyChildren) {
+      child.process(emitted);
+    }
+    // The last consumer is given the original value, which is a batch child if there are no others
+    int lastBatch = children.isEmpty() ? batchChildren.size() - 1 : batchChildren.size();
+    for (int i = 0; i < batchChildren.size(); i++) {
+      List<Object> batch = batches.get(i);
+      batch.add(i == lastBatch ? emitted : getDetachedValue(emitted));
+      if (batch.size() >= batchChildren.get(i).getBatchSize()) {
+        processBatch(i);
       }
-      child.process(value);
+    }
+    int last = children.size() - 1;
+    for (int i = 0; i < last; i++) {
+      children.get(i).process(disableDeepCopy ? emitted : getDetachedValue(emitted));
+    }
+    if (last >= 0) {
+      children.get(last).process(emitted);
+    }
+  }
+
+  private Object getDetachedValue(Object value) {
+    return immutableType ? value : outputPType.getDetachedValue(value);
+  }
+
+  private void processBatch(int index) {
+    List<Object> batch = batches.get(index);
+    if (!batch.isEmpty()) {
+      batchChildren.get(index).processBatch(batch);
+      batch.clear();
     }
   }
 
   @Override
   public void flush() {
-    // No-op
+    for (int i = 0; i < batchChildren.size(); i++) {
+      processBatch(i);
+    }
   }
 }
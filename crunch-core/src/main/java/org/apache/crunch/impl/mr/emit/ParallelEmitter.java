@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mr.emit;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.crunch.CrunchRuntimeException;
+import org.apache.crunch.Emitter;
+import org.apache.crunch.types.PType;
+import org.apache.crunch.types.PTypeUtils;
+import org.apache.hadoop.conf.Configuration;
+
+import com.google.common.collect.Lists;
+
+/**
+ * An {@link Emitter} that hands the values it is given off to a pool of worker threads, each of which
+ * passes them on to its own {@code Emitter} (and therefore its own copies of the downstream
+ * {@code DoFn}s). Values are detached before they are handed off, and the order in which they are
+ * processed by the downstream {@code DoFn}s is not preserved.
+ * <p>
+ * Flushing this emitter waits for all of the values that have been handed off to be processed, flushes
+ * the emitters of the worker threads, and rethrows the first exception thrown by any of them.
+ */
+public class ParallelEmitter implements Emitter<Object> {
+
+  private static final Object END = new Object();
+  private static final long OFFER_TIMEOUT_MSEC = 100L;
+
+  private final PType<Object> outputPType;
+  private final BlockingQueue<Object> queue;
+  private final List<Thread> workers;
+  private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+  private final boolean immutableType;
+  private boolean finished;
+
+  public ParallelEmitter(PType<Object> outputPType, List<? extends Emitter<Object>> workerEmitters,
+                         Configuration conf, int queueSize) {
+    this.outputPType = outputPType;
+    outputPType.initialize(conf);
+    this.immutableType = PTypeUtils.isImmutable(outputPType);
+    this.queue = new ArrayBlockingQueue<Object>(queueSize);
+    this.workers = Lists.newArrayListWithCapacity(workerEmitters.size());
+    for (int i = 0; i < workerEmitters.size(); i++) {
+      Thread worker = new Thread(new Worker(workerEmitters.get(i)), "crunch-worker-" + i);
+      worker.setDaemon(true);
+      workers.add(worker);
+      worker.start();
+    }
+  }
+
+  @Override
+  public void emit(Object emitted) {
+    put(getDetachedValue(emitted));
+  }
+
+  private Object getDetachedValue(Object value) {
+    return immutableType ? value : outputPType.getDetachedValue(value);
+  }
+
+  private void put(Object value) {
+    try {
+      while (!queue.offer(value, OFFER_TIMEOUT_MSEC, TimeUnit.MILLISECONDS)) {
+        checkFailure();
+      }
+    } catch (InterruptedException e) {
+      throw new CrunchRuntimeException(e);
+    }
+    checkFailure();
+  }
+
+  private void checkFailure() {
+    Throwable t = failure.get();
+    if (t instanceof CrunchRuntimeException) {
+      throw (CrunchRuntimeException) t;
+    } else if (t != null) {
+      throw new CrunchRuntimeException(t);
+    }
+  }
+
+  @Override
+  public void flush() {
+    if (finished) {
+      return;
+    }
+    finished = true;
+    for (int i = 0; i < workers.size(); i++) {
+      put(END);
+    }
+    try {
+      for (Thread worker : workers) {
+        worker.join();
+      }
+    } catch (InterruptedException e) {
+      throw new CrunchRuntimeException(e);
+    }
+    checkFailure();
+  }
+
+  private class Worker implements Runnable {
+
+    private final Emitter<Object> emitter;
+
+    Worker(Emitter<Object> emitter) {
+      this.emitter = emitter;
+    }
+
+    @Override
+    public void run() {
+      try {
+        Object value = queue.take();
+        while (value != END) {
+          emitter.emit(value);
+          value = queue.take();
+        }
+        emitter.flush();
+      } catch (Throwable t) {
+        failure.compareAndSet(null, t);
+      }
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mr.emit;
+
+import org.apache.crunch.Emitter;
+
+/**
+ * An {@link Emitter} that serializes access to another {@code Emitter}, so that task outputs can be
+ * written to from multiple threads.
+ */
+public class SynchronizedEmitter<T> implements Emitter<T> {
+
+  private final Emitter<T> delegate;
+  private final Object lock;
+
+  public SynchronizedEmitter(Emitter<T> delegate, Object lock) {
+    this.delegate = delegate;
+    this.lock = lock;
+  }
+
+  @Override
+  public void emit(T emitted) {
+    synchronized (lock) {
+      delegate.emit(emitted);
+    }
+  }
+
+  @Override
+  public void flush() {
+    synchronized (lock) {
+      delegate.flush();
+    }
+  }
+}
@@ -20,9 +20,13 @@ package org.apache.crunch.impl.mr.exec;
 import java.io.IOException;
 import java.util.Map;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.crunch.Source;
 import org.apache.crunch.hadoop.mapreduce.lib.jobcontrol.CrunchControlledJob;
 import org.apache.crunch.impl.mr.run.RuntimeParameters;
 import org.apache.crunch.io.PathTarget;
+import org.apache.crunch.util.PartitionUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -31,14 +35,30 @@ import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 
 public final class CrunchJobHooks {
 
+  private static final Log LOG = LogFactory.getLog(CrunchJobHooks.class);
+
   private CrunchJobHooks() {}
 
-  /** Creates missing input directories before job is submitted. */
+  /**
+   * Creates missing input directories before job is submitted, and re-estimates the number of
+   * reducers for the job from the actual sizes of its inputs.
+   */
   public static final class PrepareHook implements CrunchControlledJob.Hook {
     private final Job job;
+    private final Map<Source<?>, Float> shuffleScales;
 
     public PrepareHook(Job job) {
+      this(job, null);
+    }
+
+    /**
+     * @param job the job to prepare
+     * @param shuffleScales the estimated ratio between the bytes shuffled by the job and the size of
+     *     each of its input sources, or null if the number of reducers should not be re-estimated
+     */
+    public PrepareHook(Job job, Map<Source<?>, Float> shuffleScales) {
       this.job = job;
+      this.shuffleScales = shuffleScales;
     }
 
     @Override
@@ -56,6 +76,27 @@ public final class CrunchJobHooks {
           }
         }
       }
+      if (shuffleScales != null && conf.getBoolean(RuntimeParameters.RUNTIME_REDUCER_ESTIMATE, true)) {
+        setNumReduceTasks(conf);
+      }
+    }
+
+    private void setNumReduceTasks(Configuration conf) {
+      double shuffleSize = 0.0;
+      for (Map.Entry<Source<?>, Float> e : shuffleScales.entrySet()) {
+        long inputSize = e.getKey().getSize(conf);
+        if (inputSize < 0) {
+          // The input size cannot be determined, so keep the estimate made by the planner.
+          return;
+        }
+        shuffleSize += e.getValue() * inputSize;
+      }
+      int numReduceTasks = PartitionUtils.getRecommendedPartitions((long) shuffleSize, conf);
+      if (numReduceTasks != job.getNumReduceTasks()) {
+        LOG.info(String.format("Setting num reduce tasks for \"%s\" to %d based on %d estimated shuffle bytes",
+            job.getJobName(), numReduceTasks, (long) shuffleSize));
+        job.setNumReduceTasks(numReduceTasks);
+      }
     }
   }
 
@@ -19,6 +19,7 @@ package org.apache.crunch.impl.mr.exec;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.AbstractFuture;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -30,6 +31,7 @@ import org.apache.crunch.hadoop.mapreduce.lib.jobcontrol.CrunchJobControl;
 import org.apache.crunch.impl.dist.collect.PCollectionImpl;
 import org.apache.crunch.impl.mr.MRJob;
 import org.apache.crunch.impl.mr.MRPipelineExecution;
+import org.apache.crunch.impl.mr.plan.DotfileWriter;
 import org.apache.crunch.materialize.MaterializableIterable;
 import org.apache.hadoop.conf.Configuration;
 
@@ -68,6 +70,7 @@ public class MRExecutor extends AbstractFuture<PipelineResult> implements MRPipe
   private boolean started;
 
   private String planDotFile;
+  private DotfileWriter dotfileWriter;
   
   public MRExecutor(
       Configuration conf,
@@ -95,6 +98,10 @@ public class MRExecutor extends AbstractFuture<PipelineResult> implements MRPipe
   public void setPlanDotFile(String planDotFile) {
     this.planDotFile = planDotFile;
   }
+
+  public void setDotfileWriter(DotfileWriter dotfileWriter) {
+    this.dotfileWriter = dotfileWriter;
+  }
   
   public synchronized MRPipelineExecution execute() {
     if (!started) {
@@ -122,10 +129,18 @@ public class MRExecutor extends AbstractFuture<PipelineResult> implements MRPipe
         }
       }
       List<PipelineResult.StageResult> stages = Lists.newArrayList();
+      Map<Integer, Map<String, PipelineResult.NodeResult>> nodeResults = Maps.newHashMap();
       for (CrunchControlledJob job : control.getSuccessfulJobList()) {
-        stages.add(new PipelineResult.StageResult(job.getJobName(), job.getMapredJobID().toString(), job.getCounters(),
-            job.getStartTimeMsec(), job.getJobStartTimeMsec(), job.getJobEndTimeMsec(), job.getEndTimeMsec()));
+        PipelineResult.StageResult stage = new PipelineResult.StageResult(job.getJobName(),
+            job.getMapredJobID().toString(), job.getCounters(), job.getStartTimeMsec(), job.getJobStartTimeMsec(),
+            job.getJobEndTimeMsec(), job.getEndTimeMsec());
+        stages.add(stage);
+        Map<String, PipelineResult.NodeResult> stageNodeResults = stage.getNodeResults();
+        if (!stageNodeResults.isEmpty()) {
+          nodeResults.put(job.getJobID(), stageNodeResults);
+        }
       }
+      addNodeResultsToPlanDotFile(nodeResults);
 
       for (PCollectionImpl<?> c : outputTargets.keySet()) {
         if (toMaterialize.containsKey(c)) {
@@ -175,6 +190,15 @@ public class MRExecutor extends AbstractFuture<PipelineResult> implements MRPipe
     }
   }
 
+  private void addNodeResultsToPlanDotFile(Map<Integer, Map<String, PipelineResult.NodeResult>> nodeResults) {
+    if (dotfileWriter == null) {
+      return;
+    }
+    if (!nodeResults.isEmpty()) {
+      planDotFile = dotfileWriter.buildDotfile(nodeResults);
+    }
+  }
+
   @Override
   public String getPlanDotFile() {
     return planDotFile;
@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.apache.crunch.Pair;
+import org.apache.crunch.PipelineResult.NodeResult;
 import org.apache.crunch.SourceTarget;
 import org.apache.crunch.Target;
 import org.apache.crunch.impl.dist.collect.PCollectionImpl;
@@ -48,6 +49,7 @@ public class DotfileWriter {
   private HashMultimap<Pair<JobPrototype, MRTaskType>, String> jobNodeDeclarations = HashMultimap.create();
   private Set<String> globalNodeDeclarations = Sets.newHashSet();
   private Set<String> nodePathChains = Sets.newHashSet();
+  private Map<Integer, Map<String, NodeResult>> nodeResults = ImmutableMap.of();
 
   /**
    * Format the declaration of a node based on a PCollection.
@@ -61,7 +63,15 @@ public class DotfileWriter {
     if (pcollectionImpl instanceof InputCollection) {
       shape = "folder";
     }
-    return String.format("%s [label=\"%s\" shape=%s];", formatPCollection(pcollectionImpl, jobPrototype), pcollectionImpl.getName(),
+    String label = pcollectionImpl.getName();
+    Map<String, NodeResult> jobNodeResults = nodeResults.get(jobPrototype.getJobID());
+    NodeResult nodeResult = jobNodeResults == null ? null
+        : jobNodeResults.get(NodeResult.getMetricsNodeName(label));
+    if (nodeResult != null) {
+      label = String.format("%s\\n%d in, %d out\\n%.1f ms (%.1f ms self)", label, nodeResult.getRecordsIn(),
+          nodeResult.getRecordsOut(), nodeResult.getInclusiveNanos() / 1e6, nodeResult.getExclusiveNanos() / 1e6);
+    }
+    return String.format("%s [label=\"%s\" shape=%s];", formatPCollection(pcollectionImpl, jobPrototype), label,
         shape);
   }
 
@@ -278,6 +288,22 @@ public class DotfileWriter {
     return stringBuilder.toString();
   }
 
+  /**
+   * Build up the full dot file containing the description of a MapReduce
+   * pipeline, with the runtime metrics of each node added to its label.
+   *
+   * @param nodeResults The runtime metrics of the nodes, keyed by the ID of their job and then by node name
+   * @return Graphviz dot file contents
+   */
+  public String buildDotfile(Map<Integer, Map<String, NodeResult>> nodeResults) {
+    DotfileWriter writer = new DotfileWriter();
+    writer.nodeResults = nodeResults;
+    for (JobPrototype jobPrototype : jobPrototypes) {
+      writer.addJobPrototype(jobPrototype);
+    }
+    return writer.buildDotfile();
+  }
+
 
 
 }
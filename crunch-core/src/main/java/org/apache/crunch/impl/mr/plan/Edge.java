@@ -65,6 +65,10 @@ class Edge {
   }
 
   public Map<NodePath,  PCollectionImpl> getSplitPoints(Map<PCollectionImpl<?>, Set<Target>> outputs) {
+    return getSplitPoints(new SplitCostModel(outputs, false));
+  }
+
+  public Map<NodePath,  PCollectionImpl> getSplitPoints(SplitCostModel costModel) {
     List<NodePath> np = Lists.newArrayList(paths);
     List<PCollectionImpl<?>> smallestOverallPerPath = Lists.newArrayListWithExpectedSize(np.size());
     Map<PCollectionImpl<?>, Set<Integer>> pathCounts = Maps.newHashMap();
@@ -75,15 +79,16 @@ class Edge {
       PCollectionImpl<?> best = null;
       for (PCollectionImpl<?> pc : np.get(i)) {
         if (!(pc instanceof BaseGroupedTable)) {
+          long cost = costModel.getCost(pc);
           if (pc.isBreakpoint()) {
-            if (!breakpoint || pc.getSize() < bestSize) {
+            if (!breakpoint || cost < bestSize) {
               best = pc;
-              bestSize = pc.getSize();
+              bestSize = cost;
               breakpoint = true;
             }
-          } else if (!breakpoint && pc.getSize() < bestSize) {
+          } else if (!breakpoint && (best == null || cost < bestSize)) {
             best = pc;
-            bestSize = pc.getSize();
+            bestSize = cost;
           }
           Set<Integer> cnts = pathCounts.get(pc);
           if (cnts == null) {
@@ -116,20 +121,23 @@ class Edge {
         PCollectionImpl<?> s = smallestOverallPerPath.get(id);
         if (!smallest.contains(s)) {
           smallest.add(s);
-          smallestSize += s.getSize();
+          smallestSize = SplitCostModel.add(smallestSize, costModel.getCost(s));
         }
       }
 
       PCollectionImpl<?> singleBest = null;
       long singleSmallestSize = Long.MAX_VALUE;
       for (Map.Entry<PCollectionImpl<?>, Set<Integer>> e : pathCounts.entrySet()) {
-        if (Sets.difference(missing, e.getValue()).isEmpty() && e.getKey().getSize() < singleSmallestSize) {
-          singleBest = e.getKey();
-          singleSmallestSize = singleBest.getSize();
+        if (Sets.difference(missing, e.getValue()).isEmpty()) {
+          long cost = costModel.getCost(e.getKey());
+          if (singleBest == null || cost < singleSmallestSize) {
+            singleBest = e.getKey();
+            singleSmallestSize = cost;
+          }
         }
       }
 
-      if (smallestSize < singleSmallestSize) {
+      if (singleBest == null || smallestSize < singleSmallestSize) {
         for (Integer id : missing) {
           splitPoints.put(np.get(id), smallestOverallPerPath.get(id));
         }
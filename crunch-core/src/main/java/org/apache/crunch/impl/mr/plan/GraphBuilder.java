@@ -22,6 +22,7 @@ import org.apache.crunch.impl.dist.collect.BaseDoTable;
 import org.apache.crunch.impl.dist.collect.BaseGroupedTable;
 import org.apache.crunch.impl.dist.collect.BaseInputCollection;
 import org.apache.crunch.impl.dist.collect.BaseUnionCollection;
+import org.apache.crunch.impl.dist.collect.CommonSubexpressions;
 import org.apache.crunch.impl.dist.collect.PCollectionImpl;
 
 /**
@@ -32,7 +33,20 @@ class GraphBuilder implements PCollectionImpl.Visitor {
   private Graph graph = new Graph();
   private Vertex workingVertex;
   private NodePath workingPath;
-  
+  private final CommonSubexpressions commonSubexpressions;
+
+  public GraphBuilder() {
+    this(null);
+  }
+
+  /**
+   * Creates a builder that merges structurally identical collections into a single vertex or
+   * path element when {@code commonSubexpressions} is not null.
+   */
+  public GraphBuilder(CommonSubexpressions commonSubexpressions) {
+    this.commonSubexpressions = commonSubexpressions;
+  }
+
   public Graph getGraph() {
     return graph;
   }
@@ -45,8 +59,12 @@ class GraphBuilder implements PCollectionImpl.Visitor {
   
   @Override
   public void visitInputCollection(BaseInputCollection<?> collection) {
-    Vertex v = graph.addVertex(collection, false);
-    graph.getEdge(v, workingVertex).addNodePath(workingPath.close(collection));
+    PCollectionImpl<?> input = collection;
+    if (commonSubexpressions != null) {
+      input = commonSubexpressions.getCanonical(collection);
+    }
+    Vertex v = graph.addVertex(input, false);
+    graph.getEdge(v, workingVertex).addNodePath(workingPath.close(input));
   }
 
   @Override
@@ -82,6 +100,9 @@ class GraphBuilder implements PCollectionImpl.Visitor {
   }
   
   private void processParent(PCollectionImpl<?> parent) {
+    if (commonSubexpressions != null) {
+      parent = commonSubexpressions.getCanonical(parent);
+    }
     Vertex v = graph.getVertexAt(parent);
     if (v == null) {
       parent.accept(this);
@@ -24,8 +24,10 @@ import java.util.Map;
 import java.util.Set;
 
 import org.apache.crunch.Pipeline;
+import org.apache.crunch.Source;
 import org.apache.crunch.Target;
 import org.apache.crunch.hadoop.mapreduce.lib.jobcontrol.CrunchControlledJob;
+import org.apache.crunch.impl.dist.collect.BaseInputCollection;
 import org.apache.crunch.impl.dist.collect.PCollectionImpl;
 import org.apache.crunch.impl.mr.collect.DoTable;
 import org.apache.crunch.impl.dist.collect.MRCollection;
@@ -37,6 +39,7 @@ import org.apache.crunch.impl.mr.run.CrunchMapper;
 import org.apache.crunch.impl.mr.run.CrunchReducer;
 import org.apache.crunch.impl.mr.run.NodeContext;
 import org.apache.crunch.impl.mr.run.RTNode;
+import org.apache.crunch.impl.mr.run.RuntimeParameters;
 import org.apache.crunch.types.PType;
 import org.apache.crunch.util.DistCache;
 import org.apache.hadoop.conf.Configuration;
@@ -67,6 +70,7 @@ class JobPrototype {
   private final Set<JobPrototype> dependencies = Sets.newHashSet();
   private final Map<PCollectionImpl<?>, DoNode> nodes = Maps.newHashMap();
   private final Path workingPath;
+  private final Set<String> metricsNodeNames = Sets.newHashSet();
 
   private HashMultimap<Target, NodePath> mapSideNodePaths;
   private HashMultimap<Target, NodePath> targetsToNodePaths;
@@ -198,6 +202,13 @@ class JobPrototype {
       group.configureShuffle(job);
 
       DoNode mapOutputNode = group.getGroupingNode();
+      if (combineFnTable != null && conf.getBoolean(PlanningParameters.IN_MAPPER_COMBINE, false)) {
+        DoNode inMapperCombineNode = combineFnTable.createInMapperCombineNode();
+        if (inMapperCombineNode != null) {
+          inMapperCombineNode.addChild(mapOutputNode);
+          mapOutputNode = inMapperCombineNode;
+        }
+      }
       Set<DoNode> mapNodes = Sets.newHashSet(mapSideNodes);
       for (NodePath nodePath : mapNodePaths) {
         // Advance these one step, since we've already configured
@@ -225,11 +236,64 @@ class JobPrototype {
     }
     job.setJobName(createJobName(conf, pipeline.getName(), inputNodes, reduceNode, numOfJobs));
 
-    return new CrunchControlledJob(
+    CrunchControlledJob controlledJob = new CrunchControlledJob(
         jobID,
         job,
-        new CrunchJobHooks.PrepareHook(job),
+        new CrunchJobHooks.PrepareHook(job, getShuffleScales(group, mapNodePaths)),
         new CrunchJobHooks.CompletionHook(job, outputPath, outputHandler.getMultiPaths(), group == null));
+    controlledJob.setEstimatedCost(getEstimatedCost());
+    return controlledJob;
+  }
+
+  /**
+   * Returns the estimated ratio between the number of bytes shuffled by a job with the given grouping
+   * and map-side paths and the size of each of its inputs, which is used to choose the number of
+   * reducers once the inputs have been written, or null if the number of reducers should not be chosen
+   * that way.
+   */
+  static Map<Source<?>, Float> getShuffleScales(PGroupedTableImpl<?, ?> group,
+      Iterable<NodePath> mapNodePaths) {
+    if (group == null || group.hasFixedNumReducers()) {
+      return null;
+    }
+    Map<Source<?>, Float> scales = Maps.newHashMap();
+    for (NodePath nodePath : mapNodePaths) {
+      if (!(nodePath.head() instanceof BaseInputCollection)) {
+        return null;
+      }
+      Source<?> source = ((BaseInputCollection<?>) nodePath.head()).getSource();
+      float scale = 1.0f;
+      for (PCollectionImpl<?> collect : nodePath) {
+        scale *= collect.getScaleFactor();
+      }
+      Float current = scales.get(source);
+      scales.put(source, current == null ? scale : current + scale);
+    }
+    return scales;
+  }
+
+  /**
+   * Estimates the number of bytes this job will process as the size of its shuffle for
+   * map-reduce jobs, or the size of its outputs for map-only jobs.
+   */
+  private long getEstimatedCost() {
+    try {
+      if (group != null) {
+        return group.getSize();
+      }
+      Set<PCollectionImpl<?>> outputs = Sets.newHashSet();
+      for (NodePath nodePath : targetsToNodePaths.values()) {
+        outputs.add(nodePath.tail());
+      }
+      long cost = 0L;
+      for (PCollectionImpl<?> output : outputs) {
+        cost = SplitCostModel.add(cost, Math.max(0L, output.getSize()));
+      }
+      return cost;
+    } catch (IllegalStateException e) {
+      // The inputs to this job may not exist until its upstream jobs have run.
+      return -1L;
+    }
   }
 
   private void serialize(List<DoNode> nodes, Configuration conf, Path workingPath, NodeContext context)
@@ -238,6 +302,9 @@ class JobPrototype {
     for (DoNode node : nodes) {
       rtNodes.add(node.toRTNode(true, conf, context));
     }
+    if (conf.getBoolean(RuntimeParameters.NODE_METRICS, false)) {
+      RTNode.assignMetricsNames(rtNodes, metricsNodeNames, conf.getInt(RuntimeParameters.NODE_METRICS_MAX_NODES, 10));
+    }
     Path path = new Path(workingPath, context.toString());
     DistCache.write(conf, path, rtNodes);
   }
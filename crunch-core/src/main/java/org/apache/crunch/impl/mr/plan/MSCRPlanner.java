@@ -25,6 +25,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.crunch.Source;
 import org.apache.crunch.SourceTarget;
 import org.apache.crunch.Target;
+import org.apache.crunch.impl.dist.collect.CommonSubexpressions;
 import org.apache.crunch.impl.dist.collect.PCollectionImpl;
 import org.apache.crunch.impl.mr.MRPipeline;
 import org.apache.crunch.impl.mr.collect.InputCollection;
@@ -86,7 +87,9 @@ public class MSCRPlanner {
       for (PCollectionImpl<?> pcollect : targetDeps.keySet()) {
         allTargets.addAll(outputs.get(pcollect));
       }
-      GraphBuilder graphBuilder = new GraphBuilder();
+      GraphBuilder graphBuilder = new GraphBuilder(
+          conf.getBoolean(PlanningParameters.COMMON_SUBEXPRESSION_ELIMINATION, false)
+              ? new CommonSubexpressions() : null);
       
       // Walk the current plan tree and build a graph in which the vertices are
       // sources, targets, and GBK operations.
@@ -113,7 +116,9 @@ public class MSCRPlanner {
       }
 
       // Create a new graph that splits up up dependent GBK nodes.
-      Graph graph = prepareFinalGraph(baseGraph);
+      SplitCostModel costModel = new SplitCostModel(outputs,
+          conf.getBoolean(PlanningParameters.COST_BASED_PLANNING, false));
+      Graph graph = prepareFinalGraph(baseGraph, costModel);
       
       // Break the graph up into connected components.
       List<List<Vertex>> components = graph.connectedComponents();
@@ -192,12 +197,13 @@ public class MSCRPlanner {
 
     String planDotFile = dotfileWriter.buildDotfile();
     exec.setPlanDotFile(planDotFile);
+    exec.setDotfileWriter(dotfileWriter);
     conf.set(PlanningParameters.PIPELINE_PLAN_DOTFILE, planDotFile);
 
     return exec;
   }
   
-  private Graph prepareFinalGraph(Graph baseGraph) {
+  private Graph prepareFinalGraph(Graph baseGraph, SplitCostModel costModel) {
     Graph graph = new Graph();
     
     for (Vertex baseVertex : baseGraph) {
@@ -249,10 +255,14 @@ public class MSCRPlanner {
           } else {
             // Execute an Edge split
             Vertex newGraphTail = graph.getVertexAt(e.getTail().getPCollection());
-            Map<NodePath, PCollectionImpl> splitPoints = e.getSplitPoints(outputs);
+            Map<NodePath, PCollectionImpl> splitPoints = e.getSplitPoints(costModel);
             for (Map.Entry<NodePath, PCollectionImpl> s : splitPoints.entrySet()) {
               NodePath path = s.getKey();
               PCollectionImpl split = s.getValue();
+              if (costModel.isCostBased() && LOG.isDebugEnabled()) {
+                LOG.debug("Splitting path " + path + " at " + split.getName() + " with estimated cost "
+                    + costModel.getCost(split));
+              }
               InputCollection<?> inputNode = handleSplitTarget(split);
               Vertex splitTail = graph.addVertex(split, true);
               Vertex splitHead = graph.addVertex(inputNode, false);
@@ -35,6 +35,36 @@ public final class PlanningParameters {
 
   public static final String JOB_NAME_MAX_STACK_LENGTH = "crunch.job.name.max.stack.length";
 
+  /**
+   * Configuration key for enabling cost-based planning, in which the planner chooses where to split
+   * chains of dependent GBK operations by minimizing the estimated number of intermediate bytes written
+   * and read back, rather than by the estimated size of the split collection alone. Defaults to false.
+   */
+  public static final String COST_BASED_PLANNING = "crunch.planner.cost.based";
+
+  /**
+   * Configuration key for enabling the merging of structurally identical collections (e.g., two branches that
+   * apply equivalent {@code DoFn}s to the same {@code Source}) so that they are only computed once. Defaults to false.
+   */
+  public static final String COMMON_SUBEXPRESSION_ELIMINATION = "crunch.planner.cse";
+
+  /**
+   * Configuration key for deciding whether outputs written with {@code Target.WriteMode.CHECKPOINT} can be
+   * reused by comparing a fingerprint of their inputs (paths, sizes, and modification times) and code
+   * ({@code DoFn}s, {@code PType}s, and grouping options) with the one stored alongside the output, rather
+   * than by comparing modification times. Only applies to file-based targets. Defaults to false.
+   */
+  public static final String CHECKPOINT_FINGERPRINTS = "crunch.checkpoint.fingerprint";
+
+  /**
+   * Configuration key for aggregating values in memory on the map side of jobs that group a table and
+   * then combine its values with an {@link org.apache.crunch.Aggregator}, in addition to running the
+   * combiner. The memory used is bounded by
+   * {@link org.apache.crunch.impl.mr.run.RuntimeParameters#IN_MAPPER_COMBINE_MAX_ENTRIES} and
+   * {@link org.apache.crunch.impl.mr.run.RuntimeParameters#IN_MAPPER_COMBINE_HEAP_FRACTION}. Defaults to false.
+   */
+  public static final String IN_MAPPER_COMBINE = "crunch.combine.inmapper";
+
   private PlanningParameters() {
   }
 }
@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mr.plan;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.crunch.SourceTarget;
+import org.apache.crunch.Target;
+import org.apache.crunch.impl.dist.collect.PCollectionImpl;
+
+/**
+ * Scores the candidate split points between two dependent GBK operations.
+ *
+ * <p>In the default mode, the score of a candidate is simply its estimated size, which is
+ * how the planner has always chosen split points. In cost-based mode (enabled via
+ * {@link PlanningParameters#COST_BASED_PLANNING}), the score is the estimated number of
+ * intermediate bytes written to and read back from the filesystem if the chain is split
+ * at that collection. A collection that is already being written to a readable target
+ * costs only the bytes needed to read it back, which lets the planner prefer splitting
+ * at existing outputs over materializing an additional intermediate collection.
+ */
+class SplitCostModel {
+
+  private final Map<PCollectionImpl<?>, Set<Target>> outputs;
+  private final boolean costBased;
+
+  SplitCostModel(Map<PCollectionImpl<?>, Set<Target>> outputs, boolean costBased) {
+    this.outputs = outputs;
+    this.costBased = costBased;
+  }
+
+  public boolean isCostBased() {
+    return costBased;
+  }
+
+  /**
+   * Returns the score for splitting a chain of dependent GBK operations at the given
+   * collection; lower scores are preferred.
+   */
+  public long getCost(PCollectionImpl<?> pc) {
+    if (!costBased) {
+      return pc.getSize();
+    }
+    long size = Math.max(0L, pc.getSize());
+    if (isWrittenAnyway(pc)) {
+      return size;
+    }
+    // The bytes of the intermediate output that is written plus the bytes that are read back.
+    return add(size, size);
+  }
+
+  /**
+   * Returns the sum of two costs, saturating at {@code Long.MAX_VALUE}.
+   */
+  static long add(long left, long right) {
+    long sum = left + right;
+    return sum < 0 ? Long.MAX_VALUE : sum;
+  }
+
+  boolean isWrittenAnyway(PCollectionImpl<?> pc) {
+    if (pc.getMaterializedAt() != null) {
+      return true;
+    }
+    Set<Target> targets = outputs.get(pc);
+    if (targets != null) {
+      for (Target t : targets) {
+        if (t instanceof SourceTarget || t.asSourceTarget(pc.getPType()) != null) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
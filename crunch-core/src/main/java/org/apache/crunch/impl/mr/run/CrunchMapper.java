@@ -23,6 +23,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.mapreduce.Mapper;
 
+import com.google.common.collect.Lists;
+
 public class CrunchMapper extends Mapper<Object, Object, Object, Object> {
 
   private static final Log LOG = LogFactory.getLog(CrunchMapper.class);
@@ -39,13 +41,24 @@ public class CrunchMapper extends Mapper<Object, Object, Object, Object> {
     }
     
     List<RTNode> nodes = ctxt.getNodes();
-    if (nodes.size() == 1) {
-      this.node = nodes.get(0);
-    } else {
+    int nodeIndex = 0;
+    if (nodes.size() > 1) {
       CrunchInputSplit split = (CrunchInputSplit) context.getInputSplit();
-      this.node = nodes.get(split.getNodeIndex());
+      nodeIndex = split.getNodeIndex();
+    }
+    this.node = nodes.get(nodeIndex);
+
+    int threads = ctxt.getMapThreads();
+    if (threads > 1 && !node.isLeafNode()) {
+      LOG.info("Processing map inputs with " + threads + " threads");
+      List<RTNode> workerCopies = Lists.newArrayListWithCapacity(threads);
+      for (int i = 0; i < threads; i++) {
+        workerCopies.add(ctxt.readNodes().get(nodeIndex));
+      }
+      this.node.initialize(ctxt, workerCopies);
+    } else {
+      this.node.initialize(ctxt);
     }
-    this.node.initialize(ctxt);
   }
 
   @Override
@@ -33,22 +33,44 @@ class CrunchTaskContext {
   private final TaskInputOutputContext<Object, Object, Object, Object> taskContext;
   private final NodeContext nodeContext;
   private final List<RTNode> nodes;
+  private final Object outputLock;
   private CrunchOutputs<Object, Object> multipleOutputs;
   
   public CrunchTaskContext(TaskInputOutputContext<Object, Object, Object, Object> taskContext,
       NodeContext nodeContext) {
     this.taskContext = taskContext;
     this.nodeContext = nodeContext;
+    this.nodes = readNodes();
+    this.outputLock = nodeContext == NodeContext.MAP && getMapThreads() > 1 ? new Object() : null;
+  }
+
+  /**
+   * Reads a new copy of the runtime nodes of this task, which does not share any state with the
+   * nodes returned by {@link #getNodes()}.
+   */
+  List<RTNode> readNodes() {
     Configuration conf = taskContext.getConfiguration();
     Path path = new Path(new Path(conf.get(PlanningParameters.CRUNCH_WORKING_DIRECTORY)),
         nodeContext.toString());
     try {
-      this.nodes = (List<RTNode>) DistCache.read(conf, path);
+      return (List<RTNode>) DistCache.read(conf, path);
     } catch (IOException e) {
       throw new CrunchRuntimeException("Could not read runtime node information", e);
     }
   }
 
+  int getMapThreads() {
+    return taskContext.getConfiguration().getInt(RuntimeParameters.MAP_THREADS, 1);
+  }
+
+  /**
+   * Returns the object that writes to the outputs of this task must be synchronized on, or null if
+   * the outputs are only written to from a single thread.
+   */
+  public Object getOutputLock() {
+    return outputLock;
+  }
+
   public TaskInputOutputContext<Object, Object, Object, Object> getContext() {
     return taskContext;
   }
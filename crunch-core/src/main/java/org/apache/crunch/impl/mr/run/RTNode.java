@@ -19,18 +19,26 @@ package org.apache.crunch.impl.mr.run;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.crunch.BatchDoFn;
 import org.apache.crunch.CrunchRuntimeException;
 import org.apache.crunch.DoFn;
 import org.apache.crunch.Emitter;
+import org.apache.crunch.PipelineResult.NodeResult;
 import org.apache.crunch.impl.mr.emit.IntermediateEmitter;
 import org.apache.crunch.impl.mr.emit.MultipleOutputEmitter;
 import org.apache.crunch.impl.mr.emit.OutputEmitter;
+import org.apache.crunch.impl.mr.emit.ParallelEmitter;
+import org.apache.crunch.impl.mr.emit.SynchronizedEmitter;
 import org.apache.crunch.types.Converter;
 import org.apache.crunch.types.PType;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+
+import com.google.common.collect.Lists;
 
 public class RTNode implements Serializable {
 
@@ -43,8 +51,17 @@ public class RTNode implements Serializable {
   private final Converter inputConverter;
   private final Converter outputConverter;
   private final String outputName;
+  private String metricsName;
 
   private transient Emitter<Object> emitter;
+  private transient List<RTNode> workerCopies;
+
+  // Runtime metrics, only collected when RuntimeParameters.NODE_METRICS is enabled
+  private transient TaskInputOutputContext<?, ?, ?, ?> metricsContext;
+  private transient long recordsIn;
+  private transient long recordsOut;
+  private transient long inclusiveNanos;
+  private transient long emitNanos;
 
   public RTNode(DoFn<Object, Object> fn,
       PType<Object> outputPType,
@@ -63,13 +80,45 @@ public class RTNode implements Serializable {
   }
 
   public void initialize(CrunchTaskContext ctxt) {
+    initialize(ctxt, null);
+  }
+
+  /**
+   * Chooses the names that the given nodes and their descendants report their runtime metrics under.
+   * Nodes get counters of their own until there are {@code maxNodes} distinct names in the job, and
+   * the metrics of any further nodes are added up under {@link NodeResult#OTHER_NODES}.
+   *
+   * @param nodes The nodes of a task of the job
+   * @param assigned The names that have been given to the nodes of the job so far, which is updated
+   * @param maxNodes The maximum number of distinct names in the job
+   */
+  public static void assignMetricsNames(List<RTNode> nodes, Set<String> assigned, int maxNodes) {
+    for (RTNode node : nodes) {
+      String name = NodeResult.getMetricsNodeName(node.nodeName);
+      if (assigned.contains(name) || assigned.size() < maxNodes) {
+        assigned.add(name);
+        node.metricsName = name;
+      } else {
+        node.metricsName = NodeResult.OTHER_NODES;
+      }
+      assignMetricsNames(node.children, assigned, maxNodes);
+    }
+  }
+
+  /**
+   * Initializes this node so that the outputs of its {@code DoFn} are processed on a pool of worker
+   * threads, one per given copy of this node. Each worker thread uses the children of its copy, so
+   * that the downstream {@code DoFn}s are never shared between threads.
+   */
+  void initialize(CrunchTaskContext ctxt, List<RTNode> workerCopies) {
     if (emitter != null) {
       // Already initialized
       return;
     }
     fn.setContext(ctxt.getContext());
     fn.initialize();
-    for (RTNode child : children) {
+    this.workerCopies = workerCopies;
+    for (RTNode child : getActiveChildren()) {
       child.initialize(ctxt);
     }
 
@@ -80,20 +129,61 @@ public class RTNode implements Serializable {
       } else {
         this.emitter = new OutputEmitter(outputConverter, ctxt.getContext());
       }
+      Object outputLock = ctxt.getOutputLock();
+      if (outputLock != null) {
+        this.emitter = new SynchronizedEmitter<Object>(emitter, outputLock);
+      }
     } else if (!children.isEmpty()) {
       Configuration conf = ctxt.getContext().getConfiguration();
-      boolean disableDeepCopy = conf.getBoolean(RuntimeParameters.DISABLE_DEEP_COPY, false);
-      this.emitter = new IntermediateEmitter(outputPType, children, conf, disableDeepCopy || fn.disableDeepCopy());
+      boolean disableDeepCopy = conf.getBoolean(RuntimeParameters.DISABLE_DEEP_COPY, false)
+          || fn.disableDeepCopy();
+      if (workerCopies != null) {
+        List<Emitter<Object>> workerEmitters = Lists.newArrayList();
+        for (RTNode copy : workerCopies) {
+          workerEmitters.add(new IntermediateEmitter(copy.outputPType, copy.children, conf, disableDeepCopy));
+        }
+        int queueSize = conf.getInt(RuntimeParameters.MAP_THREADS_QUEUE_SIZE, 1024);
+        this.emitter = new ParallelEmitter(outputPType, workerEmitters, conf, queueSize);
+      } else {
+        this.emitter = new IntermediateEmitter(outputPType, children, conf, disableDeepCopy);
+      }
     } else {
       throw new CrunchRuntimeException("Invalid RTNode config: no emitter for: " + nodeName);
     }
+
+    if (ctxt.getContext().getConfiguration().getBoolean(RuntimeParameters.NODE_METRICS, false)) {
+      this.metricsContext = ctxt.getContext();
+      this.emitter = new MetricsEmitter(emitter);
+    }
   }
 
   public boolean isLeafNode() {
     return outputConverter != null && children.isEmpty();
   }
 
+  /**
+   * Returns true if this node neither modifies nor retains the values passed to it, so that it can
+   * safely be given the same instance as its sibling nodes. This is the case for leaf nodes, which
+   * only convert their input and write it out before returning.
+   */
+  public boolean isReadOnlyConsumer() {
+    return isLeafNode();
+  }
+
+  /**
+   * Returns true if this node's {@code DoFn} can process its inputs in batches via
+   * {@link #processBatch(List)}.
+   */
+  public boolean isBatchConsumer() {
+    return fn instanceof BatchDoFn;
+  }
+
+  public int getBatchSize() {
+    return ((BatchDoFn<Object, Object>) fn).batchSize();
+  }
+
   public void process(Object input) {
+    long start = metricsContext != null ? System.nanoTime() : 0L;
     try {
       fn.process(input, emitter);
     } catch (CrunchRuntimeException e) {
@@ -102,6 +192,29 @@ public class RTNode implements Serializable {
         e.markLogged();
       }
       throw e;
+    } finally {
+      if (metricsContext != null) {
+        recordsIn++;
+        inclusiveNanos += System.nanoTime() - start;
+      }
+    }
+  }
+
+  public void processBatch(List<Object> inputs) {
+    long start = metricsContext != null ? System.nanoTime() : 0L;
+    try {
+      ((BatchDoFn<Object, Object>) fn).processBatch(inputs, emitter);
+    } catch (CrunchRuntimeException e) {
+      if (!e.wasLogged()) {
+        LOG.info(String.format("Crunch exception in '%s' for batch of %d inputs", nodeName, inputs.size()), e);
+        e.markLogged();
+      }
+      throw e;
+    } finally {
+      if (metricsContext != null) {
+        recordsIn += inputs.size();
+        inclusiveNanos += System.nanoTime() - start;
+      }
     }
   }
 
@@ -114,13 +227,80 @@ public class RTNode implements Serializable {
   }
 
   public void cleanup() {
+    long start = metricsContext != null ? System.nanoTime() : 0L;
     fn.cleanup(emitter);
     emitter.flush();
-    for (RTNode child : children) {
+    if (metricsContext != null) {
+      inclusiveNanos += System.nanoTime() - start;
+      reportMetrics();
+    }
+    for (RTNode child : getActiveChildren()) {
       child.cleanup();
     }
   }
 
+  private List<RTNode> getActiveChildren() {
+    if (workerCopies == null) {
+      return children;
+    }
+    List<RTNode> active = Lists.newArrayList();
+    for (RTNode copy : workerCopies) {
+      active.addAll(copy.children);
+    }
+    return active;
+  }
+
+  private void reportMetrics() {
+    increment(NodeResult.RECORDS_IN, recordsIn);
+    increment(NodeResult.RECORDS_OUT, recordsOut);
+    increment(NodeResult.INCLUSIVE_NANOS, inclusiveNanos);
+    increment(NodeResult.EXCLUSIVE_NANOS, Math.max(0L, inclusiveNanos - emitNanos));
+    recordsIn = recordsOut = inclusiveNanos = emitNanos = 0L;
+  }
+
+  private void increment(String metric, long value) {
+    metricsContext.getCounter(NodeResult.COUNTER_GROUP, NodeResult.getCounterName(metric, getMetricsName()))
+        .increment(value);
+  }
+
+  String getMetricsName() {
+    return metricsName != null ? metricsName : NodeResult.getMetricsNodeName(nodeName);
+  }
+
+  /**
+   * Counts the records emitted by this node's {@code DoFn} and the time spent in downstream
+   * nodes, so that the time spent in the {@code DoFn} itself can be separated out.
+   */
+  private class MetricsEmitter implements Emitter<Object> {
+
+    private final Emitter<Object> delegate;
+
+    MetricsEmitter(Emitter<Object> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void emit(Object emitted) {
+      long start = System.nanoTime();
+      try {
+        delegate.emit(emitted);
+      } finally {
+        recordsOut++;
+        emitNanos += System.nanoTime() - start;
+      }
+    }
+
+    @Override
+    public void flush() {
+      long start = System.nanoTime();
+      try {
+        delegate.flush();
+      } finally {
+        emitNanos += System.nanoTime() - start;
+      }
+    }
+  }
+
   @Override
   public String toString() {
     return "RTNode [nodeName=" + nodeName + ", fn=" + fn + ", children=" + children + ", inputConverter="
@@ -43,6 +43,78 @@ public final class RuntimeParameters {
 
   public static final String MAX_RUNNING_JOBS = "crunch.max.running.jobs";
 
+  /**
+   * Runtime property which indicates that the number of reducers for a job should be re-estimated
+   * from the actual sizes of its inputs right before the job is submitted, rather than only from
+   * the estimates made when the pipeline was planned. Defaults to {@code true}.
+   */
+  public static final String RUNTIME_REDUCER_ESTIMATE = "crunch.runtime.reducer.estimate";
+
+  /**
+   * Runtime property naming the {@link org.apache.crunch.hadoop.mapreduce.lib.jobcontrol.JobSchedulingPolicy}
+   * that decides the order in which ready jobs are submitted when more jobs are ready than can be
+   * run at once. Defaults to the
+   * {@link org.apache.crunch.hadoop.mapreduce.lib.jobcontrol.CriticalPathSchedulingPolicy}.
+   */
+  public static final String JOB_SCHEDULING_POLICY = "crunch.job.scheduling.policy";
+
+  /**
+   * Runtime property for the Hadoop job priority ({@code VERY_HIGH}, {@code HIGH}, {@code NORMAL},
+   * {@code LOW} or {@code VERY_LOW}) of all of the jobs submitted by a pipeline, which lets the cluster
+   * scheduler prioritize between concurrently running pipelines.
+   */
+  public static final String JOB_PRIORITY = "crunch.job.priority";
+
+  /**
+   * Runtime property which enables collecting the number of records read and written and the time spent
+   * by each {@code DoFn} in the map and reduce tasks. The metrics are reported as counters and are available
+   * from {@link org.apache.crunch.PipelineResult.StageResult#getNodeResults()}. Defaults to {@code false}.
+   */
+  public static final String NODE_METRICS = "crunch.node.metrics";
+
+  /**
+   * Runtime property for the maximum number of distinct nodes in each job that get their own counters
+   * when {@link #NODE_METRICS} is enabled. Each node uses four counters, and the metrics of the remaining
+   * nodes are added up under a single node, so that jobs stay within the counter limits of Hadoop.
+   * Defaults to 10.
+   */
+  public static final String NODE_METRICS_MAX_NODES = "crunch.node.metrics.max.nodes";
+
+  /**
+   * Runtime property for the number of threads that each map task uses to run the {@code DoFn}s that
+   * follow the input of the task. Each thread runs its own copies of the {@code DoFn}s, and the order
+   * in which they process their inputs is not preserved. Defaults to 1, which runs everything on the
+   * thread of the map task.
+   */
+  public static final String MAP_THREADS = "crunch.map.threads";
+
+  /**
+   * Runtime property for the maximum number of inputs that are waiting to be processed by the threads
+   * of a map task when {@link #MAP_THREADS} is greater than 1. Defaults to 1024.
+   */
+  public static final String MAP_THREADS_QUEUE_SIZE = "crunch.map.threads.queue.size";
+
+  /**
+   * Runtime property for the maximum number of keys that are aggregated in memory by a map task when
+   * {@link org.apache.crunch.impl.mr.plan.PlanningParameters#IN_MAPPER_COMBINE} is enabled, before the
+   * partial aggregates are written out. Defaults to 100000.
+   */
+  public static final String IN_MAPPER_COMBINE_MAX_ENTRIES = "crunch.combine.inmapper.max.entries";
+
+  /**
+   * Runtime property for the fraction of the heap that is left after the map output buffer
+   * ({@code io.sort.mb}) that the values aggregated in memory by a map task may take up before they
+   * are written out. The size of the aggregated values is estimated from their number using
+   * {@link #IN_MAPPER_COMBINE_BYTES_PER_ENTRY}. Defaults to 0.5.
+   */
+  public static final String IN_MAPPER_COMBINE_HEAP_FRACTION = "crunch.combine.inmapper.heap.fraction";
+
+  /**
+   * Runtime property for the estimated number of heap bytes taken up by each key that is aggregated in
+   * memory by a map task, including its partial aggregate. Defaults to 256.
+   */
+  public static final String IN_MAPPER_COMBINE_BYTES_PER_ENTRY = "crunch.combine.inmapper.bytes.per.entry";
+
   // Not instantiated
   private RuntimeParameters() {
   }
@@ -116,7 +116,7 @@ public class AvroPathPerKeyTarget extends FileTargetImpl {
         }
       }
     }
-    dstFs.create(getSuccessIndicator(), true).close();
+    markSuccessful(dstFs);
   }
 
   @Override
@@ -39,6 +39,8 @@ import org.apache.crunch.io.SourceTargetHelper;
 import org.apache.crunch.types.Converter;
 import org.apache.crunch.types.PType;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.FileUtil;
 import org.apache.hadoop.fs.Path;
@@ -52,6 +54,7 @@ public class FileTargetImpl implements PathTarget {
   protected final Path path;
   private final FormatBundle<? extends FileOutputFormat> formatBundle;
   private final FileNamingScheme fileNamingScheme;
+  private String fingerprint;
 
   public FileTargetImpl(Path path, Class<? extends FileOutputFormat> outputFormatClass,
                         FileNamingScheme fileNamingScheme) {
@@ -136,12 +139,32 @@ public class FileTargetImpl implements PathTarget {
         FileUtil.copy(srcFs, s, dstFs, d, true, true, conf);
       }
     }
-    dstFs.create(getSuccessIndicator(), true).close();
+    markSuccessful(dstFs);
+  }
+
+  /**
+   * Marks the output at the path of this target as complete. Subclasses that override
+   * {@link #handleOutputs(Configuration, Path, int)} must call this once all of the outputs are in place,
+   * so that the fingerprint of a checkpoint is stored along with the success indicator.
+   *
+   * @param fs The filesystem of the path of this target
+   */
+  protected void markSuccessful(FileSystem fs) throws IOException {
+    if (fingerprint != null) {
+      FSDataOutputStream out = fs.create(getFingerprintFile(), true);
+      out.writeUTF(fingerprint);
+      out.close();
+    }
+    fs.create(getSuccessIndicator(), true).close();
   }
   
   protected Path getSuccessIndicator() {
     return new Path(path, "_SUCCESS");
   }
+
+  protected Path getFingerprintFile() {
+    return new Path(path, "_FINGERPRINT");
+  }
   
   protected Path getSourcePattern(Path workingPath, int index) {
     if (index < 0) {
@@ -296,4 +319,42 @@ public class FileTargetImpl implements PathTarget {
     return exists;
   }
 
+  /**
+   * Handles the {@code CHECKPOINT} write mode by comparing a fingerprint of the inputs and code that
+   * produce this target with the fingerprint stored alongside the existing output, instead of comparing
+   * modification times. The fingerprint is stored with the output once it has been written.
+   *
+   * @param fingerprint the fingerprint of the collection that is written to this target
+   * @param conf the configuration to use for accessing the filesystem
+   * @return true if the existing output was produced from the same inputs and code and can be reused
+   */
+  public boolean handleExistingCheckpoint(String fingerprint, Configuration conf) {
+    this.fingerprint = fingerprint;
+    try {
+      FileSystem fs = path.getFileSystem(conf);
+      if (!fs.exists(path)) {
+        LOG.info("Will write output files to new path: " + path);
+        return false;
+      }
+      String existing = null;
+      if (fs.exists(getSuccessIndicator()) && fs.exists(getFingerprintFile())) {
+        FSDataInputStream in = fs.open(getFingerprintFile());
+        try {
+          existing = in.readUTF();
+        } finally {
+          in.close();
+        }
+      }
+      if (fingerprint.equals(existing)) {
+        LOG.info("Re-starting pipeline from checkpoint path: " + path);
+        return true;
+      }
+      LOG.info("Inputs or code have changed, removing data at existing checkpoint path: " + path);
+      fs.delete(path, true);
+      return false;
+    } catch (IOException e) {
+      LOG.error("Exception checking checkpoint at path: " + path, e);
+      throw new CrunchRuntimeException(e);
+    }
+  }
 }
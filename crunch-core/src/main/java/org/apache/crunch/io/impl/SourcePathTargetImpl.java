@@ -46,6 +46,13 @@ public class SourcePathTargetImpl<T> extends SourceTargetImpl<T> implements Path
     return ((PathTarget) target).getPath();
   }
 
+  /**
+   * Returns the {@code PathTarget} that outputs written to this instance are delegated to.
+   */
+  public PathTarget getPathTarget() {
+    return (PathTarget) target;
+  }
+
   @Override
   public FileNamingScheme getFileNamingScheme() {
     return fileNamingScheme;
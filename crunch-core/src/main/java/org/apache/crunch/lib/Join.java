@@ -19,12 +19,18 @@ package org.apache.crunch.lib;
 
 import org.apache.crunch.PTable;
 import org.apache.crunch.Pair;
+import org.apache.crunch.lib.join.AutoJoinStrategy;
 import org.apache.crunch.lib.join.DefaultJoinStrategy;
+import org.apache.crunch.lib.join.JoinStrategy;
 import org.apache.crunch.lib.join.JoinType;
 
 /**
  * Utilities for joining multiple {@code PTable} instances based on a common
  * lastKey.
+ * <p>
+ * Joins are performed using the {@link DefaultJoinStrategy}, unless the
+ * {@link AutoJoinStrategy#ENABLED} property is set in the pipeline's configuration,
+ * in which case the {@link AutoJoinStrategy} is used.
  */
 public class Join {
   
@@ -67,7 +73,7 @@ public class Join {
    * @return The joined result.
    */
   public static <K, U, V> PTable<K, Pair<U, V>> innerJoin(PTable<K, U> left, PTable<K, V> right) {
-    return new DefaultJoinStrategy<K, U, V>().join(left, right, JoinType.INNER_JOIN);
+    return Join.<K, U, V>getDefaultStrategy(left).join(left, right, JoinType.INNER_JOIN);
   }
 
   /**
@@ -89,7 +95,7 @@ public class Join {
    * @return The joined result.
    */
   public static <K, U, V> PTable<K, Pair<U, V>> leftJoin(PTable<K, U> left, PTable<K, V> right) {
-    return new DefaultJoinStrategy<K, U, V>().join(left, right, JoinType.LEFT_OUTER_JOIN);
+    return Join.<K, U, V>getDefaultStrategy(left).join(left, right, JoinType.LEFT_OUTER_JOIN);
   }
 
   /**
@@ -112,7 +118,7 @@ public class Join {
    * @return The joined result.
    */
   public static <K, U, V> PTable<K, Pair<U, V>> rightJoin(PTable<K, U> left, PTable<K, V> right) {
-    return new DefaultJoinStrategy<K, U, V>().join(left, right, JoinType.RIGHT_OUTER_JOIN);
+    return Join.<K, U, V>getDefaultStrategy(left).join(left, right, JoinType.RIGHT_OUTER_JOIN);
   }
 
   /**
@@ -133,8 +139,13 @@ public class Join {
    * @return The joined result.
    */
   public static <K, U, V> PTable<K, Pair<U, V>> fullJoin(PTable<K, U> left, PTable<K, V> right) {
-    return new DefaultJoinStrategy<K, U, V>().join(left, right, JoinType.FULL_OUTER_JOIN);
+    return Join.<K, U, V>getDefaultStrategy(left).join(left, right, JoinType.FULL_OUTER_JOIN);
   }
 
-  
+  private static <K, U, V> JoinStrategy<K, U, V> getDefaultStrategy(PTable<K, U> left) {
+    if (left.getPipeline().getConfiguration().getBoolean(AutoJoinStrategy.ENABLED, false)) {
+      return new AutoJoinStrategy<K, U, V>();
+    }
+    return new DefaultJoinStrategy<K, U, V>();
+  }
 }
@@ -38,6 +38,7 @@ final class SampleUtils {
   static class SampleFn<S> extends FilterFn<S> {
 
     private final Long seed;
+    private final boolean seeded;
     private final double acceptanceProbability;
     private transient Random r;
 
@@ -48,9 +49,15 @@ final class SampleUtils {
       } else {
         this.seed = seed;
       }
+      this.seeded = seed != null;
       this.acceptanceProbability = acceptanceProbability;
     }
 
+    @Override
+    public boolean isDeterministic() {
+      return seeded;
+    }
+
     @Override
     public void initialize() {
       if (r == null) {
@@ -79,6 +86,11 @@ final class SampleUtils {
       this.seed = seed;
       this.valueType = valueType;
     }
+
+    @Override
+    public boolean isDeterministic() {
+      return seed != null;
+    }
     
     @Override
     public void initialize() {
@@ -28,9 +28,11 @@ import org.apache.crunch.PGroupedTable;
 import org.apache.crunch.PTable;
 import org.apache.crunch.Pair;
 import org.apache.crunch.lib.join.JoinUtils;
+import org.apache.crunch.lib.sort.AvroRawComparator;
 import org.apache.crunch.types.PTableType;
 import org.apache.crunch.types.PType;
 import org.apache.crunch.types.PTypeFamily;
+import org.apache.crunch.types.avro.AvroTypeFamily;
 import org.apache.hadoop.conf.Configuration;
 
 /**
@@ -104,6 +106,10 @@ public class SecondarySort {
         .requireSortedKeys()
         .groupingComparatorClass(JoinUtils.getGroupingComparator(ptf))
         .partitionerClass(JoinUtils.getPartitionerClass(ptf));
+    if (ptf == AvroTypeFamily.getInstance()) {
+      // Compares the encoded (key, secondary key) records without decoding them
+      gob.sortComparatorClass(AvroRawComparator.class);
+    }
     if (numReducers > 0) {
       gob.numReducers(numReducers);
     }
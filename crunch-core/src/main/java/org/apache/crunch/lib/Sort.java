@@ -17,7 +17,6 @@
  */
 package org.apache.crunch.lib;
 
-import org.apache.avro.Schema;
 import org.apache.crunch.DoFn;
 import org.apache.crunch.Emitter;
 import org.apache.crunch.GroupingOptions;
@@ -31,7 +30,7 @@ import org.apache.crunch.Tuple4;
 import org.apache.crunch.TupleN;
 import org.apache.crunch.lib.sort.SortFns;
 import org.apache.crunch.lib.sort.TotalOrderPartitioner;
-import org.apache.crunch.lib.sort.ReverseAvroComparator;
+import org.apache.crunch.lib.sort.AvroRawComparator;
 import org.apache.crunch.lib.sort.ReverseWritableComparator;
 import org.apache.crunch.lib.sort.TupleWritableComparator;
 import org.apache.crunch.materialize.MaterializableIterable;
@@ -226,19 +225,14 @@ public class Sort {
     PType<K> ptype = ptable.getKeyType();
     PTypeFamily tf = ptable.getTypeFamily();
     GroupingOptions.Builder builder = GroupingOptions.builder();
-    if (order == Order.DESCENDING) {
+    if (tf == AvroTypeFamily.getInstance()) {
+      configureAvroComparator(builder, (AvroType<K>) ptype, order == Order.DESCENDING);
+    } else if (order == Order.DESCENDING) {
       if (tf == WritableTypeFamily.getInstance()) {
         builder.sortComparatorClass(ReverseWritableComparator.class);
-      } else if (tf == AvroTypeFamily.getInstance()) {
-        AvroType<K> avroType = (AvroType<K>) ptype;
-        Schema schema = avroType.getSchema();
-        builder.conf("crunch.schema", schema.toString());
-        builder.sortComparatorClass(ReverseAvroComparator.class);
       } else {
         throw new RuntimeException("Unrecognized type family: " + tf);
       }
-    } else if (tf == AvroTypeFamily.getInstance()) {
-      builder.conf("crunch.schema", ((AvroType<K>) ptype).getSchema().toString());
     }
     builder.requireSortedKeys();
     configureReducers(builder, ptable, conf, numReducers);
@@ -262,12 +256,9 @@ public class Sort {
         builder.sortComparatorClass(TupleWritableComparator.class);
       }
     } else if (tf == AvroTypeFamily.getInstance()) {
-      AvroType<K> avroType = (AvroType<K>) keyType;
-      Schema schema = avroType.getSchema();
-      builder.conf("crunch.schema", schema.toString());
-      if (columnOrders.length == 1 && columnOrders[0].order == Order.DESCENDING) {
-        builder.sortComparatorClass(ReverseAvroComparator.class);
-      }
+      // The orders of multiple columns are part of the schema of the key record
+      configureAvroComparator(builder, (AvroType<K>) keyType,
+          columnOrders.length == 1 && columnOrders[0].order == Order.DESCENDING);
     } else {
       throw new RuntimeException("Unrecognized type family: " + tf);
     }
@@ -276,6 +267,15 @@ public class Sort {
     return builder.build();
   }
 
+  private static <K> void configureAvroComparator(GroupingOptions.Builder builder, AvroType<K> keyType,
+      boolean reverse) {
+    builder.conf(AvroRawComparator.SCHEMA, keyType.getSchema().toString());
+    if (reverse) {
+      builder.conf(AvroRawComparator.REVERSE, "true");
+    }
+    builder.sortComparatorClass(AvroRawComparator.class);
+  }
+
   private static <K, V> void configureReducers(GroupingOptions.Builder builder,
       PTable<K, V> ptable, Configuration conf, int numReducers) {
     if (numReducers <= 0) {
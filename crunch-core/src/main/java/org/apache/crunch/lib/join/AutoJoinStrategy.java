@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.lib.join;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.crunch.PTable;
+import org.apache.crunch.Pair;
+import org.apache.crunch.lib.join.ShardedJoinStrategy.ShardingStrategy;
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * Join strategy that chooses how to perform each join based on the estimated sizes of the
+ * tables being joined.
+ * <p>
+ * The strategy is chosen in the following order of preference:
+ * <ol>
+ *   <li>A {@link MapsideJoinStrategy} when the side of the join that would be loaded into memory
+ *   is estimated to be no larger than {@link #MAPSIDE_MAX_BYTES} bytes.</li>
+ *   <li>A {@link BloomFilterJoinStrategy} when the expected number of unique keys in the left
+ *   table is known and the right table is at least {@link #BLOOM_FILTER_SIZE_RATIO} times larger
+ *   than the left table.</li>
+ *   <li>A {@link ShardedJoinStrategy} when a {@link ShardingStrategy} for skewed keys is given.</li>
+ *   <li>The {@link DefaultJoinStrategy} otherwise.</li>
+ * </ol>
+ * Strategies that do not support the requested {@link JoinType} are skipped. The thresholds are read
+ * from the {@code Configuration} of the pipeline that the left table belongs to.
+ * <p>
+ * The {@link org.apache.crunch.lib.Join} methods (and {@link PTable#join(PTable)}) will use this strategy
+ * instead of the {@code DefaultJoinStrategy} when {@link #ENABLED} is set to true.
+ */
+public class AutoJoinStrategy<K, U, V> implements JoinStrategy<K, U, V> {
+
+  private static final Log LOG = LogFactory.getLog(AutoJoinStrategy.class);
+
+  /**
+   * Configuration key for making {@code AutoJoinStrategy} the default strategy for joins
+   * performed via {@link org.apache.crunch.lib.Join}. Defaults to false.
+   */
+  public static final String ENABLED = "crunch.join.auto";
+
+  /**
+   * Configuration key for the maximum estimated size, in bytes, of a table that will be loaded into
+   * memory in order to perform a map-side join.
+   */
+  public static final String MAPSIDE_MAX_BYTES = "crunch.join.auto.mapside.max.bytes";
+
+  public static final long DEFAULT_MAPSIDE_MAX_BYTES = 64L * 1024L * 1024L;
+
+  /**
+   * Configuration key for the minimum ratio between the estimated sizes of the right and left tables
+   * for a Bloom filter join to be used.
+   */
+  public static final String BLOOM_FILTER_SIZE_RATIO = "crunch.join.auto.bloomfilter.ratio";
+
+  public static final float DEFAULT_BLOOM_FILTER_SIZE_RATIO = 10.0f;
+
+  private final int expectedLeftKeys;
+  private final ShardingStrategy<K> shardingStrategy;
+  private final int numReducers;
+
+  /**
+   * Instantiate a strategy that chooses between map-side and reduce-side joins.
+   */
+  public AutoJoinStrategy() {
+    this(-1);
+  }
+
+  /**
+   * Instantiate a strategy that may also choose a Bloom filter join, given the expected number of
+   * unique keys in the left table (e.g., as determined by sampling).
+   *
+   * @param expectedLeftKeys expected number of unique keys in the left table, or a non-positive value if unknown
+   */
+  public AutoJoinStrategy(int expectedLeftKeys) {
+    this(expectedLeftKeys, null, -1);
+  }
+
+  /**
+   * Instantiate a strategy that may choose any of the available join strategies.
+   *
+   * @param expectedLeftKeys expected number of unique keys in the left table, or a non-positive value if unknown
+   * @param shardingStrategy sharding strategy to use for skewed keys, or null to never use a sharded join
+   * @param numReducers number of reducers to use for reduce-side joins, or a non-positive value for the default
+   */
+  public AutoJoinStrategy(int expectedLeftKeys, ShardingStrategy<K> shardingStrategy, int numReducers) {
+    this.expectedLeftKeys = expectedLeftKeys;
+    this.shardingStrategy = shardingStrategy;
+    this.numReducers = numReducers;
+  }
+
+  @Override
+  public PTable<K, Pair<U, V>> join(PTable<K, U> left, PTable<K, V> right, JoinType joinType) {
+    JoinStrategy<K, U, V> strategy = chooseStrategy(left, right, joinType);
+    LOG.info("Using " + strategy.getClass().getSimpleName() + " for " + joinType + " of "
+        + left.getName() + " and " + right.getName());
+    return strategy.join(left, right, joinType);
+  }
+
+  @SuppressWarnings("deprecation")
+  JoinStrategy<K, U, V> chooseStrategy(PTable<K, U> left, PTable<K, V> right, JoinType joinType) {
+    Configuration conf = left.getPipeline().getConfiguration();
+    long mapsideMaxBytes = conf.getLong(MAPSIDE_MAX_BYTES, DEFAULT_MAPSIDE_MAX_BYTES);
+    float bloomFilterRatio = conf.getFloat(BLOOM_FILTER_SIZE_RATIO, DEFAULT_BLOOM_FILTER_SIZE_RATIO);
+    long leftSize = left.getSize();
+    long rightSize = right.getSize();
+
+    boolean canLoadLeft = joinType == JoinType.INNER_JOIN || joinType == JoinType.RIGHT_OUTER_JOIN;
+    boolean canLoadRight = joinType == JoinType.INNER_JOIN || joinType == JoinType.LEFT_OUTER_JOIN;
+    if (canLoadRight && rightSize <= mapsideMaxBytes && (!canLoadLeft || rightSize <= leftSize)) {
+      return new MapsideJoinStrategy<K, U, V>(true);
+    }
+    if (canLoadLeft && leftSize <= mapsideMaxBytes) {
+      return MapsideJoinStrategy.create(true);
+    }
+
+    if (expectedLeftKeys > 0 && canLoadRight && leftSize * bloomFilterRatio <= rightSize) {
+      return new BloomFilterJoinStrategy<K, U, V>(expectedLeftKeys, 0.05f,
+          new DefaultJoinStrategy<K, U, V>(numReducers));
+    }
+
+    if (shardingStrategy != null
+        && (joinType == JoinType.INNER_JOIN || joinType == JoinType.RIGHT_OUTER_JOIN)) {
+      return new ShardedJoinStrategy<K, U, V>(shardingStrategy);
+    }
+
+    return new DefaultJoinStrategy<K, U, V>(numReducers);
+  }
+}
@@ -274,17 +274,19 @@ public class BloomFilterJoinStrategy<K, U, V> implements JoinStrategy<K, U, V> {
   private static class WritableToBytesFn<T> extends MapFn<T,byte[]>{
     
     private WritableType<T,?> ptype;
+    private MapFn<T, ?> outputFn;
     private DataOutputBuffer dataOutputBuffer;
     
     WritableToBytesFn(WritableType<T,?> ptype, Configuration conf) {
       this.ptype = ptype;
+      this.outputFn = ptype.getOutputMapFn();
       dataOutputBuffer = new DataOutputBuffer();
     }
 
     @Override
     public byte[] map(T input) {
       dataOutputBuffer.reset();
-      Writable writable = (Writable) ptype.getOutputMapFn().map(input);
+      Writable writable = (Writable) outputFn.map(input);
       try {
         writable.write(dataOutputBuffer);
       } catch (IOException e) {
@@ -19,12 +19,12 @@ package org.apache.crunch.lib.join;
 
 import org.apache.avro.Schema;
 import org.apache.avro.generic.IndexedRecord;
-import org.apache.avro.io.BinaryData;
 import org.apache.avro.mapred.AvroJob;
 import org.apache.avro.mapred.AvroKey;
 import org.apache.avro.mapred.AvroValue;
 import org.apache.avro.mapred.AvroWrapper;
 import org.apache.avro.reflect.ReflectData;
+import org.apache.crunch.lib.sort.AvroRawComparator;
 import org.apache.crunch.types.PTypeFamily;
 import org.apache.crunch.types.writable.TupleWritable;
 import org.apache.crunch.types.writable.WritableTypeFamily;
@@ -108,6 +108,7 @@ public class JoinUtils {
 
   public static class AvroPairGroupingComparator<T> extends Configured implements RawComparator<AvroWrapper<T>> {
     private Schema schema;
+    private AvroRawComparator rawComparator;
 
     @Override
     public void setConf(Configuration conf) {
@@ -116,6 +117,8 @@ public class JoinUtils {
         Schema mapOutputSchema = AvroJob.getMapOutputSchema(conf);
         Schema keySchema = org.apache.avro.mapred.Pair.getKeySchema(mapOutputSchema);
         schema = keySchema.getFields().get(0).schema();
+        // The first field of the key record is encoded at the start of its bytes
+        rawComparator = new AvroRawComparator(schema, false);
       }
     }
 
@@ -126,7 +129,7 @@ public class JoinUtils {
 
     @Override
     public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
-      return BinaryData.compare(b1, s1, l1, b2, s2, l2, schema);
+      return rawComparator.compare(b1, s1, l1, b2, s2, l2);
     }
   }
 }
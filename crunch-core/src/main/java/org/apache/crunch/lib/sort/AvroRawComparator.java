@@ -0,0 +1,447 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.lib.sort;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.mapred.AvroJob;
+import org.apache.avro.mapred.AvroWrapper;
+import org.apache.avro.mapred.Pair;
+import org.apache.avro.reflect.ReflectData;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.io.RawComparator;
+import org.apache.hadoop.io.WritableComparator;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * A {@code RawComparator} for Avro-encoded keys that compiles the key schema into a tree of comparators
+ * once, and then compares the encoded bytes directly without decoding them into objects.
+ * <p>
+ * The order of each field of a record is taken from its {@link Schema.Field.Order}, so that records with
+ * any mix of ascending, descending, and ignored fields are supported, and the results are consistent with
+ * {@code BinaryData.compare} for the same schema. The schema is read from the {@code crunch.schema}
+ * property, or from the key schema of the map output if that is not set. The whole ordering may be
+ * reversed via {@link #REVERSE}.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public class AvroRawComparator extends Configured implements RawComparator<Object> {
+
+  /**
+   * Configuration key for the JSON of the schema of the keys that are compared.
+   */
+  public static final String SCHEMA = "crunch.schema";
+
+  /**
+   * Configuration key for reversing the order that is defined by the schema. Defaults to false.
+   */
+  public static final String REVERSE = "crunch.schema.reverse";
+
+  private Schema schema;
+  private boolean reverse;
+  private Node root;
+  private final Cursor c1 = new Cursor();
+  private final Cursor c2 = new Cursor();
+
+  public AvroRawComparator() {
+  }
+
+  public AvroRawComparator(Schema schema, boolean reverse) {
+    init(schema, reverse);
+  }
+
+  @Override
+  public void setConf(Configuration conf) {
+    super.setConf(conf);
+    if (conf != null) {
+      String schemaJson = conf.get(SCHEMA);
+      if (schemaJson != null) {
+        init((new Schema.Parser()).parse(schemaJson), conf.getBoolean(REVERSE, false));
+      } else if (conf.get(AvroJob.MAP_OUTPUT_SCHEMA) != null) {
+        init(Pair.getKeySchema(AvroJob.getMapOutputSchema(conf)), conf.getBoolean(REVERSE, false));
+      }
+    }
+  }
+
+  private void init(Schema schema, boolean reverse) {
+    this.schema = schema;
+    this.reverse = reverse;
+    this.root = compile(schema);
+  }
+
+  @Override
+  public int compare(Object x, Object y) {
+    Object d1 = x instanceof AvroWrapper ? ((AvroWrapper<?>) x).datum() : x;
+    Object d2 = y instanceof AvroWrapper ? ((AvroWrapper<?>) y).datum() : y;
+    int cmp = ReflectData.get().compare(d1, d2, schema);
+    return reverse ? -cmp : cmp;
+  }
+
+  @Override
+  public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+    c1.reset(b1, s1);
+    c2.reset(b2, s2);
+    int cmp = root.compare(c1, c2);
+    return reverse ? -cmp : cmp;
+  }
+
+  /**
+   * A position within an encoded datum.
+   */
+  static class Cursor {
+    byte[] buf;
+    int pos;
+
+    void reset(byte[] buf, int pos) {
+      this.buf = buf;
+      this.pos = pos;
+    }
+
+    long readLong() {
+      long n = 0;
+      int shift = 0;
+      int b;
+      do {
+        b = buf[pos++] & 0xff;
+        n |= (long) (b & 0x7f) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return (n >>> 1) ^ -(n & 1);
+    }
+
+    int readFixedInt() {
+      int n = (buf[pos] & 0xff) | ((buf[pos + 1] & 0xff) << 8) | ((buf[pos + 2] & 0xff) << 16)
+          | ((buf[pos + 3] & 0xff) << 24);
+      pos += 4;
+      return n;
+    }
+
+    long readFixedLong() {
+      long lo = readFixedInt() & 0xffffffffL;
+      long hi = readFixedInt() & 0xffffffffL;
+      return lo | (hi << 32);
+    }
+  }
+
+  /**
+   * Compares and skips the encoded values of one schema.
+   */
+  abstract static class Node {
+    abstract int compare(Cursor c1, Cursor c2);
+
+    abstract void skip(Cursor c);
+  }
+
+  static Node compile(Schema schema) {
+    return compile(schema, Maps.<String, RecordNode>newHashMap());
+  }
+
+  /**
+   * Compiles the given schema, reusing the nodes of the named records that have already been compiled
+   * so that recursive schemas result in a cyclic tree of nodes.
+   */
+  private static Node compile(Schema schema, Map<String, RecordNode> records) {
+    switch (schema.getType()) {
+    case NULL:
+      return new FixedNode(0);
+    case BOOLEAN:
+      return new FixedNode(1);
+    case INT:
+    case LONG:
+    case ENUM:
+      return new LongNode();
+    case FLOAT:
+      return new FloatNode();
+    case DOUBLE:
+      return new DoubleNode();
+    case STRING:
+    case BYTES:
+      return new BytesNode();
+    case FIXED:
+      return new FixedNode(schema.getFixedSize());
+    case RECORD:
+      RecordNode record = records.get(schema.getFullName());
+      if (record == null) {
+        record = new RecordNode();
+        records.put(schema.getFullName(), record);
+        record.init(schema, records);
+      }
+      return record;
+    case UNION:
+      return new UnionNode(schema, records);
+    case ARRAY:
+      return new ArrayNode(compile(schema.getElementType(), records));
+    case MAP:
+      return new MapNode(compile(schema.getValueType(), records));
+    default:
+      throw new AvroRuntimeException("Unexpected schema type: " + schema.getType());
+    }
+  }
+
+  /**
+   * Values of a fixed size that are compared as unsigned bytes (null, boolean, and fixed).
+   */
+  private static class FixedNode extends Node {
+    private final int size;
+
+    FixedNode(int size) {
+      this.size = size;
+    }
+
+    @Override
+    int compare(Cursor c1, Cursor c2) {
+      int cmp = size == 0 ? 0 : WritableComparator.compareBytes(c1.buf, c1.pos, size, c2.buf, c2.pos, size);
+      c1.pos += size;
+      c2.pos += size;
+      return cmp;
+    }
+
+    @Override
+    void skip(Cursor c) {
+      c.pos += size;
+    }
+  }
+
+  /**
+   * Zig-zag encoded ints, longs, and enum ordinals.
+   */
+  private static class LongNode extends Node {
+    @Override
+    int compare(Cursor c1, Cursor c2) {
+      long l1 = c1.readLong();
+      long l2 = c2.readLong();
+      return l1 == l2 ? 0 : (l1 < l2 ? -1 : 1);
+    }
+
+    @Override
+    void skip(Cursor c) {
+      while ((c.buf[c.pos++] & 0x80) != 0) {
+      }
+    }
+  }
+
+  private static class FloatNode extends Node {
+    @Override
+    int compare(Cursor c1, Cursor c2) {
+      float f1 = Float.intBitsToFloat(c1.readFixedInt());
+      float f2 = Float.intBitsToFloat(c2.readFixedInt());
+      return f1 == f2 ? 0 : (f1 > f2 ? 1 : -1);
+    }
+
+    @Override
+    void skip(Cursor c) {
+      c.pos += 4;
+    }
+  }
+
+  private static class DoubleNode extends Node {
+    @Override
+    int compare(Cursor c1, Cursor c2) {
+      double d1 = Double.longBitsToDouble(c1.readFixedLong());
+      double d2 = Double.longBitsToDouble(c2.readFixedLong());
+      return d1 == d2 ? 0 : (d1 > d2 ? 1 : -1);
+    }
+
+    @Override
+    void skip(Cursor c) {
+      c.pos += 8;
+    }
+  }
+
+  /**
+   * Length-prefixed strings and bytes, which are compared as unsigned bytes.
+   */
+  private static class BytesNode extends Node {
+    @Override
+    int compare(Cursor c1, Cursor c2) {
+      int l1 = (int) c1.readLong();
+      int l2 = (int) c2.readLong();
+      int cmp = WritableComparator.compareBytes(c1.buf, c1.pos, l1, c2.buf, c2.pos, l2);
+      c1.pos += l1;
+      c2.pos += l2;
+      return cmp;
+    }
+
+    @Override
+    void skip(Cursor c) {
+      int length = (int) c.readLong();
+      c.pos += length;
+    }
+  }
+
+  /**
+   * Records, whose fields are set after the node is created so that it can be referred to by the fields
+   * of a recursive schema.
+   */
+  private static class RecordNode extends Node {
+    private Node[] fields;
+    private Schema.Field.Order[] orders;
+
+    void init(Schema schema, Map<String, RecordNode> records) {
+      List<Schema.Field> schemaFields = schema.getFields();
+      this.fields = new Node[schemaFields.size()];
+      this.orders = new Schema.Field.Order[schemaFields.size()];
+      for (int i = 0; i < fields.length; i++) {
+        fields[i] = compile(schemaFields.get(i).schema(), records);
+        orders[i] = schemaFields.get(i).order();
+      }
+    }
+
+    @Override
+    int compare(Cursor c1, Cursor c2) {
+      for (int i = 0; i < fields.length; i++) {
+        if (orders[i] == Schema.Field.Order.IGNORE) {
+          fields[i].skip(c1);
+          fields[i].skip(c2);
+        } else {
+          int cmp = fields[i].compare(c1, c2);
+          if (cmp != 0) {
+            return orders[i] == Schema.Field.Order.DESCENDING ? -cmp : cmp;
+          }
+        }
+      }
+      return 0;
+    }
+
+    @Override
+    void skip(Cursor c) {
+      for (Node field : fields) {
+        field.skip(c);
+      }
+    }
+  }
+
+  private static class UnionNode extends Node {
+    private final Node[] branches;
+
+    UnionNode(Schema schema, Map<String, RecordNode> records) {
+      List<Node> nodes = Lists.newArrayList();
+      for (Schema branch : schema.getTypes()) {
+        nodes.add(compile(branch, records));
+      }
+      this.branches = nodes.toArray(new Node[nodes.size()]);
+    }
+
+    @Override
+    int compare(Cursor c1, Cursor c2) {
+      int i1 = (int) c1.readLong();
+      int i2 = (int) c2.readLong();
+      if (i1 != i2) {
+        return i1 - i2;
+      }
+      return branches[i1].compare(c1, c2);
+    }
+
+    @Override
+    void skip(Cursor c) {
+      branches[(int) c.readLong()].skip(c);
+    }
+  }
+
+  /**
+   * Arrays are compared element by element, and a shorter array is less than a longer one that
+   * it is a prefix of.
+   */
+  private static class ArrayNode extends Node {
+    private final Node element;
+
+    ArrayNode(Node element) {
+      this.element = element;
+    }
+
+    private static long readBlockCount(Cursor c) {
+      long count = c.readLong();
+      if (count < 0) {
+        c.readLong(); // skip the block size in bytes
+        count = -count;
+      }
+      return count;
+    }
+
+    @Override
+    int compare(Cursor c1, Cursor c2) {
+      long r1 = readBlockCount(c1);
+      long r2 = readBlockCount(c2);
+      while (r1 > 0 && r2 > 0) {
+        int cmp = element.compare(c1, c2);
+        if (cmp != 0) {
+          return cmp;
+        }
+        if (--r1 == 0) {
+          r1 = readBlockCount(c1);
+        }
+        if (--r2 == 0) {
+          r2 = readBlockCount(c2);
+        }
+      }
+      return r1 == r2 ? 0 : (r1 > 0 ? 1 : -1);
+    }
+
+    @Override
+    void skip(Cursor c) {
+      long count;
+      while ((count = c.readLong()) != 0) {
+        if (count < 0) {
+          c.pos += (int) c.readLong();
+        } else {
+          for (long i = 0; i < count; i++) {
+            element.skip(c);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Maps cannot be compared, but they may be skipped when their order is ignored.
+   */
+  private static class MapNode extends Node {
+    private final Node key = new BytesNode();
+    private final Node value;
+
+    MapNode(Node value) {
+      this.value = value;
+    }
+
+    @Override
+    int compare(Cursor c1, Cursor c2) {
+      throw new AvroRuntimeException("Can't compare maps!");
+    }
+
+    @Override
+    void skip(Cursor c) {
+      long count;
+      while ((count = c.readLong()) != 0) {
+        if (count < 0) {
+          c.pos += (int) c.readLong();
+        } else {
+          for (long i = 0; i < count; i++) {
+            key.skip(c);
+            value.skip(c);
+          }
+        }
+      }
+    }
+  }
+}
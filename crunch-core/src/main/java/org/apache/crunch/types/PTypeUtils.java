@@ -25,10 +25,12 @@ import org.apache.crunch.Tuple;
 import org.apache.crunch.Tuple3;
 import org.apache.crunch.Tuple4;
 import org.apache.crunch.TupleN;
+import org.apache.crunch.types.avro.AvroType;
+import org.apache.crunch.types.writable.WritableType;
 
 /**
  * Utilities for converting between {@code PType}s from different
- * {@code PTypeFamily} implementations.
+ * {@code PTypeFamily} implementations, and for inspecting {@code PType}s.
  * 
  */
 public class PTypeUtils {
@@ -61,6 +63,20 @@ public class PTypeUtils {
     return tf.records(typeClass);
   }
 
+  /**
+   * Returns true if the given type is declared to be immutable, so that its values never need to be
+   * passed through {@link PType#getDetachedValue}. This is the case for {@code WritableType}s created
+   * via {@link WritableType#immutableType} and {@code AvroType}s that use a {@link NoOpDeepCopier}.
+   */
+  public static boolean isImmutable(PType<?> ptype) {
+    if (ptype instanceof WritableType) {
+      return ((WritableType<?, ?>) ptype).isImmutable();
+    } else if (ptype instanceof AvroType) {
+      return ((AvroType<?>) ptype).isImmutable();
+    }
+    return false;
+  }
+
   private PTypeUtils() {
   }
 }
@@ -29,6 +29,7 @@ import org.apache.crunch.io.ReadableSourceTarget;
 import org.apache.crunch.io.avro.AvroFileSourceTarget;
 import org.apache.crunch.types.Converter;
 import org.apache.crunch.types.DeepCopier;
+import org.apache.crunch.types.NoOpDeepCopier;
 import org.apache.crunch.types.PType;
 import org.apache.crunch.types.PTypeFamily;
 import org.apache.hadoop.conf.Configuration;
@@ -209,6 +210,14 @@ public class AvroType<T> implements PType<T> {
     initialized = true;
   }
 
+  /**
+   * Returns true if this type was created with a {@link NoOpDeepCopier}, in which case its values are
+   * never copied by {@link #getDetachedValue}.
+   */
+  public boolean isImmutable() {
+    return deepCopier instanceof NoOpDeepCopier;
+  }
+
   @Override
   public T getDetachedValue(T value) {
     if (!initialized) {
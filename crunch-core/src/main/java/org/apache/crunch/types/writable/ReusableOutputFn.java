@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.types.writable;
+
+import org.apache.crunch.MapFn;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Writable;
+
+/**
+ * An output {@code MapFn} of a {@link WritableType} that can write its results into a single container
+ * {@code Writable} instead of creating a new one for each input.
+ * <p>
+ * Reuse is only enabled for copies created via {@link #reusableCopy()} when
+ * {@link Writables#REUSE_OUTPUT_OBJECTS} is set. Those copies are handed out by
+ * {@link WritableType#getOutputMapFn()}, whose results are written out immediately, while the functions
+ * that are nested inside of tuples, collections, and maps always create new instances.
+ */
+abstract class ReusableOutputFn<T, W extends Writable> extends MapFn<T, W> {
+
+  private final boolean reusable;
+  private transient boolean reuse;
+  private transient W container;
+
+  ReusableOutputFn(boolean reusable) {
+    this.reusable = reusable;
+  }
+
+  /**
+   * Returns a new instance of the {@code Writable} that holds the given value.
+   */
+  protected abstract W create(T input);
+
+  /**
+   * Updates the given {@code Writable} to hold the given value.
+   */
+  protected abstract void set(W writable, T input);
+
+  /**
+   * Returns a copy of this function that reuses its output object when enabled.
+   */
+  abstract ReusableOutputFn<T, W> reusableCopy();
+
+  boolean isReusing() {
+    return reuse;
+  }
+
+  @Override
+  public void initialize() {
+    Configuration conf = getConfiguration();
+    this.reuse = reusable && conf != null && conf.getBoolean(Writables.REUSE_OUTPUT_OBJECTS, false);
+    this.container = null;
+  }
+
+  @Override
+  public W map(T input) {
+    if (!reuse) {
+      return create(input);
+    }
+    if (container == null) {
+      container = create(input);
+    } else {
+      set(container, input);
+    }
+    return container;
+  }
+}
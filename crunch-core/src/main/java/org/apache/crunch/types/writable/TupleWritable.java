@@ -27,8 +27,18 @@ import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.crunch.CrunchRuntimeException;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.io.BooleanWritable;
+import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.DataInputBuffer;
 import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.VIntWritable;
+import org.apache.hadoop.io.VLongWritable;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.io.WritableComparator;
@@ -52,6 +62,8 @@ public class TupleWritable extends Configured implements WritableComparable<Tupl
 
   private int[] written;
   private Writable[] values;
+  private DataOutputBuffer tmp;
+  private boolean reuseFields = true;
 
   /**
    * Create an empty tuple with no allocated storage for writables.
@@ -63,6 +75,7 @@ public class TupleWritable extends Configured implements WritableComparable<Tupl
   public void setConf(Configuration conf) {
     super.setConf(conf);
     if (conf == null) return;
+    this.reuseFields = conf.getBoolean(Writables.REUSE_INPUT_OBJECTS, true);
 
     try {
       Writables.reloadWritableComparableCodes(conf);
@@ -178,32 +191,79 @@ public class TupleWritable extends Configured implements WritableComparable<Tupl
    * Writes each Writable to <code>out</code>.
    */
   public void write(DataOutput out) throws IOException {
-    DataOutputBuffer tmp = new DataOutputBuffer();
     WritableUtils.writeVInt(out, values.length);
     for (int i = 0; i < values.length; ++i) {
       WritableUtils.writeVInt(out, written[i]);
       if (written[i] != 0) {
-        tmp.reset();
-        values[i].write(tmp);
-        WritableUtils.writeVInt(out, tmp.getLength());
-        out.write(tmp.getData(), 0, tmp.getLength());
+        int size = getSerializedSize(values[i]);
+        if (size >= 0) {
+          WritableUtils.writeVInt(out, size);
+          values[i].write(out);
+        } else {
+          if (tmp == null) {
+            tmp = new DataOutputBuffer();
+          }
+          tmp.reset();
+          values[i].write(tmp);
+          WritableUtils.writeVInt(out, tmp.getLength());
+          out.write(tmp.getData(), 0, tmp.getLength());
+        }
       }
     }
   }
 
+  /**
+   * Returns the number of bytes that the given value is serialized to, or -1 if that can only be
+   * determined by serializing it.
+   */
+  static int getSerializedSize(Writable value) {
+    // Exact class checks, since subclasses may serialize themselves differently
+    Class<?> clazz = value.getClass();
+    if (clazz == IntWritable.class || clazz == FloatWritable.class) {
+      return 4;
+    } else if (clazz == LongWritable.class || clazz == DoubleWritable.class) {
+      return 8;
+    } else if (clazz == BooleanWritable.class) {
+      return 1;
+    } else if (clazz == NullWritable.class) {
+      return 0;
+    } else if (clazz == Text.class) {
+      int length = ((Text) value).getLength();
+      return WritableUtils.getVIntSize(length) + length;
+    } else if (clazz == BytesWritable.class) {
+      return 4 + ((BytesWritable) value).getLength();
+    } else if (clazz == VIntWritable.class) {
+      return WritableUtils.getVIntSize(((VIntWritable) value).get());
+    } else if (clazz == VLongWritable.class) {
+      return WritableUtils.getVIntSize(((VLongWritable) value).get());
+    }
+    return -1;
+  }
+
   /**
    * {@inheritDoc}
    */
   public void readFields(DataInput in) throws IOException {
     int card = WritableUtils.readVInt(in);
-    values = new Writable[card];
-    written = new int[card];
+    if (!reuseFields || values == null || values.length != card) {
+      values = new Writable[card];
+      written = new int[card];
+    }
     for (int i = 0; i < card; ++i) {
-      written[i] = WritableUtils.readVInt(in);
-      if (written[i] != 0) {
-        values[i] = getWritable(written[i], getConf());
+      int code = WritableUtils.readVInt(in);
+      if (code != 0) {
+        // The framework reuses the same instance for every record it reads, so the fields are read into the
+        // Writables of the previous record whenever their types match. Callers that retain the fields
+        // must detach them, e.g. via PType#getDetachedValue.
+        if (values[i] == null || written[i] != code) {
+          values[i] = getWritable(code, getConf());
+        }
+        written[i] = code;
         WritableUtils.readVInt(in); // skip "bodySize"
         values[i].readFields(in);
+      } else {
+        written[i] = 0;
+        values[i] = null;
       }
     }
   }
@@ -269,22 +329,45 @@ public class TupleWritable extends Configured implements WritableComparable<Tupl
 
     @Override
     public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
-      DataInputBuffer buffer1 = new DataInputBuffer();
-      DataInputBuffer buffer2 = new DataInputBuffer();
-
+      // Walks the serialized tuples in place, so that nothing is allocated per comparison
       try {
-        buffer1.reset(b1, s1, l1);
-        buffer2.reset(b2, s2, l2);
-
-        int card1 = WritableUtils.readVInt(buffer1);
-        int card2 = WritableUtils.readVInt(buffer2);
+        int card1 = readVInt(b1, s1);
+        int card2 = readVInt(b2, s2);
+        int p1 = s1 + WritableUtils.decodeVIntSize(b1[s1]);
+        int p2 = s2 + WritableUtils.decodeVIntSize(b2[s2]);
         int minCard = Math.min(card1, card2);
 
         for (int i = 0; i < minCard; i++) {
-          int cmp = compareField(buffer1, buffer2);
+          int written1 = readVInt(b1, p1);
+          int written2 = readVInt(b2, p2);
+          p1 += WritableUtils.decodeVIntSize(b1[p1]);
+          p2 += WritableUtils.decodeVIntSize(b2[p2]);
+          boolean hasValue1 = (written1 != 0);
+          boolean hasValue2 = (written2 != 0);
+          if (!hasValue1 && !hasValue2) {
+            continue;
+          }
+          if (hasValue1 && !hasValue2) {
+            return 1;
+          }
+          if (!hasValue1 && hasValue2) {
+            return -1;
+          }
+
+          // both side have value
+          if (written1 != written2) {
+            return written1 - written2;
+          }
+          int bodySize1 = readVInt(b1, p1);
+          int bodySize2 = readVInt(b2, p2);
+          p1 += WritableUtils.decodeVIntSize(b1[p1]);
+          p2 += WritableUtils.decodeVIntSize(b2[p2]);
+          int cmp = compareField(written1, b1, p1, bodySize1, b2, p2, bodySize2);
           if (cmp != 0) {
             return cmp;
           }
+          p1 += bodySize1;
+          p2 += bodySize2;
         }
         return card1 - card2;
       } catch (IOException e) {
@@ -292,41 +375,21 @@ public class TupleWritable extends Configured implements WritableComparable<Tupl
       }
     }
 
-    private int compareField(DataInputBuffer buffer1, DataInputBuffer buffer2) throws IOException {
-      int written1 = WritableUtils.readVInt(buffer1);
-      int written2 = WritableUtils.readVInt(buffer2);
-      boolean hasValue1 = (written1 != 0);
-      boolean hasValue2 = (written2 != 0);
-      if (!hasValue1 && !hasValue2) {
-        return 0;
-      }
-      if (hasValue1 && !hasValue2) {
-        return 1;
-      }
-      if (!hasValue1 && hasValue2) {
-        return -1;
-      }
-
-      // both side have value
-      if (written1 != written2) {
-        return written1 - written2;
-      }
-      int bodySize1 = WritableUtils.readVInt(buffer1);
-      int bodySize2 = WritableUtils.readVInt(buffer2);
-      Class<? extends Writable> clazz = Writables.WRITABLE_CODES.get(written1);
+    private int compareField(int code, byte[] b1, int s1, int l1, byte[] b2, int s2, int l2)
+        throws IOException {
+      Class<? extends Writable> clazz = Writables.WRITABLE_CODES.get(code);
       if (WritableComparable.class.isAssignableFrom(clazz)) {
-        int cmp = WritableComparator.get(clazz.asSubclass(WritableComparable.class)).compare(
-            buffer1.getData(), buffer1.getPosition(), bodySize1,
-            buffer2.getData(), buffer2.getPosition(), bodySize2);
-        buffer1.skip(bodySize1);
-        buffer2.skip(bodySize2);
-        return cmp;
+        return WritableComparator.get(clazz.asSubclass(WritableComparable.class)).compare(
+            b1, s1, l1, b2, s2, l2);
       } else {
         // fallback to deserialization
+        DataInputBuffer buffer = new DataInputBuffer();
         Writable w1 = ReflectionUtils.newInstance(clazz, null);
         Writable w2 = ReflectionUtils.newInstance(clazz, null);
-        w1.readFields(buffer1);
-        w2.readFields(buffer2);
+        buffer.reset(b1, s1, l1);
+        w1.readFields(buffer);
+        buffer.reset(b2, s2, l2);
+        w2.readFields(buffer);
         return w1.hashCode() - w2.hashCode();
       }
     }
@@ -94,6 +94,18 @@ public class WritableType<T, W extends Writable> implements PType<T> {
 
   @Override
   public MapFn getOutputMapFn() {
+    if (outputFn instanceof ReusableOutputFn) {
+      // Each caller gets its own copy, so that the reused output object is never shared.
+      return ((ReusableOutputFn) outputFn).reusableCopy();
+    }
+    return outputFn;
+  }
+
+  /**
+   * Returns the output function to use for values that are nested inside of other types, which always
+   * creates a new {@code Writable} for each value.
+   */
+  MapFn<T, W> getNestedOutputMapFn() {
     return outputFn;
   }
 
@@ -133,6 +145,14 @@ public class WritableType<T, W extends Writable> implements PType<T> {
     this.initialized = true;
   }
 
+  /**
+   * Returns true if this type was created with {@link #immutableType}, in which case its values are
+   * never copied by {@link #getDetachedValue}.
+   */
+  public boolean isImmutable() {
+    return deepCopier == null;
+  }
+
   @Override
   public T getDetachedValue(T value) {
     if (deepCopier == null) {
@@ -77,6 +77,22 @@ public class Writables {
 
   private static final Log LOG = LogFactory.getLog(Writables.class);
 
+  /**
+   * Runtime property which lets the output functions of the primitive types (e.g., {@code String} to
+   * {@code Text}, {@code Long} to {@code LongWritable}) update a single {@code Writable} for every record
+   * they write out instead of creating a new one. The {@code Writable}s that are nested inside of tuples,
+   * collections, and maps are always created anew. Defaults to {@code false}.
+   */
+  public static final String REUSE_OUTPUT_OBJECTS = "crunch.writable.output.reuse";
+
+  /**
+   * Runtime property which controls whether a {@link TupleWritable} that is read into more than once (as the
+   * framework does for the keys and values of a task) reuses the {@code Writable}s that hold its fields. Values
+   * that are retained across records must then be detached via {@code PType#getDetachedValue}, as the
+   * library functions do. Defaults to {@code true}.
+   */
+  public static final String REUSE_INPUT_OBJECTS = "crunch.writable.input.reuse";
+
   static BiMap<Integer, Class<? extends Writable>> WRITABLE_CODES = HashBiMap.create(ImmutableBiMap.<Integer, Class<? extends Writable>>builder()
           .put(1, BytesWritable.class)
           .put(2, Text.class)
@@ -167,12 +183,28 @@ public class Writables {
     }
   };
 
-  private static final MapFn<String, Text> STRING_TO_TEXT = new MapFn<String, Text>() {
+  private static class StringToText extends ReusableOutputFn<String, Text> {
+    StringToText(boolean reusable) {
+      super(reusable);
+    }
+
     @Override
-    public Text map(String input) {
+    protected Text create(String input) {
       return new Text(input);
     }
-  };
+
+    @Override
+    protected void set(Text writable, String input) {
+      writable.set(input);
+    }
+
+    @Override
+    ReusableOutputFn<String, Text> reusableCopy() {
+      return new StringToText(true);
+    }
+  }
+
+  private static final MapFn<String, Text> STRING_TO_TEXT = new StringToText(false);
 
   private static final MapFn<IntWritable, Integer> IW_TO_INT = new MapFn<IntWritable, Integer>() {
     @Override
@@ -181,12 +213,28 @@ public class Writables {
     }
   };
 
-  private static final MapFn<Integer, IntWritable> INT_TO_IW = new MapFn<Integer, IntWritable>() {
+  private static class IntToIW extends ReusableOutputFn<Integer, IntWritable> {
+    IntToIW(boolean reusable) {
+      super(reusable);
+    }
+
     @Override
-    public IntWritable map(Integer input) {
+    protected IntWritable create(Integer input) {
       return new IntWritable(input);
     }
-  };
+
+    @Override
+    protected void set(IntWritable writable, Integer input) {
+      writable.set(input);
+    }
+
+    @Override
+    ReusableOutputFn<Integer, IntWritable> reusableCopy() {
+      return new IntToIW(true);
+    }
+  }
+
+  private static final MapFn<Integer, IntWritable> INT_TO_IW = new IntToIW(false);
 
   private static final MapFn<LongWritable, Long> LW_TO_LONG = new MapFn<LongWritable, Long>() {
     @Override
@@ -195,12 +243,28 @@ public class Writables {
     }
   };
 
-  private static final MapFn<Long, LongWritable> LONG_TO_LW = new MapFn<Long, LongWritable>() {
+  private static class LongToLW extends ReusableOutputFn<Long, LongWritable> {
+    LongToLW(boolean reusable) {
+      super(reusable);
+    }
+
     @Override
-    public LongWritable map(Long input) {
+    protected LongWritable create(Long input) {
       return new LongWritable(input);
     }
-  };
+
+    @Override
+    protected void set(LongWritable writable, Long input) {
+      writable.set(input);
+    }
+
+    @Override
+    ReusableOutputFn<Long, LongWritable> reusableCopy() {
+      return new LongToLW(true);
+    }
+  }
+
+  private static final MapFn<Long, LongWritable> LONG_TO_LW = new LongToLW(false);
 
   private static final MapFn<FloatWritable, Float> FW_TO_FLOAT = new MapFn<FloatWritable, Float>() {
     @Override
@@ -209,12 +273,28 @@ public class Writables {
     }
   };
 
-  private static final MapFn<Float, FloatWritable> FLOAT_TO_FW = new MapFn<Float, FloatWritable>() {
+  private static class FloatToFW extends ReusableOutputFn<Float, FloatWritable> {
+    FloatToFW(boolean reusable) {
+      super(reusable);
+    }
+
     @Override
-    public FloatWritable map(Float input) {
+    protected FloatWritable create(Float input) {
       return new FloatWritable(input);
     }
-  };
+
+    @Override
+    protected void set(FloatWritable writable, Float input) {
+      writable.set(input);
+    }
+
+    @Override
+    ReusableOutputFn<Float, FloatWritable> reusableCopy() {
+      return new FloatToFW(true);
+    }
+  }
+
+  private static final MapFn<Float, FloatWritable> FLOAT_TO_FW = new FloatToFW(false);
 
   private static final MapFn<DoubleWritable, Double> DW_TO_DOUBLE = new MapFn<DoubleWritable, Double>() {
     @Override
@@ -223,12 +303,28 @@ public class Writables {
     }
   };
 
-  private static final MapFn<Double, DoubleWritable> DOUBLE_TO_DW = new MapFn<Double, DoubleWritable>() {
+  private static class DoubleToDW extends ReusableOutputFn<Double, DoubleWritable> {
+    DoubleToDW(boolean reusable) {
+      super(reusable);
+    }
+
     @Override
-    public DoubleWritable map(Double input) {
+    protected DoubleWritable create(Double input) {
       return new DoubleWritable(input);
     }
-  };
+
+    @Override
+    protected void set(DoubleWritable writable, Double input) {
+      writable.set(input);
+    }
+
+    @Override
+    ReusableOutputFn<Double, DoubleWritable> reusableCopy() {
+      return new DoubleToDW(true);
+    }
+  }
+
+  private static final MapFn<Double, DoubleWritable> DOUBLE_TO_DW = new DoubleToDW(false);
 
   private static final MapFn<BooleanWritable, Boolean> BW_TO_BOOLEAN = new MapFn<BooleanWritable, Boolean>() {
     @Override
@@ -253,14 +349,30 @@ public class Writables {
     }
   };
 
-  private static final MapFn<ByteBuffer, BytesWritable> BB_TO_BW = new MapFn<ByteBuffer, BytesWritable>() {
+  private static class BBToBW extends ReusableOutputFn<ByteBuffer, BytesWritable> {
+    BBToBW(boolean reusable) {
+      super(reusable);
+    }
+
     @Override
-    public BytesWritable map(ByteBuffer input) {
+    protected BytesWritable create(ByteBuffer input) {
       BytesWritable bw = new BytesWritable();
-      bw.set(input.array(), input.arrayOffset(), input.limit());
+      set(bw, input);
       return bw;
     }
-  };
+
+    @Override
+    protected void set(BytesWritable writable, ByteBuffer input) {
+      writable.set(input.array(), input.arrayOffset(), input.limit());
+    }
+
+    @Override
+    ReusableOutputFn<ByteBuffer, BytesWritable> reusableCopy() {
+      return new BBToBW(true);
+    }
+  }
+
+  private static final MapFn<ByteBuffer, BytesWritable> BB_TO_BW = new BBToBW(false);
 
 
   private static final WritableType<Void, NullWritable> nulls = WritableType.immutableType(
@@ -359,6 +471,13 @@ public class Writables {
     return new WritableTableType((WritableType) key, (WritableType) value);
   }
 
+  private static MapFn nestedOutputMapFn(PType<?> ptype) {
+    if (ptype instanceof WritableType) {
+      return ((WritableType) ptype).getNestedOutputMapFn();
+    }
+    return ptype.getOutputMapFn();
+  }
+
   private static BytesWritable asBytesWritable(Writable w) {
     if (w instanceof BytesWritable) {
       return (BytesWritable) w;
@@ -473,7 +592,7 @@ public class Writables {
     public TupleTWMapFn(PType<?>... ptypes) {
       this.fns = Lists.newArrayList();
       for (PType<?> ptype : ptypes) {
-        fns.add(ptype.getOutputMapFn());
+        fns.add(nestedOutputMapFn(ptype));
       }
 
       this.written = new int[fns.size()];
@@ -631,7 +750,7 @@ public class Writables {
     public UWOutputFn(PType<?>... ptypes) {
       this.fns = Lists.newArrayList();
       for (PType<?> ptype : ptypes) {
-        fns.add(ptype.getOutputMapFn());
+        fns.add(nestedOutputMapFn(ptype));
       }
     }
 
@@ -677,14 +796,14 @@ public class Writables {
   public static <S, T> PType<T> derived(Class<T> clazz, MapFn<S, T> inputFn, MapFn<T, S> outputFn, PType<S> base) {
     WritableType<S, ?> wt = (WritableType<S, ?>) base;
     MapFn input = new CompositeMapFn(wt.getInputMapFn(), inputFn);
-    MapFn output = new CompositeMapFn(outputFn, wt.getOutputMapFn());
+    MapFn output = new CompositeMapFn(outputFn, wt.getNestedOutputMapFn());
     return new WritableType(clazz, wt.getSerializationClass(), input, output, base.getSubTypes().toArray(new PType[0]));
   }
 
   public static <S, T> PType<T> derivedImmutable(Class<T> clazz, MapFn<S, T> inputFn, MapFn<T, S> outputFn, PType<S> base) {
     WritableType<S, ?> wt = (WritableType<S, ?>) base;
     MapFn input = new CompositeMapFn(wt.getInputMapFn(), inputFn);
-    MapFn output = new CompositeMapFn(outputFn, wt.getOutputMapFn());
+    MapFn output = new CompositeMapFn(outputFn, wt.getNestedOutputMapFn());
     return WritableType.immutableType(clazz, wt.getSerializationClass(), input, output, base.getSubTypes().toArray(new PType[0]));
   }
 
@@ -763,7 +882,7 @@ public class Writables {
     WritableType<T, ?> wt = (WritableType<T, ?>) ptype;
     return new WritableType(Collection.class, GenericArrayWritable.class,
         new ArrayCollectionMapFn(wt.getSerializationClass(), wt.getInputMapFn()),
-        new CollectionArrayMapFn(wt.getOutputMapFn()), ptype);
+        new CollectionArrayMapFn(wt.getNestedOutputMapFn()), ptype);
   }
 
   private static class MapInputMapFn<T> extends MapFn<TextMapWritable, Map<String, T>> {
@@ -839,7 +958,7 @@ public class Writables {
     WritableType<T, ?> wt = (WritableType<T, ?>) ptype;
     return new WritableType(Map.class, TextMapWritable.class,
         new MapInputMapFn(wt.getSerializationClass(), wt.getInputMapFn()),
-        new MapOutputMapFn(wt.getOutputMapFn()), ptype);
+        new MapOutputMapFn(wt.getNestedOutputMapFn()), ptype);
   }
 
   public static <T> PType<T> jsons(Class<T> clazz) {
@@ -41,8 +41,16 @@ public class PartitionUtils {
   }
 
   public static <T> int getRecommendedPartitions(PCollection<T> pcollection, Configuration conf) {
+    return getRecommendedPartitions(pcollection.getSize(), conf);
+  }
+
+  /**
+   * Returns the recommended number of partitions for the given number of bytes, e.g. as
+   * measured once the inputs to a job have been written.
+   */
+  public static int getRecommendedPartitions(long size, Configuration conf) {
     long bytesPerTask = conf.getLong(BYTES_PER_REDUCE_TASK, DEFAULT_BYTES_PER_REDUCE_TASK);
-    int recommended = 1 + (int) (pcollection.getSize() / bytesPerTask);
+    int recommended = 1 + (int) (size / bytesPerTask);
     int maxRecommended = conf.getInt(MAX_REDUCERS, DEFAULT_MAX_REDUCERS);
     if (maxRecommended > 0 && recommended > maxRecommended) {
       return maxRecommended;
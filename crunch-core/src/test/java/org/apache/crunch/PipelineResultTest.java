@@ -0,0 +1,65 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.apache.crunch.PipelineResult.NodeResult;
+import org.apache.hadoop.mapreduce.Counters;
+import org.junit.Test;
+
+public class PipelineResultTest {
+
+  @Test
+  public void testNodeResults() {
+    Counters counters = new Counters();
+    counters.findCounter(NodeResult.COUNTER_GROUP, NodeResult.getCounterName(NodeResult.RECORDS_IN, "a:b"))
+        .increment(10L);
+    counters.findCounter(NodeResult.COUNTER_GROUP, NodeResult.getCounterName(NodeResult.RECORDS_OUT, "a:b"))
+        .increment(20L);
+    counters.findCounter(NodeResult.COUNTER_GROUP, NodeResult.getCounterName(NodeResult.EXCLUSIVE_NANOS, "c"))
+        .increment(30L);
+    counters.findCounter("other", "in:d").increment(1L);
+
+    Map<String, NodeResult> results = new PipelineResult.StageResult("stage", counters).getNodeResults();
+    assertEquals(2, results.size());
+    assertEquals(10L, results.get("a:b").getRecordsIn());
+    assertEquals(20L, results.get("a:b").getRecordsOut());
+    assertEquals(30L, results.get("c").getExclusiveNanos());
+  }
+
+  @Test
+  public void testNoCounters() {
+    assertTrue(new PipelineResult.StageResult("stage", null).getNodeResults().isEmpty());
+  }
+
+  @Test
+  public void testLongNodeNamesShortened() {
+    String prefix = "org.apache.crunch.lib.SomeLibrary.someMethod.with.a.very.long.name";
+    String first = NodeResult.getMetricsNodeName(prefix + "1");
+    String second = NodeResult.getMetricsNodeName(prefix + "2");
+    assertTrue(first.length() <= 50);
+    assertTrue(second.length() <= 50);
+    assertFalse(first.equals(second));
+    assertEquals("short", NodeResult.getMetricsNodeName("short"));
+  }
+}
@@ -46,6 +46,9 @@ import java.util.List;
 
 import org.apache.crunch.Aggregator;
 import org.apache.crunch.CombineFn;
+import org.apache.crunch.DoubleAggregator;
+import org.apache.crunch.IntAggregator;
+import org.apache.crunch.LongAggregator;
 import org.apache.crunch.Pair;
 import org.apache.crunch.Tuple3;
 import org.apache.crunch.Tuple4;
@@ -204,6 +207,34 @@ public class AggregatorsTest {
     return Iterables.getOnlyElement(apply(a, values));
   }
 
+  @Test
+  public void testPrimitiveUpdates() {
+    LongAggregator sum = (LongAggregator) SUM_LONGS();
+    sum.reset();
+    sum.update(29L);
+    sum.update(1729L);
+    assertEquals(1758L, sum.longResult());
+
+    IntAggregator min = (IntAggregator) MIN_INTS();
+    min.reset();
+    min.update(29);
+    min.update(17);
+    assertEquals(17, min.intResult());
+
+    DoubleAggregator max = (DoubleAggregator) MAX_DOUBLES();
+    max.reset();
+    max.update(-29.0);
+    max.update(-17.0);
+    assertEquals(-17.0, max.doubleResult(), 0.0);
+  }
+
+  @Test
+  public void testEmptyMax() {
+    Aggregator<Long> max = MAX_LONGS();
+    max.reset();
+    assertThat(ImmutableList.copyOf(max.results()), is(ImmutableList.<Long>of()));
+  }
+
   private static <T> ImmutableList<T> apply(Aggregator<T> a, T... values) {
     return apply(a, ImmutableList.copyOf(values));
   }
@@ -20,11 +20,14 @@ package org.apache.crunch.hadoop.mapreduce.lib.jobcontrol;
 import org.apache.crunch.impl.mr.MRJob;
 import org.apache.crunch.impl.mr.run.RuntimeParameters;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.JobPriority;
 import org.apache.hadoop.mapreduce.Job;
 import org.junit.Test;
 
 import java.io.IOException;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -59,9 +62,64 @@ public class CrunchJobControlTest {
     verify(job3).submit();
   }
 
+  @Test
+  public void testCriticalPathJobsSubmittedFirst() throws IOException, InterruptedException {
+    Configuration conf = new Configuration();
+    conf.setInt(RuntimeParameters.MAX_RUNNING_JOBS, 1);
+    CrunchJobControl jobControl = new CrunchJobControl(conf, "group");
+    CrunchControlledJob leaf = createJob(1);
+    CrunchControlledJob head = createJob(2);
+    CrunchControlledJob tail = createJob(3);
+    tail.addDependingJob(head);
+
+    jobControl.addJob(leaf);
+    jobControl.addJob(head);
+    jobControl.addJob(tail);
+    jobControl.pollJobStatusAndStartNewOnes();
+    verify(head).submit();
+    verify(leaf, never()).submit();
+  }
+
+  @Test
+  public void testEstimatedCostOrdering() throws IOException, InterruptedException {
+    Configuration conf = new Configuration();
+    conf.setInt(RuntimeParameters.MAX_RUNNING_JOBS, 1);
+    CrunchJobControl jobControl = new CrunchJobControl(conf, "group");
+    CrunchControlledJob small = createJob(1);
+    CrunchControlledJob large = createJob(2);
+    small.setEstimatedCost(10L);
+    large.setEstimatedCost(1000L);
+
+    jobControl.addJob(small);
+    jobControl.addJob(large);
+    jobControl.pollJobStatusAndStartNewOnes();
+    verify(large).submit();
+    verify(small, never()).submit();
+  }
+
+  @Test
+  public void testJobPriority() throws IOException, InterruptedException {
+    Configuration conf = new Configuration();
+    conf.set(RuntimeParameters.JOB_PRIORITY, "high");
+    CrunchJobControl jobControl = new CrunchJobControl(conf, "group");
+    CrunchControlledJob job = createJob(1);
+
+    jobControl.addJob(job);
+    jobControl.pollJobStatusAndStartNewOnes();
+    verify(job).submit();
+    assertEquals(JobPriority.HIGH, ((JobConf) job.getJob().getConfiguration()).getJobPriority());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidJobPriority() {
+    Configuration conf = new Configuration();
+    conf.set(RuntimeParameters.JOB_PRIORITY, "urgent");
+    new CrunchJobControl(conf, "group");
+  }
+
   private CrunchControlledJob createJob(int jobID) throws IOException, InterruptedException {
     Job mrJob = mock(Job.class);
-    when(mrJob.getConfiguration()).thenReturn(new Configuration());
+    when(mrJob.getConfiguration()).thenReturn(new JobConf());
     CrunchControlledJob job = new CrunchControlledJob(
         jobID,
         mrJob,
@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.dist.collect;
+
+import static org.junit.Assert.assertSame;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.crunch.DoFn;
+import org.apache.crunch.ParallelDoOptions;
+import org.apache.crunch.impl.dist.collect.DoCollectionTest.ScaledFunction;
+import org.apache.crunch.impl.dist.collect.DoCollectionTest.SizedPCollectionImpl;
+import org.apache.crunch.types.avro.Avros;
+import org.apache.crunch.types.writable.Writables;
+import org.junit.Test;
+
+public class CommonSubexpressionsTest {
+
+  private static class RandomFn extends ScaledFunction {
+    RandomFn() {
+      super(0.5f);
+    }
+
+    @Override
+    public boolean isDeterministic() {
+      return false;
+    }
+  }
+
+  private final PCollectionImpl<String> parent = new SizedPCollectionImpl("parent", 100L);
+
+  private BaseDoCollection<String> doCollection(PCollectionImpl<String> parent, float scaleFactor) {
+    return new BaseDoCollection<String>("do", parent, new ScaledFunction(scaleFactor), Writables.strings(),
+        ParallelDoOptions.builder().build());
+  }
+
+  private BaseDoCollection<GenericData.Record> recordCollection(Schema schema) {
+    return new BaseDoCollection<GenericData.Record>("do", parent, (DoFn) new ScaledFunction(0.5f),
+        Avros.generics(schema), ParallelDoOptions.builder().build());
+  }
+
+  private static Schema recordSchema(String fieldName) {
+    return new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"rec\", \"fields\": [{\"name\": \""
+        + fieldName + "\", \"type\": \"string\"}]}");
+  }
+
+  @Test
+  public void testEquivalentCollectionsMerged() {
+    CommonSubexpressions cse = new CommonSubexpressions();
+    BaseDoCollection<String> first = doCollection(parent, 0.5f);
+    BaseDoCollection<String> second = doCollection(parent, 0.5f);
+    assertSame(first, cse.getCanonical(first));
+    assertSame(first, cse.getCanonical(second));
+  }
+
+  @Test
+  public void testEquivalentChainsMerged() {
+    CommonSubexpressions cse = new CommonSubexpressions();
+    BaseDoCollection<String> first = doCollection(doCollection(parent, 0.5f), 2.0f);
+    BaseDoCollection<String> second = doCollection(doCollection(parent, 0.5f), 2.0f);
+    assertSame(first, cse.getCanonical(first));
+    assertSame(first, cse.getCanonical(second));
+  }
+
+  @Test
+  public void testDifferentFnStateNotMerged() {
+    CommonSubexpressions cse = new CommonSubexpressions();
+    BaseDoCollection<String> first = doCollection(parent, 0.5f);
+    BaseDoCollection<String> second = doCollection(parent, 0.75f);
+    assertSame(first, cse.getCanonical(first));
+    assertSame(second, cse.getCanonical(second));
+  }
+
+  @Test
+  public void testDifferentParentsNotMerged() {
+    CommonSubexpressions cse = new CommonSubexpressions();
+    BaseDoCollection<String> first = doCollection(parent, 0.5f);
+    BaseDoCollection<String> second = doCollection(new SizedPCollectionImpl("other", 100L), 0.5f);
+    assertSame(first, cse.getCanonical(first));
+    assertSame(second, cse.getCanonical(second));
+  }
+
+  @Test
+  public void testSameAvroSchemaMerged() {
+    CommonSubexpressions cse = new CommonSubexpressions();
+    BaseDoCollection<GenericData.Record> first = recordCollection(recordSchema("a"));
+    BaseDoCollection<GenericData.Record> second = recordCollection(recordSchema("a"));
+    assertSame(first, cse.getCanonical(first));
+    assertSame(first, cse.getCanonical(second));
+  }
+
+  @Test
+  public void testDifferentAvroSchemasNotMerged() {
+    CommonSubexpressions cse = new CommonSubexpressions();
+    BaseDoCollection<GenericData.Record> first = recordCollection(recordSchema("a"));
+    BaseDoCollection<GenericData.Record> second = recordCollection(recordSchema("b"));
+    assertSame(first, cse.getCanonical(first));
+    assertSame(second, cse.getCanonical(second));
+  }
+
+  @Test
+  public void testNonDeterministicFnsNotMerged() {
+    CommonSubexpressions cse = new CommonSubexpressions();
+    BaseDoCollection<String> first = new BaseDoCollection<String>("do", parent, new RandomFn(),
+        Writables.strings(), ParallelDoOptions.builder().build());
+    BaseDoCollection<String> second = new BaseDoCollection<String>("do", parent, new RandomFn(),
+        Writables.strings(), ParallelDoOptions.builder().build());
+    assertSame(first, cse.getCanonical(first));
+    assertSame(second, cse.getCanonical(second));
+  }
+}
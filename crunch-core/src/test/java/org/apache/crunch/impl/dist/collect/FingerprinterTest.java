@@ -0,0 +1,59 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.dist.collect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.apache.crunch.ParallelDoOptions;
+import org.apache.crunch.impl.dist.collect.DoCollectionTest.ScaledFunction;
+import org.apache.crunch.impl.dist.collect.DoCollectionTest.SizedPCollectionImpl;
+import org.apache.crunch.types.writable.Writables;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+public class FingerprinterTest {
+
+  private final PCollectionImpl<String> parent = new SizedPCollectionImpl("parent", 100L);
+
+  private BaseDoCollection<String> doCollection(PCollectionImpl<String> parent, float scaleFactor) {
+    return new BaseDoCollection<String>("do", parent, new ScaledFunction(scaleFactor), Writables.strings(),
+        ParallelDoOptions.builder().build());
+  }
+
+  private String fingerprint(PCollectionImpl<?> pcollect) {
+    return new Fingerprinter(new Configuration()).fingerprint(pcollect);
+  }
+
+  @Test
+  public void testEquivalentChainsMatch() {
+    assertEquals(fingerprint(doCollection(doCollection(parent, 0.5f), 2.0f)),
+        fingerprint(doCollection(doCollection(parent, 0.5f), 2.0f)));
+  }
+
+  @Test
+  public void testChangedFnStateDiffers() {
+    assertFalse(fingerprint(doCollection(parent, 0.5f)).equals(fingerprint(doCollection(parent, 0.75f))));
+  }
+
+  @Test
+  public void testChangedUpstreamFnDiffers() {
+    assertFalse(fingerprint(doCollection(doCollection(parent, 0.5f), 2.0f)).equals(
+        fingerprint(doCollection(doCollection(parent, 0.75f), 2.0f))));
+  }
+}
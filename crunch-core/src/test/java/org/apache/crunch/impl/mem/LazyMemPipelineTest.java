@@ -0,0 +1,185 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mem;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import org.apache.crunch.DoFn;
+import org.apache.crunch.Emitter;
+import org.apache.crunch.FilterFn;
+import org.apache.crunch.MapFn;
+import org.apache.crunch.PCollection;
+import org.apache.crunch.PTable;
+import org.apache.crunch.Pair;
+import org.apache.crunch.types.writable.Writables;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class LazyMemPipelineTest {
+
+  private static int processed;
+
+  private static class PlusOneFn extends MapFn<Integer, Integer> {
+    @Override
+    public Integer map(Integer input) {
+      processed++;
+      increment("lazy", "processed");
+      return input + 1;
+    }
+  }
+
+  private static class RandomFn extends MapFn<Integer, Integer> {
+    private final Random random = new Random();
+
+    @Override
+    public Integer map(Integer input) {
+      processed++;
+      return random.nextInt();
+    }
+  }
+
+  private static class IdentityIntFn extends MapFn<Integer, Integer> {
+    @Override
+    public Integer map(Integer input) {
+      return input;
+    }
+  }
+
+  private static class EvenFn extends FilterFn<Integer> {
+    @Override
+    public boolean accept(Integer input) {
+      return input % 2 == 0;
+    }
+  }
+
+  private static class RepeatFn extends DoFn<Integer, Integer> {
+    private int count;
+
+    @Override
+    public void process(Integer input, Emitter<Integer> emitter) {
+      emitter.emit(input);
+      emitter.emit(input);
+      count++;
+    }
+
+    @Override
+    public void cleanup(Emitter<Integer> emitter) {
+      emitter.emit(-count);
+    }
+  }
+
+  @Before
+  public void setUp() {
+    MemPipeline.getInstance().getConfiguration().setBoolean(MemPipeline.LAZY, true);
+    MemPipeline.clearCounters();
+    processed = 0;
+  }
+
+  @After
+  public void tearDown() {
+    MemPipeline.getInstance().getConfiguration().setBoolean(MemPipeline.LAZY, false);
+  }
+
+  @Test
+  public void testChainIsEvaluatedOnDemand() {
+    PCollection<Integer> ints = MemPipeline.typedCollectionOf(Writables.ints(), 1, 2, 3, 4);
+    PCollection<Integer> result = ints.parallelDo(new PlusOneFn(), Writables.ints())
+        .filter(new EvenFn())
+        .parallelDo(new RepeatFn(), Writables.ints());
+    assertEquals(0, processed);
+    assertEquals(ImmutableList.of(2, 2, 4, 4, -2), ImmutableList.copyOf(result.materialize()));
+    assertEquals(4, processed);
+
+    // The contents are only computed once
+    result.materialize();
+    assertEquals(4, processed);
+  }
+
+  @Test
+  public void testFusedParentIsNotEvaluatedAgain() {
+    PCollection<Integer> ints = MemPipeline.typedCollectionOf(Writables.ints(), 1, 2, 3, 4);
+    PCollection<Integer> random = ints.parallelDo(new RandomFn(), Writables.ints());
+    PCollection<Integer> same = random.parallelDo(new IdentityIntFn(), Writables.ints());
+
+    List<Integer> childContents = ImmutableList.copyOf(same.materialize());
+    assertEquals(4, processed);
+    // The parent was fused into its child's chain, and its contents were kept
+    assertEquals(childContents, ImmutableList.copyOf(random.materialize()));
+    assertEquals(4, processed);
+  }
+
+  @Test
+  public void testFusedParentCountersNotDoubled() {
+    PCollection<Integer> ints = MemPipeline.typedCollectionOf(Writables.ints(), 1, 2, 3, 4);
+    PCollection<Integer> plusOne = ints.parallelDo(new PlusOneFn(), Writables.ints());
+    PCollection<Integer> evens = plusOne.filter(new EvenFn());
+
+    assertEquals(ImmutableList.of(2, 4), ImmutableList.copyOf(evens.materialize()));
+    assertEquals(ImmutableList.of(2, 3, 4, 5), ImmutableList.copyOf(plusOne.materialize()));
+    // A consumer added after the chain was evaluated reuses the stored contents
+    assertEquals(ImmutableList.of(3, 4, 5, 6),
+        ImmutableList.copyOf(plusOne.parallelDo(new PlusOneFn(), Writables.ints()).materialize()));
+    assertEquals(8, processed);
+    assertEquals(8L, MemPipeline.getCounters().findCounter("lazy", "processed").getValue());
+  }
+
+  @Test
+  public void testSharedParentIsEvaluatedOnce() {
+    PCollection<Integer> ints = MemPipeline.typedCollectionOf(Writables.ints(), 1, 2, 3, 4);
+    PCollection<Integer> plusOne = ints.parallelDo(new PlusOneFn(), Writables.ints());
+    PCollection<Integer> evens = plusOne.filter(new EvenFn());
+    PCollection<Integer> plusTwo = plusOne.parallelDo(new PlusOneFn(), Writables.ints());
+
+    assertEquals(ImmutableList.of(2, 4), ImmutableList.copyOf(evens.materialize()));
+    assertEquals(ImmutableList.of(3, 4, 5, 6), ImmutableList.copyOf(plusTwo.materialize()));
+    assertEquals(ImmutableList.of(2, 3, 4, 5), ImmutableList.copyOf(plusOne.materialize()));
+    // The shared parent is computed once, and its contents are reused by both branches
+    assertEquals(8, processed);
+    assertEquals(8L, MemPipeline.getCounters().findCounter("lazy", "processed").getValue());
+  }
+
+  @Test
+  public void testBranchesSeeSameParentContents() {
+    PCollection<Integer> ints = MemPipeline.typedCollectionOf(Writables.ints(), 1, 2, 3, 4);
+    PCollection<Integer> random = ints.parallelDo(new RandomFn(), Writables.ints());
+    PCollection<Integer> first = random.parallelDo(new IdentityIntFn(), Writables.ints());
+    PCollection<Integer> second = random.parallelDo(new IdentityIntFn(), Writables.ints());
+
+    assertEquals(ImmutableList.copyOf(first.materialize()), ImmutableList.copyOf(second.materialize()));
+    assertEquals(4, processed);
+  }
+
+  @Test
+  public void testTables() {
+    PCollection<Integer> ints = MemPipeline.typedCollectionOf(Writables.ints(), 1, 2, 3);
+    PTable<Integer, Integer> table = ints.parallelDo(new PlusOneFn(), Writables.ints())
+        .by(new PlusOneFn(), Writables.ints());
+    assertEquals(0, processed);
+    List<Pair<Integer, Iterable<Integer>>> groups = ImmutableList.copyOf(table.groupByKey().materialize());
+    assertEquals(3, groups.size());
+    assertEquals(Integer.valueOf(3), groups.get(0).first());
+    assertEquals(ImmutableList.of(2), ImmutableList.copyOf(groups.get(0).second()));
+    assertEquals(6, processed);
+  }
+}
@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mem;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.apache.crunch.MapFn;
+import org.apache.crunch.PCollection;
+import org.apache.crunch.PTable;
+import org.apache.crunch.Pair;
+import org.apache.crunch.types.writable.Writables;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+public class ParallelMemPipelineTest {
+
+  private static class SquareFn extends MapFn<Integer, Long> {
+    @Override
+    public Long map(Integer input) {
+      increment("test", "squared");
+      return (long) input * input;
+    }
+  }
+
+  private static class ModFn extends MapFn<Integer, Integer> {
+    @Override
+    public Integer map(Integer input) {
+      increment("test", "mod");
+      return input % 7;
+    }
+  }
+
+  private List<Integer> input;
+
+  @Before
+  public void setUp() {
+    MemPipeline.getInstance().getConfiguration().setInt(MemPipeline.PARALLELISM, 4);
+    MemPipeline.clearCounters();
+    input = Lists.newArrayList();
+    for (int i = 0; i < 10000; i++) {
+      input.add(i);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    Configuration conf = MemPipeline.getInstance().getConfiguration();
+    conf.setInt(MemPipeline.PARALLELISM, 1);
+  }
+
+  @Test
+  public void testParallelDoPreservesOrder() {
+    PCollection<Integer> ints = MemPipeline.typedCollectionOf(Writables.ints(), input);
+    List<Long> squares = ImmutableList.copyOf(ints.parallelDo(new SquareFn(), Writables.longs()).materialize());
+    assertEquals(input.size(), squares.size());
+    for (int i = 0; i < input.size(); i++) {
+      assertEquals((long) i * i, squares.get(i).longValue());
+    }
+    assertEquals(input.size(), MemPipeline.getCounters().findCounter("test", "squared").getValue());
+  }
+
+  @Test
+  public void testLazyChainKeepsIntermediateContents() {
+    Configuration conf = MemPipeline.getInstance().getConfiguration();
+    conf.setBoolean(MemPipeline.LAZY, true);
+    try {
+      PCollection<Integer> ints = MemPipeline.typedCollectionOf(Writables.ints(), input);
+      PCollection<Integer> mods = ints.parallelDo(new ModFn(), Writables.ints());
+      List<Long> squares = ImmutableList.copyOf(mods.parallelDo(new SquareFn(), Writables.longs())
+          .materialize());
+      assertEquals(input.size(), squares.size());
+
+      // The contents of the fused parent were stored in order, from each of the parallel tasks
+      List<Integer> modValues = ImmutableList.copyOf(mods.materialize());
+      assertEquals(input.size(), modValues.size());
+      for (int i = 0; i < input.size(); i++) {
+        assertEquals(i % 7, modValues.get(i).intValue());
+      }
+      assertEquals(input.size(), MemPipeline.getCounters().findCounter("test", "mod").getValue());
+    } finally {
+      conf.setBoolean(MemPipeline.LAZY, false);
+    }
+  }
+
+  @Test
+  public void testParallelGroupByKey() {
+    PTable<Integer, Integer> table = MemPipeline.typedCollectionOf(Writables.ints(), input)
+        .by(new ModFn(), Writables.ints());
+    List<Pair<Integer, Iterable<Integer>>> groups = ImmutableList.copyOf(table.groupByKey().materialize());
+    assertEquals(7, groups.size());
+    for (int k = 0; k < 7; k++) {
+      assertEquals(k, groups.get(k).first().intValue());
+      int expected = k;
+      for (Integer value : groups.get(k).second()) {
+        assertEquals(expected, value.intValue());
+        expected += 7;
+      }
+      assertEquals((input.size() - k + 6) / 7, (expected - k) / 7);
+    }
+  }
+}
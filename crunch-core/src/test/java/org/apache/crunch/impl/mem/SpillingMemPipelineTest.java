@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.crunch.MapFn;
+import org.apache.crunch.PTable;
+import org.apache.crunch.Pair;
+import org.apache.crunch.types.PTypeFamily;
+import org.apache.crunch.types.avro.AvroTypeFamily;
+import org.apache.crunch.types.writable.WritableTypeFamily;
+import org.apache.crunch.types.writable.Writables;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+public class SpillingMemPipelineTest {
+
+  @Rule
+  public TemporaryFolder tmpDir = new TemporaryFolder();
+
+  private static class ModFn extends MapFn<Integer, String> {
+    @Override
+    public String map(Integer input) {
+      return "key" + (input % 13);
+    }
+  }
+
+  private static class SmallGroupFn extends MapFn<Integer, String> {
+    @Override
+    public String map(Integer input) {
+      return String.format("key%04d", input % 1000);
+    }
+  }
+
+  private List<Integer> input;
+
+  @Before
+  public void setUp() {
+    Configuration conf = MemPipeline.getInstance().getConfiguration();
+    conf.setLong(MemPipeline.SHUFFLE_SPILL_BYTES, 4096);
+    conf.set(MemPipeline.SHUFFLE_SPILL_DIR, tmpDir.getRoot().getAbsolutePath());
+    input = Lists.newArrayList();
+    for (int i = 0; i < 5000; i++) {
+      input.add(i);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    Configuration conf = MemPipeline.getInstance().getConfiguration();
+    conf.setLong(MemPipeline.SHUFFLE_SPILL_BYTES, 0);
+    conf.set(MemPipeline.SHUFFLE_SPILL_DIR, System.getProperty("java.io.tmpdir"));
+  }
+
+  private void runGroupByKey(PTypeFamily tf) {
+    PTable<String, Integer> table = MemPipeline.typedCollectionOf(tf.ints(), input)
+        .by(new ModFn(), tf.strings());
+    List<Pair<String, Iterable<Integer>>> groups = ImmutableList.copyOf(table.groupByKey().materialize());
+    assertEquals(13, groups.size());
+    assertTrue(tmpDir.getRoot().list().length > 1);
+    String lastKey = "";
+    for (Pair<String, Iterable<Integer>> group : groups) {
+      assertTrue(lastKey.compareTo(group.first()) < 0);
+      lastKey = group.first();
+      int k = Integer.parseInt(group.first().substring(3));
+      int expected = k;
+      for (Integer value : group.second()) {
+        assertEquals(expected, value.intValue());
+        expected += 13;
+      }
+      assertEquals(k + 13 * ((input.size() - k + 12) / 13), expected);
+    }
+    // The runs are deleted once the values of all of the groups have been read
+    assertEquals(0, tmpDir.getRoot().list().length);
+  }
+
+  @Test
+  public void testPartiallyReadGroups() {
+    PTable<String, Integer> table = MemPipeline.typedCollectionOf(Writables.ints(), input)
+        .by(new ModFn(), Writables.strings());
+    for (Pair<String, Iterable<Integer>> group : table.groupByKey().materialize()) {
+      // Stopping early must leave the runs readable for the other groups
+      assertEquals(Integer.parseInt(group.first().substring(3)), group.second().iterator().next().intValue());
+    }
+  }
+
+  @Test
+  public void testManySmallGroups() {
+    PTable<String, Integer> table = MemPipeline.typedCollectionOf(Writables.ints(), input)
+        .by(new SmallGroupFn(), Writables.strings());
+    List<Pair<String, Iterable<Integer>>> groups = ImmutableList.copyOf(table.groupByKey().materialize());
+    assertEquals(1000, groups.size());
+    // The groups share the chunks that are read from the runs, including when they are read out of order
+    for (Pair<String, Iterable<Integer>> group : Lists.reverse(groups)) {
+      int k = Integer.parseInt(group.first().substring(3));
+      assertEquals(ImmutableList.of(k, k + 1000, k + 2000, k + 3000, k + 4000),
+          ImmutableList.copyOf(group.second()));
+    }
+    assertEquals(0, tmpDir.getRoot().list().length);
+  }
+
+  @Test
+  public void testWritables() {
+    runGroupByKey(WritableTypeFamily.getInstance());
+  }
+
+  @Test
+  public void testAvros() {
+    runGroupByKey(AvroTypeFamily.getInstance());
+  }
+
+  @Test
+  public void testParallel() {
+    MemPipeline.getInstance().getConfiguration().setInt(MemPipeline.PARALLELISM, 3);
+    try {
+      runGroupByKey(WritableTypeFamily.getInstance());
+    } finally {
+      MemPipeline.getInstance().getConfiguration().setInt(MemPipeline.PARALLELISM, 1);
+    }
+  }
+}
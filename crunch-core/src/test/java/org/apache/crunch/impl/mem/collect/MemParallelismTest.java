@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mem.collect;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.crunch.CrunchRuntimeException;
+import org.apache.crunch.impl.mem.MemPipeline;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class MemParallelismTest {
+
+  private static final Callable<Integer> ONE = new Callable<Integer>() {
+    @Override
+    public Integer call() {
+      return 1;
+    }
+  };
+
+  private static Configuration parallelism(int threads) {
+    Configuration conf = new Configuration();
+    conf.setInt(MemPipeline.PARALLELISM, threads);
+    return conf;
+  }
+
+  @Test
+  public void testChangingParallelismWhileSubmitting() throws Exception {
+    final CountDownLatch submitting = new CountDownLatch(1);
+    final CountDownLatch changed = new CountDownLatch(1);
+    // The second task is only handed out once another pipeline has used a different parallelism
+    final List<Callable<Integer>> tasks = new AbstractList<Callable<Integer>>() {
+      @Override
+      public Callable<Integer> get(int index) {
+        if (index == 0) {
+          submitting.countDown();
+        } else {
+          try {
+            changed.await();
+          } catch (InterruptedException e) {
+            throw new CrunchRuntimeException(e);
+          }
+        }
+        return ONE;
+      }
+
+      @Override
+      public int size() {
+        return 2;
+      }
+    };
+
+    ExecutorService pipelineThread = Executors.newSingleThreadExecutor();
+    try {
+      Future<List<Integer>> results = pipelineThread.submit(new Callable<List<Integer>>() {
+        @Override
+        public List<Integer> call() {
+          return MemParallelism.invokeAll(parallelism(4), tasks);
+        }
+      });
+      submitting.await();
+      assertEquals(ImmutableList.of(1), MemParallelism.invokeAll(parallelism(2), ImmutableList.of(ONE)));
+      changed.countDown();
+      assertEquals(ImmutableList.of(1, 1), results.get());
+    } finally {
+      pipelineThread.shutdownNow();
+    }
+  }
+}
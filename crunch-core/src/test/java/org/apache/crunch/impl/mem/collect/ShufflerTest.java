@@ -0,0 +1,105 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mem.collect;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.crunch.GroupingOptions;
+import org.apache.crunch.Pair;
+import org.apache.crunch.impl.mem.MemPipeline;
+import org.apache.crunch.types.PType;
+import org.apache.crunch.types.writable.Writables;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+public class ShufflerTest {
+
+  private static final List<Long> KEYS = ImmutableList.of(5L, 3L, 9L, 3L, 1L, 5L, 5L);
+
+  private static List<Pair<Long, Iterable<Integer>>> shuffle(GroupingOptions options) {
+    Shuffler<Long, Integer> shuffler = Shuffler.create(Writables.longs(), Writables.ints(), options,
+        MemPipeline.getInstance());
+    for (int i = 0; i < KEYS.size(); i++) {
+      shuffler.add(Pair.of(KEYS.get(i), i));
+    }
+    return Lists.newArrayList(shuffler);
+  }
+
+  @Test
+  public void testSortedByDefault() {
+    List<Pair<Long, Iterable<Integer>>> groups = shuffle(null);
+    assertEquals(4, groups.size());
+    assertEquals(Long.valueOf(1L), groups.get(0).first());
+    assertEquals(Long.valueOf(3L), groups.get(1).first());
+    assertEquals(ImmutableList.of(1, 3), ImmutableList.copyOf(groups.get(1).second()));
+    assertEquals(Long.valueOf(5L), groups.get(2).first());
+    assertEquals(ImmutableList.of(0, 5, 6), ImmutableList.copyOf(groups.get(2).second()));
+    assertEquals(Long.valueOf(9L), groups.get(3).first());
+  }
+
+  @Test
+  public void testSortedWhenRequired() {
+    List<Pair<Long, Iterable<Integer>>> groups = shuffle(GroupingOptions.builder().requireSortedKeys().build());
+    List<Long> keys = Lists.newArrayList();
+    for (Pair<Long, Iterable<Integer>> group : groups) {
+      keys.add(group.first());
+    }
+    assertEquals(ImmutableList.of(1L, 3L, 5L, 9L), keys);
+  }
+
+  @Test
+  public void testUnsortedGroups() {
+    List<Pair<Long, Iterable<Integer>>> groups = shuffle(GroupingOptions.builder().numReducers(2).build());
+    Map<Long, List<Integer>> values = Maps.newHashMap();
+    for (Pair<Long, Iterable<Integer>> group : groups) {
+      values.put(group.first(), ImmutableList.copyOf(group.second()));
+    }
+    assertEquals(4, values.size());
+    assertEquals(ImmutableList.of(4), values.get(1L));
+    assertEquals(ImmutableList.of(1, 3), values.get(3L));
+    assertEquals(ImmutableList.of(0, 5, 6), values.get(5L));
+    assertEquals(ImmutableList.of(2), values.get(9L));
+  }
+
+  @Test
+  public void testGroupedByNaturalOrder() {
+    // BigDecimal's equals also compares the scale, but the groups are defined by compareTo
+    PType<BigDecimal> keyType = mock(PType.class);
+    when(keyType.getTypeClass()).thenReturn(BigDecimal.class);
+    Shuffler<BigDecimal, Integer> shuffler = Shuffler.create(keyType, Writables.ints(), null,
+        MemPipeline.getInstance());
+    shuffler.add(Pair.of(new BigDecimal("1.0"), 0));
+    shuffler.add(Pair.of(new BigDecimal("2"), 1));
+    shuffler.add(Pair.of(new BigDecimal("1.00"), 2));
+
+    List<Pair<BigDecimal, Iterable<Integer>>> groups = Lists.newArrayList(shuffler);
+    assertEquals(2, groups.size());
+    assertEquals(0, BigDecimal.ONE.compareTo(groups.get(0).first()));
+    assertEquals(ImmutableList.of(0, 2), ImmutableList.copyOf(groups.get(0).second()));
+    assertEquals(ImmutableList.of(1), ImmutableList.copyOf(groups.get(1).second()));
+  }
+}
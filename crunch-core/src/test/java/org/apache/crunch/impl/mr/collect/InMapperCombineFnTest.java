@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mr.collect;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map;
+
+import org.apache.crunch.Pair;
+import org.apache.crunch.fn.Aggregators;
+import org.apache.crunch.impl.mem.emit.InMemoryEmitter;
+import org.apache.crunch.impl.mr.run.RuntimeParameters;
+import org.apache.crunch.types.writable.Writables;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+
+public class InMapperCombineFnTest {
+
+  private InMemoryEmitter<Pair<String, Long>> run(int maxEntries, String... keys) {
+    Configuration conf = new Configuration();
+    conf.setInt(RuntimeParameters.IN_MAPPER_COMBINE_MAX_ENTRIES, maxEntries);
+    InMapperCombineFn<String, Long> fn = new InMapperCombineFn<String, Long>(Aggregators.SUM_LONGS(),
+        Writables.tableOf(Writables.strings(), Writables.longs()));
+    fn.setConfiguration(conf);
+    fn.initialize();
+    InMemoryEmitter<Pair<String, Long>> emitter = new InMemoryEmitter<Pair<String, Long>>();
+    for (String key : keys) {
+      fn.process(Pair.of(key, 1L), emitter);
+    }
+    fn.cleanup(emitter);
+    return emitter;
+  }
+
+  private static Map<String, Long> sum(Iterable<Pair<String, Long>> pairs) {
+    Map<String, Long> sums = Maps.newHashMap();
+    for (Pair<String, Long> p : pairs) {
+      Long current = sums.get(p.first());
+      sums.put(p.first(), current == null ? p.second() : current + p.second());
+    }
+    return sums;
+  }
+
+  @Test
+  public void testAggregatesInMemory() {
+    InMemoryEmitter<Pair<String, Long>> emitter = run(100, "a", "b", "a", "a", "b");
+    assertEquals(2, emitter.getOutput().size());
+    assertEquals(3L, sum(emitter.getOutput()).get("a").longValue());
+    assertEquals(2L, sum(emitter.getOutput()).get("b").longValue());
+  }
+
+  @Test
+  public void testFlushesAtMaxEntries() {
+    InMemoryEmitter<Pair<String, Long>> emitter = run(2, "a", "b", "a", "c", "a");
+    assertEquals(3L, sum(emitter.getOutput()).get("a").longValue());
+    assertEquals(1L, sum(emitter.getOutput()).get("c").longValue());
+    assertEquals(5, emitter.getOutput().size());
+  }
+
+  @Test
+  public void testMaxEntriesEstimatedFromHeap() {
+    Configuration conf = new Configuration();
+    conf.setInt("io.sort.mb", 100);
+    conf.setInt(RuntimeParameters.IN_MAPPER_COMBINE_BYTES_PER_ENTRY, 1024);
+    // Half of the 100MB left after the map output buffer, at 1KB per entry
+    assertEquals(51200, InMapperCombineFn.getMaxEntries(conf, 200L * 1024 * 1024));
+    // The configured maximum number of entries still applies to large heaps
+    assertEquals(100000, InMapperCombineFn.getMaxEntries(conf, 1024L * 1024 * 1024 * 1024));
+    // There is always room for at least one entry
+    assertEquals(1, InMapperCombineFn.getMaxEntries(conf, 50L * 1024 * 1024));
+  }
+}
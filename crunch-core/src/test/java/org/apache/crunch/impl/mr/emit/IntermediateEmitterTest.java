@@ -20,9 +20,19 @@ package org.apache.crunch.impl.mr.emit;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
 
 import org.apache.crunch.impl.mr.run.RTNode;
 import org.apache.crunch.test.StringWrapper;
@@ -32,6 +42,9 @@ import org.apache.hadoop.conf.Configuration;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.google.common.collect.Lists;
 
@@ -75,9 +88,65 @@ public class IntermediateEmitterTest {
     assertEquals(stringWrapper, argumentCaptorA.getValue());
     assertEquals(stringWrapper, argumentCaptorB.getValue());
 
-    // Make sure that multiple children means deep copies are performed
+    // Make sure that multiple children means deep copies are performed for all but the last child
+    assertNotSame(stringWrapper, argumentCaptorA.getValue());
+    assertSame(stringWrapper, argumentCaptorB.getValue());
+  }
+
+  @Test
+  public void testEmit_ReadOnlyChildren() {
+    RTNode childA = mock(RTNode.class);
+    RTNode childB = mock(RTNode.class);
+    RTNode readOnlyChild = mock(RTNode.class);
+    when(readOnlyChild.isReadOnlyConsumer()).thenReturn(true);
+    IntermediateEmitter emitter = new IntermediateEmitter(ptype,
+        Lists.newArrayList(childA, childB, readOnlyChild), new Configuration(), false);
+    emitter.emit(stringWrapper);
+
+    ArgumentCaptor<StringWrapper> argumentCaptorA = ArgumentCaptor.forClass(StringWrapper.class);
+    ArgumentCaptor<StringWrapper> argumentCaptorB = ArgumentCaptor.forClass(StringWrapper.class);
+    ArgumentCaptor<StringWrapper> argumentCaptorReadOnly = ArgumentCaptor.forClass(StringWrapper.class);
+
+    InOrder inOrder = inOrder(readOnlyChild, childA, childB);
+    inOrder.verify(readOnlyChild).process(argumentCaptorReadOnly.capture());
+    inOrder.verify(childA).process(argumentCaptorA.capture());
+    inOrder.verify(childB).process(argumentCaptorB.capture());
+
+    assertSame(stringWrapper, argumentCaptorReadOnly.getValue());
     assertNotSame(stringWrapper, argumentCaptorA.getValue());
-    assertNotSame(stringWrapper, argumentCaptorB.getValue());
+    assertSame(stringWrapper, argumentCaptorB.getValue());
+  }
+
+  @Test
+  public void testEmit_ImmutableType() {
+    RTNode childA = mock(RTNode.class);
+    RTNode childB = mock(RTNode.class);
+    PType<String> strings = spy(Avros.strings());
+    IntermediateEmitter emitter = new IntermediateEmitter((PType) strings, Lists.newArrayList(childA, childB),
+        new Configuration(), false);
+    emitter.emit("a");
+    emitter.emit("b");
+
+    // Values of a type that is declared to be immutable are never copied
+    verify(strings, never()).getDetachedValue(anyString());
+  }
+
+  @Test
+  public void testEmit_MutableTypeReturningSameInstance() {
+    RTNode childA = mock(RTNode.class);
+    RTNode childB = mock(RTNode.class);
+    // A copy that happens to return its input must not stop later values from being copied
+    doReturn(stringWrapper).when(ptype).getDetachedValue(stringWrapper);
+    IntermediateEmitter emitter = new IntermediateEmitter(ptype, Lists.newArrayList(childA, childB),
+        new Configuration(), false);
+    emitter.emit(stringWrapper);
+    StringWrapper other = new StringWrapper("other");
+    emitter.emit(other);
+
+    ArgumentCaptor<StringWrapper> argumentCaptorA = ArgumentCaptor.forClass(StringWrapper.class);
+    verify(childA, times(2)).process(argumentCaptorA.capture());
+    assertNotSame(other, argumentCaptorA.getAllValues().get(1));
+    assertEquals(other, argumentCaptorA.getAllValues().get(1));
   }
 
   @Test
@@ -101,4 +170,70 @@ public class IntermediateEmitterTest {
     assertSame(stringWrapper, argumentCaptorA.getValue());
     assertSame(stringWrapper, argumentCaptorB.getValue());
   }
+
+  private static List<List<Object>> batchChild(RTNode child, int batchSize) {
+    when(child.isBatchConsumer()).thenReturn(true);
+    when(child.getBatchSize()).thenReturn(batchSize);
+    final List<List<Object>> batches = Lists.newArrayList();
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        batches.add(Lists.newArrayList((List<Object>) invocation.getArguments()[0]));
+        return null;
+      }
+    }).when(child).processBatch(anyList());
+    return batches;
+  }
+
+  @Test
+  public void testEmit_BatchChild() {
+    RTNode batchChild = mock(RTNode.class);
+    List<List<Object>> batches = batchChild(batchChild, 2);
+    IntermediateEmitter emitter = new IntermediateEmitter(ptype, Lists.newArrayList(batchChild),
+        new Configuration(), false);
+    emitter.emit(stringWrapper);
+    emitter.emit(stringWrapper);
+    emitter.emit(stringWrapper);
+    assertEquals(1, batches.size());
+    emitter.flush();
+
+    assertEquals(2, batches.size());
+    assertEquals(2, batches.get(0).size());
+    assertEquals(1, batches.get(1).size());
+    // The sole child is given the original values
+    assertSame(stringWrapper, batches.get(0).get(0));
+  }
+
+  @Test
+  public void testEmit_BatchChildWithOtherChild() {
+    RTNode batchChild = mock(RTNode.class);
+    List<List<Object>> batches = batchChild(batchChild, 1);
+    RTNode otherChild = mock(RTNode.class);
+    IntermediateEmitter emitter = new IntermediateEmitter(ptype, Lists.newArrayList(batchChild, otherChild),
+        new Configuration(), false);
+    emitter.emit(stringWrapper);
+
+    ArgumentCaptor<StringWrapper> otherCaptor = ArgumentCaptor.forClass(StringWrapper.class);
+    verify(otherChild).process(otherCaptor.capture());
+
+    // Batched values are retained while the other child may modify the original, so they are detached
+    assertEquals(1, batches.size());
+    assertNotSame(stringWrapper, batches.get(0).get(0));
+    assertEquals(stringWrapper, batches.get(0).get(0));
+    assertSame(stringWrapper, otherCaptor.getValue());
+  }
+
+  @Test
+  public void testEmit_MultipleBatchChildren() {
+    RTNode batchChildA = mock(RTNode.class);
+    List<List<Object>> batchesA = batchChild(batchChildA, 1);
+    RTNode batchChildB = mock(RTNode.class);
+    List<List<Object>> batchesB = batchChild(batchChildB, 1);
+    IntermediateEmitter emitter = new IntermediateEmitter(ptype, Lists.newArrayList(batchChildA, batchChildB),
+        new Configuration(), false);
+    emitter.emit(stringWrapper);
+
+    assertNotSame(stringWrapper, batchesA.get(0).get(0));
+    assertSame(stringWrapper, batchesB.get(0).get(0));
+  }
 }
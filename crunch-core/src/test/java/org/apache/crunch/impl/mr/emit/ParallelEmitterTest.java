@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mr.emit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.crunch.CrunchRuntimeException;
+import org.apache.crunch.Emitter;
+import org.apache.crunch.test.StringWrapper;
+import org.apache.crunch.types.PType;
+import org.apache.crunch.types.avro.Avros;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+public class ParallelEmitterTest {
+
+  private static class CollectingEmitter implements Emitter<Object> {
+    private final List<Object> values;
+
+    CollectingEmitter(List<Object> values) {
+      this.values = values;
+    }
+
+    @Override
+    public void emit(Object emitted) {
+      if ("fail".equals(emitted)) {
+        throw new CrunchRuntimeException("failed");
+      }
+      values.add(emitted);
+    }
+
+    @Override
+    public void flush() {
+    }
+  }
+
+  private ParallelEmitter create(List<Object> values, int queueSize) {
+    return new ParallelEmitter((PType) Avros.strings(),
+        ImmutableList.of(new CollectingEmitter(values), new CollectingEmitter(values)),
+        new Configuration(), queueSize);
+  }
+
+  @Test
+  public void testAllValuesProcessed() {
+    List<Object> values = Collections.synchronizedList(Lists.newArrayList());
+    ParallelEmitter emitter = create(values, 4);
+    for (int i = 0; i < 100; i++) {
+      emitter.emit(String.valueOf(i));
+    }
+    emitter.flush();
+    assertEquals(100, values.size());
+  }
+
+  @Test(expected = CrunchRuntimeException.class)
+  public void testWorkerFailureRethrown() {
+    List<Object> values = Collections.synchronizedList(Lists.newArrayList());
+    ParallelEmitter emitter = create(values, 4);
+    emitter.emit("fail");
+    for (int i = 0; i < 100; i++) {
+      emitter.emit(String.valueOf(i));
+    }
+    emitter.flush();
+  }
+
+  @Test
+  public void testMutableTypeReturningSameInstance() {
+    StringWrapper first = new StringWrapper("first");
+    StringWrapper second = new StringWrapper("second");
+    PType ptype = spy(Avros.reflects(StringWrapper.class));
+    // A copy that happens to return its input must not stop later values from being copied
+    doReturn(first).when(ptype).getDetachedValue(first);
+    List<Object> values = Collections.synchronizedList(Lists.newArrayList());
+    ParallelEmitter emitter = new ParallelEmitter(ptype,
+        ImmutableList.of(new CollectingEmitter(values)), new Configuration(), 4);
+    emitter.emit(first);
+    emitter.emit(second);
+    emitter.flush();
+
+    assertEquals(2, values.size());
+    assertSame(first, values.get(0));
+    assertEquals(second, values.get(1));
+    assertNotSame(second, values.get(1));
+  }
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mr.exec;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import org.apache.crunch.Source;
+import org.apache.crunch.impl.mr.run.RuntimeParameters;
+import org.apache.crunch.util.PartitionUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Job;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+public class CrunchJobHooksTest {
+
+  private Configuration conf;
+  private Job job;
+
+  @Before
+  public void setUp() {
+    conf = new Configuration();
+    conf.setLong(PartitionUtils.BYTES_PER_REDUCE_TASK, 1000L);
+    job = mock(Job.class);
+    when(job.getConfiguration()).thenReturn(conf);
+    when(job.getNumReduceTasks()).thenReturn(1);
+  }
+
+  private Source<?> source(long size) {
+    Source<?> source = mock(Source.class);
+    when(source.getSize(conf)).thenReturn(size);
+    return source;
+  }
+
+  @Test
+  public void testReducersEstimatedFromInputSizes() throws Exception {
+    Map<Source<?>, Float> scales = ImmutableMap.<Source<?>, Float>of(source(10000L), 0.5f, source(4000L), 1.0f);
+    new CrunchJobHooks.PrepareHook(job, scales).run();
+    // 5000 + 4000 bytes are shuffled, at 1000 bytes per reducer
+    verify(job).setNumReduceTasks(10);
+  }
+
+  @Test
+  public void testUnknownInputSizeKeepsPlannedReducers() throws Exception {
+    Map<Source<?>, Float> scales = ImmutableMap.<Source<?>, Float>of(source(10000L), 0.5f, source(-1L), 1.0f);
+    new CrunchJobHooks.PrepareHook(job, scales).run();
+    verify(job, never()).setNumReduceTasks(anyInt());
+  }
+
+  @Test
+  public void testNoScalesKeepsPlannedReducers() throws Exception {
+    new CrunchJobHooks.PrepareHook(job, null).run();
+    verify(job, never()).setNumReduceTasks(anyInt());
+  }
+
+  @Test
+  public void testEstimateDisabled() throws Exception {
+    conf.setBoolean(RuntimeParameters.RUNTIME_REDUCER_ESTIMATE, false);
+    Map<Source<?>, Float> scales = ImmutableMap.<Source<?>, Float>of(source(10000L), 0.5f);
+    new CrunchJobHooks.PrepareHook(job, scales).run();
+    verify(job, never()).setNumReduceTasks(anyInt());
+  }
+}
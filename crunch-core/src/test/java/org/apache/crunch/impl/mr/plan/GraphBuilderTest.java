@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mr.plan;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.crunch.PTable;
+import org.apache.crunch.Pair;
+import org.apache.crunch.TableSource;
+import org.apache.crunch.fn.IdentityFn;
+import org.apache.crunch.impl.dist.collect.CommonSubexpressions;
+import org.apache.crunch.impl.dist.collect.PCollectionImpl;
+import org.apache.crunch.impl.mr.MRPipeline;
+import org.apache.crunch.io.From;
+import org.apache.crunch.types.writable.Writables;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+public class GraphBuilderTest {
+
+  private static final String INPUT = "/tmp/crunch/graph-builder-test/input";
+
+  private static PTable<String, Long> readTable(MRPipeline pipeline) {
+    TableSource<String, Long> source = From.sequenceFile(INPUT, Writables.strings(), Writables.longs());
+    PTable<String, Long> table = pipeline.read(source);
+    return table.parallelDo(IdentityFn.<Pair<String, Long>>getInstance(), table.getPTableType());
+  }
+
+  @Test
+  public void testCommonSubexpressionsWithTableSource() {
+    MRPipeline pipeline = new MRPipeline(GraphBuilderTest.class, new Configuration());
+    PTable<String, Long> first = readTable(pipeline);
+    PTable<String, Long> second = readTable(pipeline);
+
+    GraphBuilder graphBuilder = new GraphBuilder(new CommonSubexpressions());
+    graphBuilder.visitOutput((PCollectionImpl<?>) first);
+    graphBuilder.visitOutput((PCollectionImpl<?>) second);
+
+    int inputs = 0;
+    for (Vertex v : graphBuilder.getGraph()) {
+      if (!v.isOutput()) {
+        assertTrue(v.isInput());
+        assertNotNull(v.getSource());
+        inputs++;
+      }
+    }
+    assertEquals(1, inputs);
+  }
+}
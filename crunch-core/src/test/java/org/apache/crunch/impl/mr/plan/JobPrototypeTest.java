@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mr.plan;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import org.apache.crunch.Source;
+import org.apache.crunch.impl.dist.collect.BaseInputCollection;
+import org.apache.crunch.impl.dist.collect.PCollectionImpl;
+import org.apache.crunch.impl.mr.collect.PGroupedTableImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class JobPrototypeTest {
+
+  private PGroupedTableImpl<?, ?> group;
+  private Source<?> source;
+  private BaseInputCollection<?> input;
+
+  @Before
+  public void setUp() {
+    group = mock(PGroupedTableImpl.class);
+    when(group.getScaleFactor()).thenReturn(1.0f);
+    source = mock(Source.class);
+    input = mock(BaseInputCollection.class);
+    when(input.getSource()).thenReturn((Source) source);
+    when(input.getScaleFactor()).thenReturn(1.0f);
+  }
+
+  private static PCollectionImpl<?> collection(float scaleFactor) {
+    PCollectionImpl<?> collect = mock(PCollectionImpl.class);
+    when(collect.getScaleFactor()).thenReturn(scaleFactor);
+    return collect;
+  }
+
+  private NodePath path(PCollectionImpl<?>... stages) {
+    NodePath path = new NodePath(group);
+    for (int i = stages.length - 1; i >= 0; i--) {
+      path.push(stages[i]);
+    }
+    return path.close(input);
+  }
+
+  @Test
+  public void testScaleFactorsMultipliedAlongPath() {
+    Map<Source<?>, Float> scales = JobPrototype.getShuffleScales(group,
+        ImmutableList.of(path(collection(0.5f), collection(0.2f))));
+    assertEquals(1, scales.size());
+    assertEquals(0.1f, scales.get(source), 0.0001f);
+  }
+
+  @Test
+  public void testPathsFromSameSourceSummed() {
+    Map<Source<?>, Float> scales = JobPrototype.getShuffleScales(group,
+        ImmutableList.of(path(collection(0.5f)), path(collection(2.0f), collection(0.5f))));
+    assertEquals(1, scales.size());
+    assertEquals(1.5f, scales.get(source), 0.0001f);
+  }
+
+  @Test
+  public void testFixedNumReducersNotEstimated() {
+    when(group.hasFixedNumReducers()).thenReturn(true);
+    assertNull(JobPrototype.getShuffleScales(group, ImmutableList.of(path(collection(0.5f)))));
+  }
+
+  @Test
+  public void testMapOnlyJobNotEstimated() {
+    assertNull(JobPrototype.getShuffleScales(null, null));
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mr.plan;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.crunch.SourceTarget;
+import org.apache.crunch.Target;
+import org.apache.crunch.impl.dist.collect.PCollectionImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+public class SplitCostModelTest {
+
+  private Map<PCollectionImpl<?>, Set<Target>> outputs;
+  private PCollectionImpl<?> pcollect;
+
+  @Before
+  public void setUp() {
+    outputs = Maps.newHashMap();
+    pcollect = mock(PCollectionImpl.class);
+    when(pcollect.getSize()).thenReturn(100L);
+  }
+
+  @Test
+  public void testSizeBased() {
+    assertEquals(100L, new SplitCostModel(outputs, false).getCost(pcollect));
+  }
+
+  @Test
+  public void testCostBased_Intermediate() {
+    assertEquals(200L, new SplitCostModel(outputs, true).getCost(pcollect));
+  }
+
+  @Test
+  public void testCostBased_AlreadyWritten() {
+    outputs.put(pcollect, ImmutableSet.<Target>of(mock(SourceTarget.class)));
+    assertEquals(100L, new SplitCostModel(outputs, true).getCost(pcollect));
+  }
+
+  @Test
+  public void testCostBased_NonReadableTarget() {
+    outputs.put(pcollect, ImmutableSet.of(mock(Target.class)));
+    assertEquals(200L, new SplitCostModel(outputs, true).getCost(pcollect));
+  }
+
+  @Test
+  public void testAddSaturates() {
+    assertEquals(Long.MAX_VALUE, SplitCostModel.add(Long.MAX_VALUE, 1L));
+  }
+}
@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.mr.run;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+
+import org.apache.crunch.PipelineResult.NodeResult;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+public class RTNodeTest {
+
+  private static RTNode node(String name, RTNode... children) {
+    return new RTNode(null, null, name, ImmutableList.copyOf(children), null, null, null);
+  }
+
+  @Test
+  public void testMetricsNamesBounded() {
+    RTNode c = node("c");
+    RTNode d = node("d");
+    RTNode b = node("b", c, d);
+    RTNode otherA = node("a");
+    List<RTNode> roots = ImmutableList.of(node("a", b), otherA);
+    Set<String> assigned = Sets.newHashSet();
+    RTNode.assignMetricsNames(roots, assigned, 3);
+
+    assertEquals("a", roots.get(0).getMetricsName());
+    assertEquals("b", b.getMetricsName());
+    assertEquals("c", c.getMetricsName());
+    assertEquals(NodeResult.OTHER_NODES, d.getMetricsName());
+    // Nodes with a name that already has counters share them
+    assertEquals("a", otherA.getMetricsName());
+    assertEquals(3, assigned.size());
+  }
+}
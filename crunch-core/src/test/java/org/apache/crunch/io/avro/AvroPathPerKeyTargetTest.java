@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.io.avro;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.apache.crunch.impl.mr.plan.PlanningParameters;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AvroPathPerKeyTargetTest {
+
+  @Rule
+  public TemporaryFolder tmpDir = new TemporaryFolder();
+
+  @Test
+  public void testCheckpointFingerprintWritten() throws Exception {
+    Configuration conf = new Configuration();
+    FileSystem fs = FileSystem.getLocal(conf);
+    Path working = new Path(tmpDir.getRoot().getAbsolutePath(), "working");
+    fs.create(new Path(working, PlanningParameters.MULTI_OUTPUT_PREFIX + "0/key1/part-m-00000")).close();
+    Path output = new Path(new File(tmpDir.getRoot(), "output").getAbsolutePath());
+
+    AvroPathPerKeyTarget target = new AvroPathPerKeyTarget(output);
+    assertFalse(target.handleExistingCheckpoint("fingerprint", conf));
+    target.handleOutputs(conf, working, 0);
+
+    assertTrue(fs.exists(new Path(output, "key1")));
+    assertTrue(fs.exists(new Path(output, "_SUCCESS")));
+    assertTrue(fs.exists(new Path(output, "_FINGERPRINT")));
+    assertTrue(new AvroPathPerKeyTarget(output).handleExistingCheckpoint("fingerprint", conf));
+  }
+}
@@ -18,6 +18,8 @@
 package org.apache.crunch.lib;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.List;
 import java.util.Map;
@@ -68,4 +70,12 @@ public class SampleTest {
     List<Integer> sampleValues = ImmutableList.copyOf(sample);
     assertEquals(ImmutableList.of(6, 7), sampleValues);
   }
+
+  @Test
+  public void testUnseededSamplesNotDeterministic() {
+    assertFalse(new SampleUtils.SampleFn<Integer>(0.2, null).isDeterministic());
+    assertTrue(new SampleUtils.SampleFn<Integer>(0.2, 123998L).isDeterministic());
+    assertFalse(new SampleUtils.ReservoirSampleFn<String, Double>(new int[] { 1 }, null,
+        Writables.strings()).isDeterministic());
+  }
 }
@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.lib;
+
+import static org.apache.crunch.lib.Sort.ColumnOrder.by;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.apache.crunch.PCollection;
+import org.apache.crunch.Pair;
+import org.apache.crunch.impl.mem.MemPipeline;
+import org.apache.crunch.lib.Sort.Order;
+import org.apache.crunch.types.avro.Avros;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+public class SortTest {
+
+  private static final List<Pair<String, Long>> PAIRS = ImmutableList.of(
+      Pair.of("b", 1L), Pair.of("a", 2L), Pair.of("b", 0L), Pair.of("a", 1L));
+
+  private static PCollection<Pair<String, Long>> pairs() {
+    return MemPipeline.typedCollectionOf(Avros.pairs(Avros.strings(), Avros.longs()), PAIRS);
+  }
+
+  @Test
+  public void testAvroStrings() {
+    PCollection<String> input = MemPipeline.typedCollectionOf(Avros.strings(), "c", "a", "b");
+    assertEquals(ImmutableList.of("a", "b", "c"), Lists.newArrayList(Sort.sort(input).materialize()));
+    assertEquals(ImmutableList.of("c", "b", "a"),
+        Lists.newArrayList(Sort.sort(input, Order.DESCENDING).materialize()));
+  }
+
+  @Test
+  public void testAvroPairs() {
+    assertEquals(
+        ImmutableList.of(Pair.of("a", 1L), Pair.of("a", 2L), Pair.of("b", 0L), Pair.of("b", 1L)),
+        Lists.newArrayList(Sort.sort(pairs()).materialize()));
+  }
+
+  @Test
+  public void testAvroPairsByColumns() {
+    assertEquals(
+        ImmutableList.of(Pair.of("a", 2L), Pair.of("a", 1L), Pair.of("b", 1L), Pair.of("b", 0L)),
+        Lists.newArrayList(Sort.sortPairs(pairs(), by(1, Order.ASCENDING), by(2, Order.DESCENDING))
+            .materialize()));
+  }
+}
@@ -0,0 +1,96 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.lib.join;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.crunch.PTable;
+import org.apache.crunch.Pipeline;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AutoJoinStrategyTest {
+
+  private PTable<String, Long> left;
+  private PTable<String, Long> right;
+
+  @Before
+  public void setUp() {
+    Configuration conf = new Configuration();
+    conf.setLong(AutoJoinStrategy.MAPSIDE_MAX_BYTES, 1000L);
+    Pipeline pipeline = mock(Pipeline.class);
+    when(pipeline.getConfiguration()).thenReturn(conf);
+    left = mock(PTable.class);
+    right = mock(PTable.class);
+    when(left.getPipeline()).thenReturn(pipeline);
+    when(right.getPipeline()).thenReturn(pipeline);
+  }
+
+  private Class<?> chosen(AutoJoinStrategy<String, Long, Long> strategy, long leftSize, long rightSize,
+      JoinType joinType) {
+    when(left.getSize()).thenReturn(leftSize);
+    when(right.getSize()).thenReturn(rightSize);
+    return strategy.chooseStrategy(left, right, joinType).getClass();
+  }
+
+  @Test
+  public void testSmallRightSide() {
+    assertEquals(MapsideJoinStrategy.class,
+        chosen(new AutoJoinStrategy<String, Long, Long>(), 5000L, 500L, JoinType.INNER_JOIN));
+  }
+
+  @Test
+  public void testSmallLeftSide() {
+    Class<?> strategyClass = chosen(new AutoJoinStrategy<String, Long, Long>(), 500L, 5000L,
+        JoinType.RIGHT_OUTER_JOIN);
+    assertEquals(true, MapsideJoinStrategy.class.isAssignableFrom(strategyClass));
+  }
+
+  @Test
+  public void testSmallLeftSide_LeftOuterJoin() {
+    assertEquals(DefaultJoinStrategy.class,
+        chosen(new AutoJoinStrategy<String, Long, Long>(), 500L, 5000L, JoinType.LEFT_OUTER_JOIN));
+  }
+
+  @Test
+  public void testFullOuterJoin() {
+    assertEquals(DefaultJoinStrategy.class,
+        chosen(new AutoJoinStrategy<String, Long, Long>(), 5L, 5L, JoinType.FULL_OUTER_JOIN));
+  }
+
+  @Test
+  public void testBloomFilter() {
+    assertEquals(BloomFilterJoinStrategy.class,
+        chosen(new AutoJoinStrategy<String, Long, Long>(100), 5000L, 500000L, JoinType.INNER_JOIN));
+  }
+
+  @Test
+  public void testSharded() {
+    AutoJoinStrategy<String, Long, Long> strategy = new AutoJoinStrategy<String, Long, Long>(
+        -1, new ShardedJoinStrategy.ShardingStrategy<String>() {
+          @Override
+          public int getNumShards(String key) {
+            return 4;
+          }
+        }, -1);
+    assertEquals(ShardedJoinStrategy.class, chosen(strategy, 5000L, 5000L, JoinType.INNER_JOIN));
+  }
+}
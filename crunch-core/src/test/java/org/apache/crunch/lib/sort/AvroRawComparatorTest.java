@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.lib.sort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryData;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.mapred.AvroKey;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+public class AvroRawComparatorTest {
+
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"key\", "
+      + "\"fields\": ["
+      + "{\"name\": \"s\", \"type\": \"string\", \"order\": \"descending\"},"
+      + "{\"name\": \"m\", \"type\": {\"type\": \"map\", \"values\": \"long\"}, \"order\": \"ignore\"},"
+      + "{\"name\": \"i\", \"type\": \"int\"},"
+      + "{\"name\": \"u\", \"type\": [\"null\", \"double\"], \"order\": \"descending\"},"
+      + "{\"name\": \"a\", \"type\": {\"type\": \"array\", \"items\": \"long\"}},"
+      + "{\"name\": \"b\", \"type\": \"boolean\"}"
+      + "]}");
+
+  private static byte[] encode(Object datum, Schema schema) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(baos, null);
+    new GenericDatumWriter<Object>(schema).write(datum, encoder);
+    encoder.flush();
+    return baos.toByteArray();
+  }
+
+  private static GenericRecord randomRecord(Random r) {
+    GenericRecord rec = new GenericData.Record(SCHEMA);
+    rec.put("s", "k" + r.nextInt(3));
+    rec.put("m", ImmutableMap.of("x", (long) r.nextInt(10)));
+    rec.put("i", r.nextInt(5) - 2);
+    rec.put("u", r.nextBoolean() ? null : (double) r.nextInt(3));
+    List<Long> a = Lists.newArrayList();
+    for (int j = r.nextInt(3); j > 0; j--) {
+      a.add((long) r.nextInt(2));
+    }
+    rec.put("a", a);
+    rec.put("b", r.nextBoolean());
+    return rec;
+  }
+
+  @Test
+  public void testConsistentWithBinaryData() throws IOException {
+    AvroRawComparator comparator = new AvroRawComparator(SCHEMA, false);
+    Random r = new Random(1729);
+    for (int n = 0; n < 2000; n++) {
+      byte[] b1 = encode(randomRecord(r), SCHEMA);
+      byte[] b2 = encode(randomRecord(r), SCHEMA);
+      int expected = Integer.signum(BinaryData.compare(b1, 0, b1.length, b2, 0, b2.length, SCHEMA));
+      assertEquals(expected, Integer.signum(comparator.compare(b1, 0, b1.length, b2, 0, b2.length)));
+    }
+  }
+
+  @Test
+  public void testCompareAtOffset() throws IOException {
+    Schema schema = Schema.create(Schema.Type.LONG);
+    byte[] b1 = encode(5L, schema);
+    byte[] b2 = new byte[b1.length + 3];
+    System.arraycopy(encode(-3L, schema), 0, b2, 3, encode(-3L, schema).length);
+    AvroRawComparator comparator = new AvroRawComparator(schema, false);
+    assertTrue(comparator.compare(b1, 0, b1.length, b2, 3, b2.length - 3) > 0);
+  }
+
+  @Test
+  public void testRecursiveSchema() throws IOException {
+    Schema schema = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"node\", \"fields\": ["
+        + "{\"name\": \"value\", \"type\": \"int\"},"
+        + "{\"name\": \"next\", \"type\": [\"null\", \"node\"]}"
+        + "]}");
+    AvroRawComparator comparator = new AvroRawComparator(schema, false);
+    byte[] b1 = encode(list(schema, 1, 2, 3), schema);
+    byte[] b2 = encode(list(schema, 1, 2, 4), schema);
+    byte[] b3 = encode(list(schema, 1, 2), schema);
+    assertEquals(
+        Integer.signum(BinaryData.compare(b1, 0, b1.length, b2, 0, b2.length, schema)),
+        Integer.signum(comparator.compare(b1, 0, b1.length, b2, 0, b2.length)));
+    assertEquals(
+        Integer.signum(BinaryData.compare(b1, 0, b1.length, b3, 0, b3.length, schema)),
+        Integer.signum(comparator.compare(b1, 0, b1.length, b3, 0, b3.length)));
+    assertEquals(0, comparator.compare(b1, 0, b1.length, b1, 0, b1.length));
+  }
+
+  private static GenericRecord list(Schema schema, int... values) {
+    GenericRecord head = null;
+    for (int i = values.length - 1; i >= 0; i--) {
+      GenericRecord node = new GenericData.Record(schema);
+      node.put("value", values[i]);
+      node.put("next", head);
+      head = node;
+    }
+    return head;
+  }
+
+  @Test
+  public void testReverseFromConf() throws IOException {
+    Schema schema = Schema.create(Schema.Type.STRING);
+    Configuration conf = new Configuration();
+    conf.set(AvroRawComparator.SCHEMA, schema.toString());
+    conf.setBoolean(AvroRawComparator.REVERSE, true);
+    AvroRawComparator comparator = new AvroRawComparator();
+    comparator.setConf(conf);
+
+    byte[] a = encode("a", schema);
+    byte[] b = encode("b", schema);
+    assertTrue(comparator.compare(a, 0, a.length, b, 0, b.length) > 0);
+    assertTrue(comparator.compare(new AvroKey<String>("a"), new AvroKey<String>("b")) > 0);
+    assertTrue(comparator.compare("b", "a") < 0);
+  }
+}
@@ -17,9 +17,18 @@
  */
 package org.apache.crunch.types.writable;
 
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.BooleanWritable;
+import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.FloatWritable;
 import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.VIntWritable;
+import org.apache.hadoop.io.VLongWritable;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableUtils;
 import org.junit.Test;
@@ -30,11 +39,51 @@ import java.io.IOException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class TupleWritableTest {
 
+  private static void readInto(TupleWritable target, TupleWritable source) throws IOException {
+    target.readFields(new DataInputStream(new ByteArrayInputStream(WritableUtils.toByteArray(source))));
+  }
+
+  @Test
+  public void testReadFieldsReusesFields() throws IOException {
+    TupleWritable t = new TupleWritable();
+    readInto(t, new TupleWritable(new Writable[] { new IntWritable(1), new Text("a") }));
+    Writable first = t.get(1);
+
+    readInto(t, new TupleWritable(new Writable[] { new IntWritable(2), new Text("b") }));
+    assertSame(first, t.get(1));
+    assertEquals(new IntWritable(2), t.get(0));
+    assertEquals(new Text("b"), t.get(1));
+
+    readInto(t, new TupleWritable(new Writable[] { new IntWritable(3), null }));
+    assertEquals(new IntWritable(3), t.get(0));
+    assertFalse(t.has(1));
+    assertNull(t.get(1));
+
+    readInto(t, new TupleWritable(new Writable[] { new LongWritable(4L), new Text("c") }));
+    assertEquals(new LongWritable(4L), t.get(0));
+    assertEquals(new Text("c"), t.get(1));
+  }
+
+  @Test
+  public void testReadFieldsWithoutReuse() throws IOException {
+    Configuration conf = new Configuration();
+    conf.setBoolean(Writables.REUSE_INPUT_OBJECTS, false);
+    TupleWritable t = new TupleWritable();
+    t.setConf(conf);
+    readInto(t, new TupleWritable(new Writable[] { new Text("a") }));
+    Writable first = t.get(0);
+    readInto(t, new TupleWritable(new Writable[] { new Text("b") }));
+    assertNotSame(first, t.get(0));
+    assertEquals(new Text("a"), first);
+  }
+
   @Test
   public void testSerialization() throws IOException {
     TupleWritable t1 = new TupleWritable(
@@ -83,6 +132,31 @@ public class TupleWritableTest {
         -1); // shorter is less
   }
 
+  @Test
+  public void testSerializedSizes() {
+    Writable[] writables = new Writable[] {
+        new IntWritable(-7), new LongWritable(1L << 40), new FloatWritable(1.5f), new DoubleWritable(2.5),
+        new BooleanWritable(true), NullWritable.get(), new Text("hello world"),
+        new BytesWritable(new byte[] { 1, 2, 3 }), new VIntWritable(300), new VLongWritable(-1L << 35) };
+    for (Writable w : writables) {
+      assertEquals(w.getClass().getName(), WritableUtils.toByteArray(w).length,
+          TupleWritable.getSerializedSize(w));
+    }
+  }
+
+  @Test
+  public void testCompareAtOffset() throws IOException {
+    TupleWritable t1 = new TupleWritable(new Writable[] { new Text("a"), new LongWritable(2L) });
+    TupleWritable t2 = new TupleWritable(new Writable[] { new Text("a"), new LongWritable(1L) });
+    DataOutputBuffer buffer = new DataOutputBuffer();
+    buffer.write(new byte[] { 9, 9, 9 });
+    t1.write(buffer);
+    int s2 = buffer.getLength();
+    t2.write(buffer);
+    assertEquals(1, TupleWritable.Comparator.getInstance().compare(
+        buffer.getData(), 3, s2 - 3, buffer.getData(), s2, buffer.getLength() - s2));
+  }
+
   private void doTestCompare(TupleWritable t1, TupleWritable t2, int result) throws IOException {
     // test comparing objects
     TupleWritable.Comparator comparator = TupleWritable.Comparator.getInstance();
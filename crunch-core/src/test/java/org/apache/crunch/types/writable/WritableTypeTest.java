@@ -19,6 +19,7 @@ package org.apache.crunch.types.writable;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 
@@ -29,6 +30,7 @@ import java.util.UUID;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import org.apache.crunch.MapFn;
 import org.apache.crunch.Pair;
 import org.apache.crunch.test.StringWrapper;
 import org.apache.crunch.types.PType;
@@ -36,6 +38,7 @@ import org.apache.crunch.types.PTypes;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.MapWritable;
 import org.apache.hadoop.io.Text;
 import org.junit.Test;
@@ -172,4 +175,54 @@ public class WritableTypeTest {
     buffer[0] = 99;
     assertEquals(detachedBuffer[0], 1);
   }
+
+  private static MapFn outputFn(PType<?> ptype, boolean reuse) {
+    Configuration conf = new Configuration();
+    conf.setBoolean(Writables.REUSE_OUTPUT_OBJECTS, reuse);
+    MapFn fn = ptype.getOutputMapFn();
+    fn.setConfiguration(conf);
+    fn.initialize();
+    return fn;
+  }
+
+  @Test
+  public void testOutputMapFn_NoReuseByDefault() {
+    MapFn fn = outputFn(Writables.strings(), false);
+    Text first = (Text) fn.map("a");
+    Text second = (Text) fn.map("b");
+    assertNotSame(first, second);
+    assertEquals(new Text("a"), first);
+  }
+
+  @Test
+  public void testOutputMapFn_Reuse() {
+    MapFn fn = outputFn(Writables.longs(), true);
+    LongWritable first = (LongWritable) fn.map(1L);
+    assertEquals(1L, first.get());
+    assertSame(first, fn.map(2L));
+    assertEquals(2L, first.get());
+  }
+
+  @Test
+  public void testOutputMapFn_ReuseIsNotShared() {
+    PType<String> strings = Writables.strings();
+    MapFn fn1 = outputFn(strings, true);
+    MapFn fn2 = outputFn(strings, true);
+    assertNotSame(fn1.map("a"), fn2.map("b"));
+    assertEquals(new Text("b"), fn2.map("b"));
+  }
+
+  @Test
+  public void testOutputMapFn_ReuseNotAppliedToNestedValues() {
+    WritableTableType<String, String> tableType = Writables.tableOf(Writables.strings(), Writables.strings());
+    Pair<Text, Text> output = (Pair<Text, Text>) outputFn(tableType, true).map(Pair.of("a", "b"));
+    assertEquals(new Text("a"), output.first());
+    assertEquals(new Text("b"), output.second());
+
+    WritableType<Collection<String>, GenericArrayWritable> collectionType = Writables.collections(
+        Writables.strings());
+    GenericArrayWritable array = (GenericArrayWritable) outputFn(collectionType, true).map(
+        Lists.newArrayList("a", "b"));
+    assertFalse(array.get()[0].equals(array.get()[1]));
+  }
 }
@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import org.apache.crunch.fn.Aggregators;
+import org.apache.crunch.impl.spark.SparkPipeline;
+import org.apache.crunch.io.From;
+import org.apache.crunch.test.TemporaryPath;
+import org.apache.crunch.types.PTypeFamily;
+import org.apache.crunch.types.avro.AvroTypeFamily;
+import org.apache.crunch.types.writable.WritableTypeFamily;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class SparkCombineValuesIT {
+
+  private static class SplitFn extends DoFn<String, Pair<String, Long>> {
+    @Override
+    public void process(String input, Emitter<Pair<String, Long>> emitter) {
+      for (String word : input.split("\\s+")) {
+        emitter.emit(Pair.of(word, 1L));
+      }
+    }
+  }
+
+  @Rule
+  public TemporaryPath tempDir = new TemporaryPath();
+
+  @Test
+  public void testDuplicateValuesWritables() throws Exception {
+    run(WritableTypeFamily.getInstance());
+  }
+
+  @Test
+  public void testDuplicateValuesAvro() throws Exception {
+    run(AvroTypeFamily.getInstance());
+  }
+
+  /**
+   * Every word occurs many times with the same value, so a combine that loses duplicate values
+   * undercounts them.
+   */
+  private void run(PTypeFamily tf) throws Exception {
+    List<String> lines = Lists.newArrayList();
+    for (int i = 0; i < 100; i++) {
+      lines.add(i % 2 == 0 ? "a a b" : "a c");
+    }
+    File input = new File(tempDir.getFileName("input.txt"));
+    Files.write(Joiner.on('\n').join(lines), input, Charsets.UTF_8);
+
+    Pipeline p = new SparkPipeline("local", "combinevalues");
+    PTable<String, Long> counts = p.read(From.textFile(input.getAbsolutePath()))
+        .parallelDo(new SplitFn(), tf.tableOf(tf.strings(), tf.longs()))
+        .groupByKey()
+        .combineValues(Aggregators.SUM_LONGS());
+    Map<String, Long> actual = Maps.newHashMap();
+    for (Pair<String, Long> count : counts.materialize()) {
+      actual.put(count.first(), count.second());
+    }
+    assertEquals(ImmutableMap.of("a", 150L, "b", 50L, "c", 50L), actual);
+    p.done();
+  }
+}
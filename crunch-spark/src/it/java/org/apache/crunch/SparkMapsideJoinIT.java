@@ -24,7 +24,9 @@ import org.apache.crunch.impl.spark.SparkPipeline;
 import org.apache.crunch.lib.join.JoinStrategy;
 import org.apache.crunch.lib.join.JoinType;
 import org.apache.crunch.lib.join.MapsideJoinStrategy;
+import org.apache.crunch.test.StringWrapper;
 import org.apache.crunch.test.TemporaryPath;
+import org.apache.crunch.types.avro.Avros;
 import org.apache.crunch.types.writable.Writables;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -123,6 +125,32 @@ public class SparkMapsideJoinIT {
     runMapsideLeftOuterJoin(new SparkPipeline("local", "mapside"), true);
   }
 
+  @Test
+  public void testMapsideJoin_ReflectValues() throws IOException {
+    Pipeline pipeline = new SparkPipeline("local", "mapside");
+    // The broadcast right side is decoded on the executors with the pipeline's configuration
+    Avros.configureReflectDataFactory(pipeline.getConfiguration());
+    PTable<Integer, String> customerTable = readTable(pipeline, "customers.txt");
+    PTable<Integer, StringWrapper> orderTable = readTable(pipeline, "orders.txt")
+        .mapValues(new StringWrapper.StringToStringWrapperMapFn(), Avros.reflects(StringWrapper.class));
+
+    JoinStrategy<Integer, String, StringWrapper> mapsideJoin =
+        new MapsideJoinStrategy<Integer, String, StringWrapper>();
+    PTable<Integer, Pair<String, StringWrapper>> joined =
+        mapsideJoin.join(customerTable, orderTable, JoinType.INNER_JOIN);
+
+    List<Pair<Integer, Pair<String, StringWrapper>>> expectedJoinResult = Lists.newArrayList();
+    expectedJoinResult.add(Pair.of(111, Pair.of("John Doe", StringWrapper.wrap("Corn flakes"))));
+    expectedJoinResult.add(Pair.of(222, Pair.of("Jane Doe", StringWrapper.wrap("Toilet paper"))));
+    expectedJoinResult.add(Pair.of(222, Pair.of("Jane Doe", StringWrapper.wrap("Toilet plunger"))));
+    expectedJoinResult.add(Pair.of(333, Pair.of("Someone Else", StringWrapper.wrap("Toilet brush"))));
+
+    List<Pair<Integer, Pair<String, StringWrapper>>> joinedResultList = Lists.newArrayList(joined.materialize());
+    Collections.sort(joinedResultList);
+    assertEquals(expectedJoinResult, joinedResultList);
+    pipeline.done();
+  }
+
   private void runMapsideJoin(Pipeline pipeline, boolean materialize) {
     PTable<Integer, String> customerTable = readTable(pipeline, "customers.txt");
     PTable<Integer, String> orderTable = readTable(pipeline, "orders.txt");
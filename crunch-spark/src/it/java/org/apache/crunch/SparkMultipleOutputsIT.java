@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch;
+
+import com.google.common.collect.Sets;
+import org.apache.crunch.impl.spark.SparkPipeline;
+import org.apache.crunch.PipelineExecution.Status;
+import org.apache.crunch.io.At;
+import org.apache.crunch.test.CrunchTestSupport;
+import org.apache.crunch.types.writable.Writables;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SparkMultipleOutputsIT extends CrunchTestSupport implements Serializable {
+
+  static class StringLengthMapFn extends MapFn<String, Pair<String, Long>> {
+    @Override
+    public Pair<String, Long> map(String input) {
+      increment("my", "counter");
+      return new Pair<String, Long>(input, (long) input.length());
+    }
+  }
+
+  static class FailingMapFn extends MapFn<String, String> {
+    @Override
+    public String map(String input) {
+      throw new CrunchRuntimeException("Failed on " + input);
+    }
+  }
+
+  static class DependentMapFn extends MapFn<String, String> {
+    @Override
+    public String map(String input) {
+      increment("my", "dependent");
+      return input;
+    }
+  }
+
+  @Test
+  public void testFailedTargetStopsDependentOutputs() throws Exception {
+    String inputPath = tempDir.copyResourceFileName("set1.txt");
+    String output1 = tempDir.getFileName("output1");
+    String output2 = tempDir.getFileName("output2");
+    String output3 = tempDir.getFileName("output3");
+
+    Pipeline pipeline = new SparkPipeline("local", "multipleoutputs");
+    PCollection<String> in = pipeline.read(At.textFile(inputPath, Writables.strings()));
+    // Two independent outputs in the first round, one of which fails
+    in.parallelDo(new StringLengthMapFn(), Writables.tableOf(Writables.strings(), Writables.longs()))
+        .write(At.sequenceFile(output1, Writables.strings(), Writables.longs()));
+    SourceTarget<String> failed = At.textFile(output2, Writables.strings());
+    in.parallelDo(new FailingMapFn(), Writables.strings()).write(failed);
+    // A second round that can only run once the failed output has been written
+    in.parallelDo("dependent", new DependentMapFn(), Writables.strings(),
+        ParallelDoOptions.builder().sourceTargets(failed).build())
+        .write(At.textFile(output3, Writables.strings()));
+    PipelineResult res = pipeline.run();
+
+    assertEquals(Status.FAILED, res.status);
+    assertFalse(res.succeeded());
+    assertTrue(tempDir.getFile("output1").exists());
+    assertFalse(tempDir.getFile("output3").exists());
+    assertEquals(0, res.getStageResults().get(0).getCounterValue("my", "dependent"));
+
+    pipeline.done();
+  }
+
+  @Test
+  public void testWriteToTwoPathTargets() throws Exception {
+    String inputPath = tempDir.copyResourceFileName("set1.txt");
+    String output1 = tempDir.getFileName("output1");
+    String output2 = tempDir.getFileName("output2");
+
+    Pipeline pipeline = new SparkPipeline("local", "multipleoutputs");
+    PTable<String, Long> lengths = pipeline.read(At.textFile(inputPath, Writables.strings()))
+        .parallelDo(new StringLengthMapFn(), Writables.tableOf(Writables.strings(), Writables.longs()));
+    lengths.write(At.sequenceFile(output1, Writables.strings(), Writables.longs()));
+    lengths.write(At.sequenceFile(output2, Writables.strings(), Writables.longs()));
+    PipelineResult res = pipeline.run();
+
+    // The collection is only computed once for both of the targets
+    assertEquals(4, res.getStageResults().get(0).getCounterValue("my", "counter"));
+
+    Set<Pair<String, Long>> expected = Sets.newHashSet(
+        Pair.of("b", 1L), Pair.of("c", 1L), Pair.of("a", 1L), Pair.of("e", 1L));
+    assertEquals(expected, Sets.newHashSet(pipeline.read(
+        At.sequenceFile(output1, Writables.strings(), Writables.longs())).materialize()));
+    assertEquals(expected, Sets.newHashSet(pipeline.read(
+        At.sequenceFile(output2, Writables.strings(), Writables.longs())).materialize()));
+
+    pipeline.done();
+  }
+}
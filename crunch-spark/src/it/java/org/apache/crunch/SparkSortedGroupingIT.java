@@ -0,0 +1,124 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import org.apache.crunch.fn.Aggregators;
+import org.apache.crunch.impl.spark.SparkPipeline;
+import org.apache.crunch.io.From;
+import org.apache.crunch.lib.SecondarySort;
+import org.apache.crunch.lib.Sort;
+import org.apache.crunch.test.CrunchTestSupport;
+import org.junit.Test;
+
+import java.io.Serializable;
+
+import static org.apache.crunch.lib.Sort.ColumnOrder.by;
+import static org.apache.crunch.lib.Sort.Order.ASCENDING;
+import static org.apache.crunch.lib.Sort.Order.DESCENDING;
+import static org.apache.crunch.types.avro.Avros.ints;
+import static org.apache.crunch.types.avro.Avros.longs;
+import static org.apache.crunch.types.avro.Avros.pairs;
+import static org.apache.crunch.types.avro.Avros.strings;
+import static org.apache.crunch.types.avro.Avros.tableOf;
+import static org.junit.Assert.assertEquals;
+
+public class SparkSortedGroupingIT extends CrunchTestSupport implements Serializable {
+
+  private PTable<String, String> readDocs(Pipeline p) throws Exception {
+    return p.read(From.textFile(tempDir.copyResourceFileName("docs.txt")))
+        .parallelDo(new MapFn<String, Pair<String, String>>() {
+          @Override
+          public Pair<String, String> map(String input) {
+            String[] pieces = input.split("\t");
+            return Pair.of(pieces[0], pieces[1]);
+          }
+        }, tableOf(strings(), strings()));
+  }
+
+  @Test
+  public void testSecondarySortAcrossPartitions() throws Exception {
+    Pipeline p = new SparkPipeline("local", "sortedgrouping");
+    String inputFile = tempDir.copyResourceFileName("secondary_sort_input.txt");
+
+    PTable<String, Pair<Integer, Integer>> in = p.read(From.textFile(inputFile))
+        .parallelDo(new MapFn<String, Pair<String, Pair<Integer, Integer>>>() {
+          @Override
+          public Pair<String, Pair<Integer, Integer>> map(String input) {
+            String[] pieces = input.split(",");
+            return Pair.of(pieces[0],
+                Pair.of(Integer.valueOf(pieces[1].trim()), Integer.valueOf(pieces[2].trim())));
+          }
+        }, tableOf(strings(), pairs(ints(), ints())));
+    // The secondary sort's partitioner and grouping comparator must keep each key's values together
+    // in one group when they are shuffled to several partitions.
+    Iterable<String> lines = SecondarySort.sortAndApply(in,
+        new MapFn<Pair<String, Iterable<Pair<Integer, Integer>>>, String>() {
+          @Override
+          public String map(Pair<String, Iterable<Pair<Integer, Integer>>> input) {
+            Joiner j = Joiner.on(',');
+            return j.join(input.first(), j.join(input.second()));
+          }
+        }, strings(), 3).materialize();
+    assertEquals(ImmutableSet.of("one,[-5,10],[1,1],[2,-3]", "three,[0,-1]", "two,[1,7],[2,6],[4,5]"),
+        Sets.newHashSet(lines));
+    p.done();
+  }
+
+  @Test
+  public void testSortPairsDescending() throws Exception {
+    Pipeline p = new SparkPipeline("local", "sortedgrouping");
+    PCollection<Pair<String, String>> sorted = Sort.sortPairs(readDocs(p).pairs(),
+        by(1, DESCENDING), by(2, ASCENDING));
+    assertEquals(ImmutableList.of(
+        Pair.of("B", "but not as much as the last"),
+        Pair.of("B", "doc"),
+        Pair.of("B", "this doc has some text"),
+        Pair.of("A", "and this text as well"),
+        Pair.of("A", "but also this"),
+        Pair.of("A", "this doc has this text")),
+        ImmutableList.copyOf(sorted.materialize()));
+    p.done();
+  }
+
+  @Test
+  public void testCombineValuesWithSortedKeys() throws Exception {
+    Pipeline p = new SparkPipeline("local", "sortedgrouping");
+    PTable<String, Long> counts = readDocs(p).values()
+        .parallelDo(new DoFn<String, Pair<String, Long>>() {
+          @Override
+          public void process(String input, Emitter<Pair<String, Long>> emitter) {
+            for (String word : input.split(" ")) {
+              emitter.emit(Pair.of(word, 1L));
+            }
+          }
+        }, tableOf(strings(), longs()))
+        .groupByKey(GroupingOptions.builder().requireSortedKeys().numReducers(1).build())
+        .combineValues(Aggregators.SUM_LONGS());
+    assertEquals(ImmutableList.of(
+        Pair.of("also", 1L), Pair.of("and", 1L), Pair.of("as", 3L), Pair.of("but", 2L),
+        Pair.of("doc", 3L), Pair.of("has", 2L), Pair.of("last", 1L), Pair.of("much", 1L),
+        Pair.of("not", 1L), Pair.of("some", 1L), Pair.of("text", 3L), Pair.of("the", 1L),
+        Pair.of("this", 5L), Pair.of("well", 1L)),
+        ImmutableList.copyOf(counts.materialize()));
+    p.done();
+  }
+}
@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.spark;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import org.apache.crunch.CrunchRuntimeException;
+import org.apache.crunch.MapFn;
+import org.apache.crunch.ReadableData;
+import org.apache.crunch.SourceTarget;
+import org.apache.crunch.impl.spark.serde.AvroSerDe;
+import org.apache.crunch.impl.spark.serde.SerDe;
+import org.apache.crunch.impl.spark.serde.WritableSerDe;
+import org.apache.crunch.types.PType;
+import org.apache.crunch.types.avro.AvroType;
+import org.apache.crunch.types.writable.WritableType;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.apache.spark.broadcast.Broadcast;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@code ReadableData} that is read once on the driver when the job that uses it is configured, and
+ * then shipped to the executors as a broadcast variable. The contents are deserialized once per executor
+ * and shared by all of the tasks that run on it, instead of each task reading and parsing the files of
+ * the data from the distributed cache.
+ *
+ * <p>Since the values are shared between tasks, they must not be modified by the functions that read them.
+ */
+class BroadcastReadableData<T> implements ReadableData<T> {
+
+  private final ReadableData<T> delegate;
+  private final PType<T> ptype;
+  private final SerDe serde;
+  private transient SparkPipeline pipeline;
+  private Broadcast<Contents<T>> broadcast;
+
+  /**
+   * Returns the data to read for the given data of the given type, which is the data itself when
+   * the values of the type cannot be serialized for a broadcast.
+   */
+  static <T> ReadableData<T> create(ReadableData<T> data, PType<T> ptype, SparkPipeline pipeline) {
+    if (data instanceof BroadcastReadableData) {
+      return data;
+    } else if (ptype instanceof AvroType) {
+      return new BroadcastReadableData<T>(data, ptype, new AvroSerDe((AvroType) ptype), pipeline);
+    } else if (ptype instanceof WritableType) {
+      return new BroadcastReadableData<T>(data, ptype,
+          new WritableSerDe(((WritableType) ptype).getSerializationClass()), pipeline);
+    }
+    return data;
+  }
+
+  private BroadcastReadableData(ReadableData<T> delegate, PType<T> ptype, SerDe serde, SparkPipeline pipeline) {
+    this.delegate = delegate;
+    this.ptype = ptype;
+    this.serde = serde;
+    this.pipeline = pipeline;
+  }
+
+  @Override
+  public Set<SourceTarget<?>> getSourceTargets() {
+    return delegate.getSourceTargets();
+  }
+
+  @Override
+  public void configure(Configuration conf) {
+    if (broadcast == null) {
+      SparkRuntime runtime = pipeline == null ? null : pipeline.getRuntime();
+      if (runtime == null) {
+        // Not on the driver of a running pipeline, so the tasks read the data from the distributed cache
+        delegate.configure(conf);
+        return;
+      }
+      SparkRuntimeContext ctxt = runtime.getRuntimeContext();
+      broadcast = runtime.getSparkContext().broadcast(
+          new Contents<T>(ptype, serde, ctxt, readOnDriver(conf, ctxt)));
+    }
+  }
+
+  private List<byte[]> readOnDriver(Configuration conf, SparkRuntimeContext ctxt) {
+    Configuration readConf = new Configuration(conf);
+    delegate.configure(readConf);
+    try {
+      URI[] uris = DistributedCache.getCacheFiles(readConf);
+      if (uris != null) {
+        // Nothing is localized on the driver, so the cache files are read from where they are.
+        String files = Joiner.on(',').join(uris);
+        readConf.set("mapreduce.job.cache.local.files", files);
+        readConf.set("mapred.cache.localFiles", files);
+      }
+      TaskInputOutputContext<?, ?, ?, ?> context = ctxt.createTaskContext(readConf, new TaskAttemptID());
+      ptype.initialize(readConf);
+      MapFn<T, Object> outputFn = ptype.getOutputMapFn();
+      List<byte[]> values = Lists.newArrayList();
+      for (T value : delegate.read(context)) {
+        values.add(serde.toBytes(outputFn.map(value)));
+      }
+      return values;
+    } catch (Exception e) {
+      throw new CrunchRuntimeException("Could not read data to broadcast", e);
+    }
+  }
+
+  @Override
+  public Iterable<T> read(TaskInputOutputContext<?, ?, ?, ?> context) throws IOException {
+    if (broadcast == null) {
+      return delegate.read(context);
+    }
+    return broadcast.value().getValues();
+  }
+
+  /**
+   * The contents of the data, which are serialized on the driver and deserialized into their values
+   * when they are first read on an executor, with the {@code PType} initialized from the configuration
+   * of the pipeline.
+   */
+  private static class Contents<T> implements Serializable {
+
+    private final PType<T> ptype;
+    private final SerDe serde;
+    private final SparkRuntimeContext ctxt;
+    private transient List<byte[]> serialized;
+    private transient List<T> values;
+
+    Contents(PType<T> ptype, SerDe serde, SparkRuntimeContext ctxt, List<byte[]> serialized) {
+      this.ptype = ptype;
+      this.serde = serde;
+      this.ctxt = ctxt;
+      this.serialized = serialized;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+      out.defaultWriteObject();
+      out.writeInt(serialized.size());
+      for (byte[] bytes : serialized) {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      int size = in.readInt();
+      List<byte[]> read = Lists.newArrayListWithCapacity(size);
+      for (int i = 0; i < size; i++) {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        read.add(bytes);
+      }
+      serialized = read;
+    }
+
+    synchronized List<T> getValues() {
+      if (values == null) {
+        values = decode(serialized);
+        serialized = null;
+      }
+      return values;
+    }
+
+    private List<T> decode(List<byte[]> bytes) {
+      ptype.initialize(ctxt.getConfiguration());
+      MapFn<Object, T> inputFn = ptype.getInputMapFn();
+      List<T> decoded = Lists.newArrayListWithCapacity(bytes.size());
+      for (byte[] b : bytes) {
+        decoded.add(inputFn.map(serde.fromBytes(b)));
+      }
+      return Collections.unmodifiableList(decoded);
+    }
+  }
+}
@@ -26,6 +26,7 @@ import org.apache.crunch.PCollection;
 import org.apache.crunch.PTable;
 import org.apache.crunch.PipelineExecution;
 import org.apache.crunch.PipelineResult;
+import org.apache.crunch.ReadableData;
 import org.apache.crunch.impl.dist.DistributedPipeline;
 import org.apache.crunch.impl.dist.collect.PCollectionImpl;
 import org.apache.crunch.impl.spark.collect.EmptyPCollection;
@@ -48,6 +49,7 @@ public class SparkPipeline extends DistributedPipeline {
   private final String sparkConnect;
   private JavaSparkContext sparkContext;
   private Class<?> jarClass;
+  private SparkRuntime runtime;
   private final Map<PCollection<?>, StorageLevel> cachedCollections = Maps.newHashMap();
 
   public SparkPipeline(String sparkConnect, String appName) {
@@ -76,6 +78,18 @@ public class SparkPipeline extends DistributedPipeline {
     return c;
   }
 
+  @Override
+  public <T> ReadableData<T> getReadableData(ReadableData<T> data, PType<T> ptype) {
+    return BroadcastReadableData.create(data, ptype, this);
+  }
+
+  /**
+   * Returns the runtime of the most recent run of this pipeline, or null if it has not been run.
+   */
+  SparkRuntime getRuntime() {
+    return runtime;
+  }
+
   @Override
   public <S> PCollection<S> emptyPCollection(PType<S> ptype) {
     return new EmptyPCollection<S>(this, ptype);
@@ -131,7 +145,7 @@ public class SparkPipeline extends DistributedPipeline {
         }
       }
     }
-    SparkRuntime runtime = new SparkRuntime(this, sparkContext, getConfiguration(), outputTargets, toMaterialize,
+    this.runtime = new SparkRuntime(this, sparkContext, getConfiguration(), outputTargets, toMaterialize,
         cachedCollections);
     runtime.execute();
     outputTargets.clear();
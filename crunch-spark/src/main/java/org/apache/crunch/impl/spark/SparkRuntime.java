@@ -18,19 +18,25 @@
 package org.apache.crunch.impl.spark;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.AbstractFuture;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.crunch.CombineFn;
+import org.apache.crunch.CrunchRuntimeException;
 import org.apache.crunch.PCollection;
 import org.apache.crunch.PipelineExecution;
 import org.apache.crunch.PipelineResult;
 import org.apache.crunch.SourceTarget;
 import org.apache.crunch.Target;
+import org.apache.crunch.hadoop.mapreduce.TaskAttemptContextFactory;
 import org.apache.crunch.impl.dist.collect.PCollectionImpl;
+import org.apache.crunch.impl.mr.plan.PlanningParameters;
+import org.apache.crunch.impl.mr.run.RuntimeParameters;
 import org.apache.crunch.impl.spark.fn.MapFunction;
+import org.apache.crunch.impl.spark.fn.MultiOutputFunction;
 import org.apache.crunch.impl.spark.fn.OutputConverterFunction;
 import org.apache.crunch.impl.spark.fn.PairMapFunction;
 import org.apache.crunch.io.MapReduceTarget;
@@ -48,22 +54,35 @@ import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapreduce.CounterGroup;
 import org.apache.hadoop.mapreduce.Counters;
 import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobStatus;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
 import org.apache.spark.Accumulator;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaRDDLike;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.storage.StorageLevel;
+import scala.reflect.ClassTag$;
 
 import java.io.IOException;
 import java.net.URI;
+import java.text.SimpleDateFormat;
 import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class SparkRuntime extends AbstractFuture<PipelineResult> implements PipelineExecution {
@@ -208,91 +227,211 @@ public class SparkRuntime extends AbstractFuture<PipelineResult> implements Pipe
     for (PCollectionImpl<?> pcollect : outputTargets.keySet()) {
       targetDeps.put(pcollect, pcollect.getTargetDependencies());
     }
-    while (!targetDeps.isEmpty() && doneSignal.getCount() > 0) {
-      Set<Target> allTargets = Sets.newHashSet();
-      for (PCollectionImpl<?> pcollect : targetDeps.keySet()) {
-        allTargets.addAll(outputTargets.get(pcollect));
-      }
-      Map<PCollectionImpl<?>, JavaRDDLike<?, ?>> pcolToRdd = Maps.newTreeMap(DEPTH_COMPARATOR);
-      for (PCollectionImpl<?> pcollect : targetDeps.keySet()) {
-        if (Sets.intersection(allTargets, targetDeps.get(pcollect)).isEmpty()) {
-          JavaRDDLike<?, ?> rdd = ((SparkCollection) pcollect).getJavaRDDLike(this);
-          pcolToRdd.put(pcollect, rdd);
+    ExecutorService executor = createExecutor();
+    try {
+      while (!targetDeps.isEmpty() && status.get() == Status.RUNNING) {
+        Set<Target> allTargets = Sets.newHashSet();
+        for (PCollectionImpl<?> pcollect : targetDeps.keySet()) {
+          allTargets.addAll(outputTargets.get(pcollect));
         }
-      }
-      distributeFiles();
-      for (Map.Entry<PCollectionImpl<?>, JavaRDDLike<?, ?>> e : pcolToRdd.entrySet()) {
-        JavaRDDLike<?, ?> rdd = e.getValue();
-        PType<?> ptype = e.getKey().getPType();
-        Set<Target> targets = outputTargets.get(e.getKey());
-        if (targets.size() > 1) {
-          rdd.rdd().cache();
+        Map<PCollectionImpl<?>, JavaRDDLike<?, ?>> pcolToRdd = Maps.newTreeMap(DEPTH_COMPARATOR);
+        for (PCollectionImpl<?> pcollect : targetDeps.keySet()) {
+          if (Sets.intersection(allTargets, targetDeps.get(pcollect)).isEmpty()) {
+            JavaRDDLike<?, ?> rdd = ((SparkCollection) pcollect).getJavaRDDLike(this);
+            pcolToRdd.put(pcollect, rdd);
+          }
         }
-        for (Target t : targets) {
-          Configuration conf = new Configuration(getConfiguration());
-          getRuntimeContext().setConf(sparkContext.broadcast(WritableUtils.toByteArray(conf)));
-          if (t instanceof MapReduceTarget) { //TODO: check this earlier
-            Converter c = t.getConverter(ptype);
-            JavaPairRDD<?, ?> outRDD;
-            if (rdd instanceof JavaRDD) {
-              outRDD = ((JavaRDD) rdd)
-                  .map(new MapFunction(ptype.getOutputMapFn(), ctxt))
-                  .map(new OutputConverterFunction(c));
-            } else {
-              outRDD = ((JavaPairRDD) rdd)
-                  .map(new PairMapFunction(ptype.getOutputMapFn(), ctxt))
-                  .map(new OutputConverterFunction(c));
-            }
-            try {
-              Job job = new Job(conf);
-              if (t instanceof PathTarget) {
-                PathTarget pt = (PathTarget) t;
-                pt.configureForMapReduce(job, ptype, pt.getPath(), null);
-                Path tmpPath = pipeline.createTempPath();
-                outRDD.saveAsNewAPIHadoopFile(
-                    tmpPath.toString(),
-                    c.getKeyClass(),
-                    c.getValueClass(),
-                    job.getOutputFormatClass(),
-                    job.getConfiguration());
-                pt.handleOutputs(job.getConfiguration(), tmpPath, -1);
-              } else if (t instanceof MapReduceTarget) {
-                MapReduceTarget mrt = (MapReduceTarget) t;
-                mrt.configureForMapReduce(job, ptype, new Path("/tmp"), null);
-                outRDD.saveAsHadoopDataset(new JobConf(job.getConfiguration()));
-              } else {
-                throw new IllegalArgumentException("Spark execution cannot handle non-MapReduceTarget: " + t);
-              }
-            } catch (Exception et) {
-              LOG.error("Spark Exception", et);
-              status.set(Status.FAILED);
-              set(PipelineResult.EMPTY);
-              doneSignal.countDown();
-            }
+        distributeFiles();
+        getRuntimeContext().setConf(sparkContext.broadcast(WritableUtils.toByteArray(getConfiguration())));
+
+        // None of the outputs in this round depend on each other, so they are all submitted at once
+        // and the next round starts when all of them are done.
+        List<Future<?>> futures = Lists.newArrayList();
+        for (Map.Entry<PCollectionImpl<?>, JavaRDDLike<?, ?>> e : pcolToRdd.entrySet()) {
+          futures.addAll(submitOutputs(executor, e.getKey(), e.getValue()));
+        }
+        for (Future<?> future : futures) {
+          try {
+            future.get();
+          } catch (ExecutionException ee) {
+            LOG.error("Spark Exception", ee.getCause());
+            status.compareAndSet(Status.RUNNING, Status.FAILED);
           }
         }
-      }
-      for (PCollectionImpl<?> output : pcolToRdd.keySet()) {
-        if (toMaterialize.containsKey(output)) {
-          MaterializableIterable mi = toMaterialize.get(output);
-          if (mi.isSourceTarget()) {
-            output.materializeAt((SourceTarget) mi.getSource());
+        if (status.get() != Status.RUNNING) {
+          break;
+        }
+
+        for (PCollectionImpl<?> output : pcolToRdd.keySet()) {
+          if (toMaterialize.containsKey(output)) {
+            MaterializableIterable mi = toMaterialize.get(output);
+            if (mi.isSourceTarget()) {
+              output.materializeAt((SourceTarget) mi.getSource());
+            }
           }
+          targetDeps.remove(output);
         }
-        targetDeps.remove(output);
       }
+    } catch (InterruptedException e) {
+      LOG.info("Interrupted while waiting for Spark jobs", e);
+      status.compareAndSet(Status.RUNNING, Status.KILLED);
+    } catch (Exception e) {
+      LOG.error("Spark Exception", e);
+      status.compareAndSet(Status.RUNNING, Status.FAILED);
+    } finally {
+      executor.shutdownNow();
     }
-    if (status.get() != Status.FAILED || status.get() != Status.KILLED) {
-      status.set(Status.SUCCEEDED);
-      set(new PipelineResult(
-          ImmutableList.of(new PipelineResult.StageResult("Spark", getCounters(), start, System.currentTimeMillis())),
-          Status.SUCCEEDED));
+    List<PipelineResult.StageResult> stages = ImmutableList.of(
+        new PipelineResult.StageResult("Spark", getCounters(), start, System.currentTimeMillis()));
+    if (status.compareAndSet(Status.RUNNING, Status.SUCCEEDED)) {
+      set(new PipelineResult(stages, Status.SUCCEEDED));
     } else {
-      set(PipelineResult.EMPTY);
+      set(new PipelineResult(stages, status.get()));
     }
     doneSignal.countDown();
   }
 
+  private ExecutorService createExecutor() {
+    final AtomicInteger count = new AtomicInteger();
+    return Executors.newFixedThreadPool(conf.getInt(RuntimeParameters.MAX_RUNNING_JOBS, 5), new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "crunch-spark-" + count.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      }
+    });
+  }
+
+  /**
+   * Submits the actions that write the given collection to each of its targets, and returns their futures.
+   */
+  private List<Future<?>> submitOutputs(ExecutorService executor, PCollectionImpl<?> pcollect,
+      final JavaRDDLike<?, ?> rdd) {
+    final PType<?> ptype = pcollect.getPType();
+    Set<Target> targets = outputTargets.get(pcollect);
+    // Path targets are written together in a single pass over the collection.
+    final List<PathTarget> multiTargets = Lists.newArrayList();
+    for (Target t : targets) {
+      if (t instanceof PathTarget) {
+        multiTargets.add((PathTarget) t);
+      }
+    }
+    if (multiTargets.size() < 2) {
+      multiTargets.clear();
+    }
+    int numActions = multiTargets.isEmpty() ? targets.size() : targets.size() - multiTargets.size() + 1;
+    if (numActions > 1) {
+      rdd.rdd().cache();
+    }
+    List<Future<?>> futures = Lists.newArrayList();
+    if (!multiTargets.isEmpty()) {
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          writeMultipleOutputs(rdd, ptype, multiTargets);
+          return null;
+        }
+      }));
+    }
+    for (final Target t : targets) {
+      if (multiTargets.contains(t)) {
+        continue;
+      }
+      if (t instanceof MapReduceTarget) { //TODO: check this earlier
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            writeOutput(rdd, ptype, t);
+            return null;
+          }
+        }));
+      }
+    }
+    return futures;
+  }
+
+  private void writeOutput(JavaRDDLike<?, ?> rdd, PType<?> ptype, Target t)
+      throws IOException, InterruptedException {
+    Converter c = t.getConverter(ptype);
+    JavaPairRDD<?, ?> outRDD;
+    if (rdd instanceof JavaRDD) {
+      outRDD = ((JavaRDD) rdd)
+          .map(new MapFunction(ptype.getOutputMapFn(), ctxt))
+          .map(new OutputConverterFunction(c));
+    } else {
+      outRDD = ((JavaPairRDD) rdd)
+          .map(new PairMapFunction(ptype.getOutputMapFn(), ctxt))
+          .map(new OutputConverterFunction(c));
+    }
+    Job job = new Job(new Configuration(getConfiguration()));
+    if (t instanceof PathTarget) {
+      PathTarget pt = (PathTarget) t;
+      pt.configureForMapReduce(job, ptype, pt.getPath(), null);
+      Path tmpPath = pipeline.createTempPath();
+      outRDD.saveAsNewAPIHadoopFile(
+          tmpPath.toString(),
+          c.getKeyClass(),
+          c.getValueClass(),
+          job.getOutputFormatClass(),
+          job.getConfiguration());
+      pt.handleOutputs(job.getConfiguration(), tmpPath, -1);
+    } else if (t instanceof MapReduceTarget) {
+      MapReduceTarget mrt = (MapReduceTarget) t;
+      mrt.configureForMapReduce(job, ptype, new Path("/tmp"), null);
+      outRDD.saveAsHadoopDataset(new JobConf(job.getConfiguration()));
+    } else {
+      throw new IllegalArgumentException("Spark execution cannot handle non-MapReduceTarget: " + t);
+    }
+  }
+
+  /**
+   * Writes the given collection to all of the given targets in a single Spark job, via named outputs
+   * in the same way that a MapReduce job writes several outputs.
+   */
+  private void writeMultipleOutputs(JavaRDDLike<?, ?> rdd, PType<?> ptype, List<PathTarget> targets)
+      throws IOException, InterruptedException {
+    Job job = new Job(new Configuration(getConfiguration()));
+    Path tmpPath = pipeline.createTempPath();
+    List<String> names = Lists.newArrayList();
+    List<Converter> converters = Lists.newArrayList();
+    for (int i = 0; i < targets.size(); i++) {
+      String name = PlanningParameters.MULTI_OUTPUT_PREFIX + i;
+      targets.get(i).configureForMapReduce(job, ptype, tmpPath, name);
+      names.add(name);
+      converters.add(targets.get(i).getConverter(ptype));
+    }
+
+    JavaRDD<Object> outRDD;
+    if (rdd instanceof JavaRDD) {
+      outRDD = ((JavaRDD) rdd).map(new MapFunction(ptype.getOutputMapFn(), ctxt));
+    } else {
+      outRDD = ((JavaPairRDD) rdd).map(new PairMapFunction(ptype.getOutputMapFn(), ctxt));
+    }
+
+    Configuration jobConf = job.getConfiguration();
+    SparkRuntimeContext outputCtxt = new SparkRuntimeContext(counters,
+        sparkContext.broadcast(WritableUtils.toByteArray(jobConf)));
+    String jobTrackerId = new SimpleDateFormat("yyyyMMddHHmm").format(new Date());
+    FileOutputCommitter committer = new FileOutputCommitter(tmpPath,
+        TaskAttemptContextFactory.create(jobConf, new TaskAttemptID(jobTrackerId, 0, false, 0, 0)));
+    committer.setupJob(job);
+    try {
+      outRDD.rdd().mapPartitionsWithContext(
+          new MultiOutputFunction(names, converters, tmpPath, jobTrackerId, outputCtxt),
+          false,
+          ClassTag$.MODULE$.apply(Object.class)).count();
+      committer.commitJob(job);
+    } catch (Exception e) {
+      // Spark reports task failures as SparkExceptions, which are not declared by its Scala methods
+      committer.abortJob(job, JobStatus.State.FAILED);
+      throw new CrunchRuntimeException("Could not write outputs " + targets, e);
+    }
+    for (int i = 0; i < targets.size(); i++) {
+      targets.get(i).handleOutputs(jobConf, tmpPath, i);
+    }
+  }
+
   private Counters getCounters() {
     Counters c = new Counters();
     for (Map.Entry<String, Map<String, Long>> e : counters.value().entrySet()) {
@@ -339,6 +478,7 @@ public class SparkRuntime extends AbstractFuture<PipelineResult> implements Pipe
   @Override
   public void kill() throws InterruptedException {
     if (started) {
+      status.set(Status.KILLED);
       sparkContext.stop();
       set(PipelineResult.EMPTY);
     }
@@ -71,6 +71,21 @@ public class SparkRuntimeContext implements Serializable {
     fn.initialize();
   }
 
+  /**
+   * Returns a new context for the given task attempt, whose counters are reported to the pipeline.
+   */
+  public TaskInputOutputContext createTaskContext(TaskAttemptID attemptId) {
+    return createTaskContext(getConfiguration(), attemptId);
+  }
+
+  /**
+   * Returns a new context with the given configuration for the given task attempt, whose counters are
+   * reported to the pipeline.
+   */
+  public TaskInputOutputContext createTaskContext(Configuration conf, TaskAttemptID attemptId) {
+    return TaskInputOutputContextFactory.create(conf, attemptId, new SparkReporter(counters));
+  }
+
   private void configureLocalFiles() {
     try {
       URI[] uris = DistributedCache.getCacheFiles(getConfiguration());
@@ -25,11 +25,12 @@ import org.apache.crunch.impl.dist.collect.BaseGroupedTable;
 import org.apache.crunch.impl.dist.collect.PTableBase;
 import org.apache.crunch.impl.spark.ByteArray;
 import org.apache.crunch.impl.spark.SparkCollection;
-import org.apache.crunch.impl.spark.SparkComparator;
 import org.apache.crunch.impl.spark.SparkPartitioner;
 import org.apache.crunch.impl.spark.SparkRuntime;
-import org.apache.crunch.impl.spark.fn.CombineMapsideFunction;
+import org.apache.crunch.impl.spark.fn.CombineBuffer;
+import org.apache.crunch.impl.spark.fn.CombineBufferFunction;
 import org.apache.crunch.impl.spark.fn.MapOutputFunction;
+import org.apache.crunch.impl.spark.fn.MergeCombineBuffersFunction;
 import org.apache.crunch.impl.spark.fn.PairMapFunction;
 import org.apache.crunch.impl.spark.fn.PairMapIterableFunction;
 import org.apache.crunch.impl.spark.fn.PartitionedMapOutputFunction;
@@ -42,6 +43,8 @@ import org.apache.crunch.types.PTableType;
 import org.apache.crunch.types.avro.AvroType;
 import org.apache.crunch.types.writable.WritableType;
 import org.apache.crunch.util.PartitionUtils;
+import org.apache.spark.HashPartitioner;
+import org.apache.spark.Partitioner;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDDLike;
 import org.apache.spark.storage.StorageLevel;
@@ -72,9 +75,6 @@ public class PGroupedTableImpl<K, V> extends BaseGroupedTable<K, V> implements S
 
   private JavaRDDLike<?, ?> getJavaRDDLikeInternal(SparkRuntime runtime, CombineFn<K, V> combineFn) {
     JavaPairRDD<K, V> parentRDD = (JavaPairRDD<K, V>) ((SparkCollection)getOnlyParent()).getJavaRDDLike(runtime);
-    if (combineFn != null) {
-      parentRDD = parentRDD.mapPartitions(new CombineMapsideFunction<K, V>(combineFn, runtime.getRuntimeContext()));
-    }
     SerDe keySerde, valueSerde;
     PTableType<K, V> parentType = ptype.getTableType();
     if (parentType instanceof AvroType) {
@@ -92,27 +92,51 @@ public class PGroupedTableImpl<K, V> extends BaseGroupedTable<K, V> implements S
       numPartitions = 1;
     }
 
-    JavaPairRDD<ByteArray, List<byte[]>> groupedRDD;
+    JavaPairRDD<ByteArray, byte[]> mapOutputRDD;
     if (groupingOptions.getPartitionerClass() != null) {
-      groupedRDD = parentRDD
+      mapOutputRDD = parentRDD
           .map(new PairMapFunction(ptype.getOutputMapFn(), runtime.getRuntimeContext()))
           .map(new PartitionedMapOutputFunction(keySerde, valueSerde, ptype, groupingOptions.getPartitionerClass(),
-              numPartitions, runtime.getRuntimeContext()))
-          .groupByKey(new SparkPartitioner(numPartitions));
+              numPartitions, runtime.getRuntimeContext()));
     } else {
-      groupedRDD = parentRDD
+      mapOutputRDD = parentRDD
           .map(new PairMapFunction(ptype.getOutputMapFn(), runtime.getRuntimeContext()))
-          .map(new MapOutputFunction(keySerde, valueSerde))
-          .groupByKey(numPartitions);
+          .map(new MapOutputFunction(keySerde, valueSerde));
     }
 
-    if (groupingOptions.requireSortedKeys() || groupingOptions.getSortComparatorClass() != null) {
-      SparkComparator scmp = new SparkComparator(groupingOptions, ptype, runtime.getRuntimeContext());
-      groupedRDD = groupedRDD.sortByKey(scmp);
+    Partitioner partitioner;
+    if (groupingOptions.getPartitionerClass() != null) {
+      partitioner = new SparkPartitioner(numPartitions);
+    } else {
+      partitioner = new HashPartitioner(numPartitions);
     }
-    if (groupingOptions.getGroupingComparatorClass() != null) {
-      groupedRDD = groupedRDD.mapPartitions(
-          new ReduceGroupingFunction(groupingOptions, ptype, runtime.getRuntimeContext()));
+    // Like the shuffle of a MapReduce job, a single shuffle partitions the records, and the keys are
+    // then sorted within each partition when the order of the keys or a grouping comparator is needed.
+    boolean sorted = groupingOptions.requireSortedKeys() || groupingOptions.getSortComparatorClass() != null
+        || groupingOptions.getGroupingComparatorClass() != null;
+
+    JavaPairRDD<ByteArray, List<byte[]>> groupedRDD;
+    if (combineFn != null) {
+      // Combine the values of each key on both sides of the shuffle, so that only the partially
+      // combined values of each key are shuffled and grouped.
+      MergeCombineBuffersFunction<K, V> mergeFn = new MergeCombineBuffersFunction<K, V>(combineFn, ptype,
+          keySerde, valueSerde, runtime.getRuntimeContext());
+      JavaPairRDD<ByteArray, CombineBuffer> bufferRDD = mapOutputRDD
+          .map(new CombineBufferFunction())
+          .reduceByKey(partitioner, mergeFn);
+      if (sorted) {
+        groupedRDD = bufferRDD
+            .flatMap(new CombineBuffer.RecordsFunction())
+            .mapPartitions(new ReduceGroupingFunction(groupingOptions, ptype, runtime.getRuntimeContext()));
+      } else {
+        groupedRDD = bufferRDD.mapValues(new CombineBuffer.ValuesFunction());
+      }
+    } else if (sorted) {
+      groupedRDD = mapOutputRDD
+          .partitionBy(partitioner)
+          .mapPartitions(new ReduceGroupingFunction(groupingOptions, ptype, runtime.getRuntimeContext()));
+    } else {
+      groupedRDD = mapOutputRDD.groupByKey(partitioner);
     }
 
     return groupedRDD
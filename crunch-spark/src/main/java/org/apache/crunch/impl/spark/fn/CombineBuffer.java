@@ -0,0 +1,68 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.spark.fn;
+
+import com.google.common.collect.Lists;
+import org.apache.crunch.impl.spark.ByteArray;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.PairFlatMapFunction;
+import scala.Tuple2;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The serialized key and the serialized, partially combined values of a single key, which are merged
+ * together by a {@link MergeCombineBuffersFunction}.
+ */
+public class CombineBuffer implements Serializable {
+
+  final byte[] key;
+  final List<byte[]> values;
+
+  public CombineBuffer(byte[] key, byte[] value) {
+    this.key = key;
+    this.values = Lists.newArrayList();
+    values.add(value);
+  }
+
+  public List<byte[]> getValues() {
+    return values;
+  }
+
+  public static class ValuesFunction extends Function<CombineBuffer, List<byte[]>> {
+    @Override
+    public List<byte[]> call(CombineBuffer buffer) throws Exception {
+      return buffer.getValues();
+    }
+  }
+
+  /**
+   * Splits the buffers back up into one record per value, so that they can be sorted and grouped.
+   */
+  public static class RecordsFunction extends PairFlatMapFunction<Tuple2<ByteArray, CombineBuffer>, ByteArray, byte[]> {
+    @Override
+    public Iterable<Tuple2<ByteArray, byte[]>> call(Tuple2<ByteArray, CombineBuffer> kv) throws Exception {
+      List<Tuple2<ByteArray, byte[]>> records = Lists.newArrayListWithCapacity(kv._2.values.size());
+      for (byte[] value : kv._2.values) {
+        records.add(new Tuple2<ByteArray, byte[]>(kv._1, value));
+      }
+      return records;
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.spark.fn;
+
+import com.google.common.collect.Lists;
+import org.apache.crunch.CombineFn;
+import org.apache.crunch.MapFn;
+import org.apache.crunch.Pair;
+import org.apache.crunch.impl.mem.emit.InMemoryEmitter;
+import org.apache.crunch.impl.spark.SparkRuntimeContext;
+import org.apache.crunch.impl.spark.serde.SerDe;
+import org.apache.crunch.types.PGroupedTableType;
+import org.apache.spark.api.java.function.Function2;
+
+import java.util.List;
+
+/**
+ * Merges the {@link CombineBuffer}s of a key on both sides of the shuffle, running the
+ * {@code CombineFn} over the buffered values whenever there are more than {@link #REDUCE_EVERY_N}
+ * of them, so that the number of values that are kept for each key stays bounded.
+ */
+public class MergeCombineBuffersFunction<K, V> extends Function2<CombineBuffer, CombineBuffer, CombineBuffer> {
+
+  static final int REDUCE_EVERY_N = 100;
+
+  private final CombineFn<K, V> combineFn;
+  private final PGroupedTableType<K, V> ptype;
+  private final SerDe keySerde;
+  private final SerDe valueSerde;
+  private final SparkRuntimeContext ctxt;
+  private transient MapFn<Pair<Object, Iterable<Object>>, Pair<K, Iterable<V>>> inputFn;
+  private transient MapFn<Pair<K, V>, Pair<Object, Object>> outputFn;
+
+  public MergeCombineBuffersFunction(CombineFn<K, V> combineFn, PGroupedTableType<K, V> ptype,
+      SerDe keySerde, SerDe valueSerde, SparkRuntimeContext ctxt) {
+    this.combineFn = combineFn;
+    this.ptype = ptype;
+    this.keySerde = keySerde;
+    this.valueSerde = valueSerde;
+    this.ctxt = ctxt;
+  }
+
+  @Override
+  public CombineBuffer call(CombineBuffer b1, CombineBuffer b2) throws Exception {
+    b1.values.addAll(b2.values);
+    if (b1.values.size() > REDUCE_EVERY_N) {
+      reduce(b1);
+    }
+    return b1;
+  }
+
+  private void initialize() {
+    if (inputFn == null) {
+      ctxt.initialize(combineFn);
+      inputFn = (MapFn) ptype.getInputMapFn();
+      ctxt.initialize(inputFn);
+      outputFn = (MapFn) ptype.getOutputMapFn();
+      ctxt.initialize(outputFn);
+    }
+  }
+
+  private void reduce(CombineBuffer buffer) throws Exception {
+    initialize();
+    List<Object> values = Lists.transform(buffer.values, valueSerde.fromBytesFunction());
+    Object key = keySerde.fromBytes(buffer.key);
+    Pair<K, Iterable<V>> input = inputFn.map(Pair.<Object, Iterable<Object>>of(key, values));
+    InMemoryEmitter<Pair<K, V>> emitter = new InMemoryEmitter<Pair<K, V>>();
+    combineFn.process(input, emitter);
+    combineFn.cleanup(emitter);
+    buffer.values.clear();
+    for (Pair<K, V> p : emitter.getOutput()) {
+      buffer.values.add(valueSerde.toBytes(outputFn.map(p).second()));
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.crunch.impl.spark.fn;
+
+import org.apache.crunch.CrunchRuntimeException;
+import org.apache.crunch.impl.spark.SparkRuntimeContext;
+import org.apache.crunch.io.CrunchOutputs;
+import org.apache.crunch.types.Converter;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
+import org.apache.spark.TaskContext;
+import scala.collection.Iterator;
+import scala.collection.JavaConversions;
+import scala.runtime.AbstractFunction2;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes each partition of an RDD to several named outputs at once via {@link CrunchOutputs}, and commits
+ * the outputs of the partition as a single task of a Hadoop job, so that a collection that is written
+ * to several targets is only computed once.
+ *
+ * <p>This is a Scala function, since the Java API of Spark does not pass the {@code TaskContext} that
+ * holds the partition and the attempt that are needed to create the ID of the task attempt. Retried and
+ * speculative attempts of a partition therefore write to their own task attempt directories.
+ */
+public class MultiOutputFunction extends AbstractFunction2<TaskContext, Iterator<Object>, Iterator<Object>>
+    implements Serializable {
+
+  private final List<String> names;
+  private final List<Converter> converters;
+  private final String outputPath;
+  private final String jobTrackerId;
+  private final SparkRuntimeContext ctxt;
+
+  /**
+   * @param names The names of the outputs
+   * @param converters The converters for the outputs, in the same order as the names
+   * @param outputPath The path that all of the outputs are written to
+   * @param jobTrackerId The identifier to use in the IDs of the task attempts
+   * @param ctxt The context of the job, which has the named outputs configured
+   */
+  public MultiOutputFunction(List<String> names, List<Converter> converters, Path outputPath,
+      String jobTrackerId, SparkRuntimeContext ctxt) {
+    this.names = names;
+    this.converters = converters;
+    this.outputPath = outputPath.toString();
+    this.jobTrackerId = jobTrackerId;
+    this.ctxt = ctxt;
+  }
+
+  @Override
+  public Iterator<Object> apply(TaskContext taskContext, Iterator<Object> iter) {
+    // Spark's attempt ID is unique to each attempt of each task, as in Spark's own SparkHadoopWriter
+    int attempt = (int) (taskContext.attemptId() % Integer.MAX_VALUE);
+    TaskAttemptID attemptId = new TaskAttemptID(jobTrackerId, 0, false, taskContext.partitionId(), attempt);
+    TaskInputOutputContext<?, ?, Object, Object> context = ctxt.createTaskContext(attemptId);
+    FileOutputCommitter committer;
+    try {
+      committer = new FileOutputCommitter(new Path(outputPath), context);
+    } catch (IOException e) {
+      throw new CrunchRuntimeException(e);
+    }
+    try {
+      committer.setupTask(context);
+      CrunchOutputs<Object, Object> outputs = new CrunchOutputs<Object, Object>(context);
+      while (iter.hasNext()) {
+        Object out = iter.next();
+        for (int i = 0; i < names.size(); i++) {
+          Converter c = converters.get(i);
+          outputs.write(names.get(i), c.outputKey(out), c.outputValue(out));
+        }
+      }
+      outputs.close();
+      if (committer.needsTaskCommit(context)) {
+        committer.commitTask(context);
+      }
+    } catch (Exception e) {
+      try {
+        committer.abortTask(context);
+      } catch (IOException ae) {
+        // Report the original failure
+      }
+      throw new CrunchRuntimeException("Error writing outputs " + names, e);
+    }
+    return JavaConversions.asScalaIterator(Collections.<Object>emptyList().iterator());
+  }
+}
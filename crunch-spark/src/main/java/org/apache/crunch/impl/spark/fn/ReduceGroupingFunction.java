@@ -17,10 +17,14 @@
  */
 package org.apache.crunch.impl.spark.fn;
 
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import com.google.common.collect.PeekingIterator;
 import org.apache.crunch.CrunchRuntimeException;
 import org.apache.crunch.GroupingOptions;
 import org.apache.crunch.impl.spark.ByteArray;
+import org.apache.crunch.impl.spark.SparkComparator;
 import org.apache.crunch.impl.spark.SparkRuntimeContext;
 import org.apache.crunch.types.PGroupedTableType;
 import org.apache.hadoop.io.RawComparator;
@@ -30,15 +34,23 @@ import org.apache.spark.api.java.function.PairFlatMapFunction;
 import scala.Tuple2;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 
-public class ReduceGroupingFunction extends PairFlatMapFunction<Iterator<Tuple2<ByteArray, List<byte[]>>>,
+/**
+ * Sorts the records of a single partition of the shuffle by their keys, and then streams the groups of
+ * records whose keys are equal according to the grouping comparator, or to the sort comparator when
+ * there is no grouping comparator, like the reduce side of a MapReduce job.
+ */
+public class ReduceGroupingFunction extends PairFlatMapFunction<Iterator<Tuple2<ByteArray, byte[]>>,
     ByteArray, List<byte[]>> {
 
   private final GroupingOptions options;
   private final PGroupedTableType ptype;
   private final SparkRuntimeContext ctxt;
+  private final SparkComparator sortComparator;
   private transient RawComparator<?> cmp;
 
   public ReduceGroupingFunction(GroupingOptions options,
@@ -47,20 +59,31 @@ public class ReduceGroupingFunction extends PairFlatMapFunction<Iterator<Tuple2<
     this.options = options;
     this.ptype = ptype;
     this.ctxt = ctxt;
+    this.sortComparator = new SparkComparator(options, ptype, ctxt);
   }
 
   @Override
   public Iterable<Tuple2<ByteArray, List<byte[]>>> call(
-      final Iterator<Tuple2<ByteArray, List<byte[]>>> iter) throws Exception {
+      final Iterator<Tuple2<ByteArray, byte[]>> iter) throws Exception {
+    final List<Tuple2<ByteArray, byte[]>> records = Lists.newArrayList(iter);
+    Collections.sort(records, new Comparator<Tuple2<ByteArray, byte[]>>() {
+      @Override
+      public int compare(Tuple2<ByteArray, byte[]> t1, Tuple2<ByteArray, byte[]> t2) {
+        return sortComparator.compare(t1._1, t2._1);
+      }
+    });
     return new Iterable<Tuple2<ByteArray, List<byte[]>>>() {
       @Override
       public Iterator<Tuple2<ByteArray, List<byte[]>>> iterator() {
-        return new GroupingIterator(iter, rawComparator());
+        return new GroupingIterator(records.iterator(), groupingComparator());
       }
     };
   }
 
-  private RawComparator<?> rawComparator() {
+  private Comparator<ByteArray> groupingComparator() {
+    if (options.getGroupingComparatorClass() == null) {
+      return sortComparator;
+    }
     if (cmp == null) {
       try {
         Job job = new Job(ctxt.getConfiguration());
@@ -70,52 +93,36 @@ public class ReduceGroupingFunction extends PairFlatMapFunction<Iterator<Tuple2<
         throw new CrunchRuntimeException("Error configuring grouping comparator", e);
       }
     }
-    return cmp;
+    return new Comparator<ByteArray>() {
+      @Override
+      public int compare(ByteArray a1, ByteArray a2) {
+        return cmp.compare(a1.value, 0, a1.value.length, a2.value, 0, a2.value.length);
+      }
+    };
   }
 
-  private static class GroupingIterator implements Iterator<Tuple2<ByteArray, List<byte[]>>> {
+  private static class GroupingIterator extends AbstractIterator<Tuple2<ByteArray, List<byte[]>>> {
 
-    private final Iterator<Tuple2<ByteArray, List<byte[]>>> iter;
-    private final RawComparator cmp;
-    private ByteArray key;
-    private List<byte[]> bytes = Lists.newArrayList();
+    private final PeekingIterator<Tuple2<ByteArray, byte[]>> iter;
+    private final Comparator<ByteArray> cmp;
 
-    public GroupingIterator(Iterator<Tuple2<ByteArray, List<byte[]>>> iter, RawComparator cmp) {
-      this.iter = iter;
+    public GroupingIterator(Iterator<Tuple2<ByteArray, byte[]>> iter, Comparator<ByteArray> cmp) {
+      this.iter = Iterators.peekingIterator(iter);
       this.cmp = cmp;
     }
 
     @Override
-    public boolean hasNext() {
-      return iter.hasNext() || key != null;
-    }
-
-    @Override
-    public Tuple2<ByteArray, List<byte[]>> next() {
-      ByteArray nextKey = null;
-      List<byte[]> next = null;
-      while (iter.hasNext()) {
-        Tuple2<ByteArray, List<byte[]>> t = iter.next();
-        if (key == null) {
-          key = t._1;
-          bytes.addAll(t._2);
-        } else if (cmp.compare(key.value, 0, key.value.length, t._1.value, 0, t._1.value.length) == 0) {
-          bytes.addAll(t._2);
-        } else {
-          nextKey = t._1;
-          next = Lists.newArrayList(t._2);
-          break;
-        }
+    protected Tuple2<ByteArray, List<byte[]>> computeNext() {
+      if (!iter.hasNext()) {
+        return endOfData();
       }
-      Tuple2<ByteArray, List<byte[]>> ret = new Tuple2<ByteArray, List<byte[]>>(key, bytes);
-      key = nextKey;
-      bytes = next;
-      return ret;
-    }
-
-    @Override
-    public void remove() {
-      throw new UnsupportedOperationException();
+      Tuple2<ByteArray, byte[]> first = iter.next();
+      List<byte[]> values = Lists.newArrayList();
+      values.add(first._2);
+      while (iter.hasNext() && cmp.compare(first._1, iter.peek()._1) == 0) {
+        values.add(iter.next()._2);
+      }
+      return new Tuple2<ByteArray, List<byte[]>>(first._1, values);
     }
   }
 }